@@ -0,0 +1,189 @@
+package ch.simas.jtoggl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+
+/**
+ * Non-blocking HTTP transport used by {@link AsyncJToggl}. Requests are multiplexed
+ * on a few I/O threads and a bounded, keep-alive connection pool; requests waiting
+ * for a connection are queued by the pool and hold no thread. Waits for the rate
+ * limiter and between retries are scheduled on a single timer thread instead of
+ * sleeping.
+ */
+public class AsyncHttpTransport implements Closeable {
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 64;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 16;
+    public static final int DEFAULT_IO_THREADS = 2;
+
+    private static volatile AsyncHttpTransport defaultTransport;
+
+    private final PoolingNHttpClientConnectionManager connectionManager;
+    private final CloseableHttpAsyncClient httpClient;
+    private final ScheduledExecutorService scheduler;
+    private final int ioThreads;
+    private final int timeout;
+
+    public AsyncHttpTransport() {
+        this(DEFAULT_MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_IO_THREADS,
+                HttpTransport.DEFAULT_IDLE_TIMEOUT, HttpTransport.DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * @param maxConnections maximum number of pooled connections
+     * @param maxConnectionsPerRoute maximum number of pooled connections per host
+     * @param ioThreads number of threads doing the I/O of all connections
+     * @param idleTimeout milliseconds after which an idle connection is closed
+     * @param timeout connect and socket timeout in milliseconds
+     */
+    public AsyncHttpTransport(int maxConnections, int maxConnectionsPerRoute, int ioThreads, long idleTimeout,
+            int timeout) {
+        this.ioThreads = ioThreads;
+        this.timeout = timeout;
+        IOReactorConfig reactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(ioThreads)
+                .setConnectTimeout(timeout)
+                .setSoTimeout(timeout)
+                .build();
+        try {
+            connectionManager = new PoolingNHttpClientConnectionManager(
+                    new DefaultConnectingIOReactor(reactorConfig, daemon("jtoggl-async-io")));
+        } catch (IOReactorException e) {
+            throw new UncheckedIOException(e);
+        }
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+
+        httpClient = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setThreadFactory(daemon("jtoggl-async-reactor"))
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(timeout)
+                        .setSocketTimeout(timeout)
+                        .build())
+                .build();
+        httpClient.start();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(daemon("jtoggl-async-timer"));
+        long period = Math.max(idleTimeout / 2, 1000L);
+        scheduler.scheduleWithFixedDelay(() -> {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * @return the transport shared by all {@link AsyncJToggl} instances without an explicit transport
+     */
+    public static AsyncHttpTransport getDefault() {
+        if (defaultTransport == null) {
+            synchronized (AsyncHttpTransport.class) {
+                if (defaultTransport == null) {
+                    defaultTransport = new AsyncHttpTransport();
+                }
+            }
+        }
+        return defaultTransport;
+    }
+
+    /**
+     * Send the request. The future is completed on an I/O thread once the whole response
+     * has been received, or with the I/O error. Cancelling the future aborts the request.
+     */
+    CompletableFuture<HttpResponse> execute(HttpUriRequest request) {
+        CompletableFuture<HttpResponse> result = new CompletableFuture<>();
+        Future<HttpResponse> pending = httpClient.execute(request, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                result.complete(response);
+            }
+
+            @Override
+            public void failed(Exception e) {
+                result.completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+                result.cancel(false);
+            }
+        });
+        result.whenComplete((response, failure) -> {
+            if (result.isCancelled()) {
+                pending.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Run the task on the timer thread after the delay. The task must not block.
+     */
+    void schedule(Runnable task, long delay, TimeUnit unit) {
+        scheduler.schedule(task, delay, unit);
+    }
+
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public int getMaxConnections() {
+        return connectionManager.getMaxTotal();
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return connectionManager.getDefaultMaxPerRoute();
+    }
+
+    /**
+     * @return number of connections currently kept open, leased or idle
+     */
+    public int getOpenConnections() {
+        return connectionManager.getTotalStats().getLeased() + connectionManager.getTotalStats().getAvailable();
+    }
+
+    /**
+     * Abort pending requests, close all connections and stop the I/O and timer threads.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package ch.simas.jtoggl;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+import ch.simas.jtoggl.util.DateUtil;
+import io.restassured.http.Method;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+
+/**
+ * Non-blocking variant of {@link JToggl}. Every method returns at once with a
+ * {@link CompletableFuture} that is completed with the same entities, or completed
+ * exceptionally with the same exceptions, as the blocking method.
+ * <p>
+ * Requests are sent on an {@link AsyncHttpTransport} and pass the rate limiter, circuit
+ * breakers and retry policy of the {@link JToggl} instance; no thread waits while a
+ * request is pending. The bulkheads are not used, the connection pool of the transport
+ * bounds the requests in flight and queues the others. Reads bypass the
+ * {@link MetadataCache} and {@link ConditionalCache}, writes invalidate the
+ * {@link MetadataCache} like the blocking calls.
+ * <p>
+ * Futures are completed on the I/O threads of the transport. Dependent stages doing
+ * expensive or blocking work should use the {@code ...Async} variants of
+ * {@link CompletableFuture}.
+ */
+public class AsyncJToggl {
+
+    private final JToggl jToggl;
+    private final AsyncHttpTransport transport;
+
+    /**
+     * @param jToggl the client whose settings and resilience policies to use
+     */
+    public AsyncJToggl(JToggl jToggl) {
+        this(jToggl, AsyncHttpTransport.getDefault());
+    }
+
+    /**
+     * @param jToggl the client whose settings and resilience policies to use
+     * @param transport the transport to send requests with, not closed by this instance
+     */
+    public AsyncJToggl(JToggl jToggl, AsyncHttpTransport transport) {
+        this.jToggl = jToggl;
+        this.transport = transport;
+    }
+
+    public JToggl getJToggl() {
+        return jToggl;
+    }
+
+    public AsyncHttpTransport getTransport() {
+        return transport;
+    }
+
+    public CompletableFuture<List<TimeEntry>> getTimeEntries() {
+        return getTimeEntries(null, null);
+    }
+
+    public CompletableFuture<List<TimeEntry>> getTimeEntries(OffsetDateTime startDate, OffsetDateTime endDate) {
+        String url = jToggl.apiUrl(JToggl.TIME_ENTRIES);
+        if (startDate != null && endDate != null) {
+            url += "?start_date=" + encode(DateUtil.convertDateToString(startDate))
+                    + "&end_date=" + encode(DateUtil.convertDateToString(endDate));
+        }
+        return get(url).thenApply(response -> jToggl.decodeList(response, TimeEntry::new, TimeEntry.class));
+    }
+
+    public CompletableFuture<TimeEntry> getTimeEntry(Long id) {
+        return get(byId(JToggl.TIME_ENTRY_BY_ID, id)).thenApply(response -> data(response, TimeEntry::new));
+    }
+
+    public CompletableFuture<TimeEntry> getCurrentTimeEntry() {
+        return get(jToggl.apiUrl(JToggl.TIME_ENTRY_CURRENT)).thenApply(response -> data(response, TimeEntry::new));
+    }
+
+    public CompletableFuture<TimeEntry> createTimeEntry(TimeEntry timeEntry) {
+        return send(Method.POST, jToggl.apiUrl(JToggl.TIME_ENTRIES), jToggl.createTimeEntryRequestParameter(timeEntry))
+                .thenApply(response -> data(response, TimeEntry::new));
+    }
+
+    public CompletableFuture<TimeEntry> startTimeEntry(TimeEntry timeEntry) {
+        return send(Method.POST, jToggl.apiUrl(JToggl.TIME_ENTRY_START), jToggl.createTimeEntryRequestParameter(timeEntry))
+                .thenApply(response -> data(response, TimeEntry::new));
+    }
+
+    public CompletableFuture<TimeEntry> stopTimeEntry(TimeEntry timeEntry) {
+        return send(Method.PUT, byId(JToggl.TIME_ENTRY_STOP, timeEntry.getId()),
+                jToggl.createTimeEntryRequestParameter(timeEntry)).thenApply(response -> data(response, TimeEntry::new));
+    }
+
+    public CompletableFuture<TimeEntry> updateTimeEntry(TimeEntry timeEntry) {
+        return send(Method.PUT, byId(JToggl.TIME_ENTRY_BY_ID, timeEntry.getId()),
+                jToggl.createTimeEntryRequestParameter(timeEntry)).thenApply(response -> data(response, TimeEntry::new));
+    }
+
+    public CompletableFuture<Void> destroyTimeEntry(Long id) {
+        return send(Method.DELETE, byId(JToggl.TIME_ENTRY_BY_ID, id), null).thenApply(response -> null);
+    }
+
+    /**
+     * Create many time entries, sending up to {@link JToggl#getParallelism()} requests at a time.
+     *
+     * @param timeEntries time entries to create
+     * @return one result per time entry, in the order of the collection
+     */
+    public CompletableFuture<List<BulkResult<TimeEntry, TimeEntry>>> createTimeEntries(Collection<TimeEntry> timeEntries) {
+        return bulk(timeEntries, this::createTimeEntry);
+    }
+
+    /**
+     * Update many time entries, sending up to {@link JToggl#getParallelism()} requests at a time.
+     *
+     * @param timeEntries time entries to update
+     * @return one result per time entry, in the order of the collection
+     */
+    public CompletableFuture<List<BulkResult<TimeEntry, TimeEntry>>> updateTimeEntries(Collection<TimeEntry> timeEntries) {
+        return bulk(timeEntries, this::updateTimeEntry);
+    }
+
+    /**
+     * Destroy many time entries, sending up to {@link JToggl#getParallelism()} requests at a time.
+     *
+     * @param ids ids of the time entries to destroy
+     * @return one result per id, in the order of the collection
+     */
+    public CompletableFuture<List<BulkResult<Long, Void>>> destroyTimeEntries(Collection<Long> ids) {
+        return bulk(ids, this::destroyTimeEntry);
+    }
+
+    public CompletableFuture<LinkedHashMap<Long, Workspace>> getWorkspaces() {
+        return get(jToggl.apiUrl(JToggl.WORKSPACES)).thenApply(response -> {
+            LinkedHashMap<Long, Workspace> workspaces = new LinkedHashMap<>();
+            for (Workspace workspace : jToggl.decodeList(response, Workspace::new, Workspace.class)) {
+                workspaces.put(workspace.getId(), workspace);
+            }
+            return workspaces;
+        });
+    }
+
+    public CompletableFuture<HashMap<Long, Client>> getClients() {
+        return get(jToggl.apiUrl(JToggl.CLIENTS)).thenApply(response -> {
+            HashMap<Long, Client> clients = new HashMap<>();
+            for (Client client : jToggl.decodeList(response, Client::new, Client.class)) {
+                clients.put(client.getId(), client);
+            }
+            return clients;
+        });
+    }
+
+    public CompletableFuture<Client> createClient(Client client) {
+        return send(Method.POST, jToggl.apiUrl(JToggl.CLIENTS), jToggl.createClientRequestParameter(client))
+                .thenApply(response -> invalidated(MetadataCache.Region.CLIENTS, data(response, Client::new)));
+    }
+
+    public CompletableFuture<Client> updateClient(Client client) {
+        return send(Method.PUT, byId(JToggl.CLIENT_BY_ID, client.getId()), jToggl.createClientRequestParameter(client))
+                .thenApply(response -> invalidated(MetadataCache.Region.CLIENTS, data(response, Client::new)));
+    }
+
+    public CompletableFuture<Void> destroyClient(Long id) {
+        return send(Method.DELETE, byId(JToggl.CLIENT_BY_ID, id), null)
+                .thenApply(response -> invalidated(MetadataCache.Region.CLIENTS, null));
+    }
+
+    /**
+     * Get projects of all workspaces, requesting the workspaces concurrently.
+     *
+     * @return projects of all workspaces, completed exceptionally if a workspace fails
+     */
+    public CompletableFuture<HashMap<Long, Project>> getProjects() {
+        return getWorkspaces().thenCompose(workspaces -> perWorkspace(workspaces, this::getWorkspaceProjects)
+                .thenApply(workspaceProjects -> {
+                    HashMap<Long, Project> projects = new HashMap<>();
+                    for (Map.Entry<Long, List<Project>> entry : workspaceProjects.entrySet()) {
+                        for (Project project : entry.getValue()) {
+                            project.setWorkspace(workspaces.get(entry.getKey()));
+                            projects.put(project.getId(), project);
+                        }
+                    }
+                    return projects;
+                }));
+    }
+
+    public CompletableFuture<Project> createProject(Project project) {
+        return send(Method.POST, jToggl.apiUrl(JToggl.PROJECTS), jToggl.createProjectRequestParameter(project))
+                .thenApply(response -> invalidated(MetadataCache.Region.PROJECTS, data(response, Project::new)));
+    }
+
+    public CompletableFuture<Project> updateProject(Project project) {
+        return send(Method.PUT, byId(JToggl.PROJECT_BY_ID, project.getId()), jToggl.createProjectRequestParameter(project))
+                .thenApply(response -> invalidated(MetadataCache.Region.PROJECTS, data(response, Project::new)));
+    }
+
+    public CompletableFuture<Void> destroyProject(Long id) {
+        return send(Method.DELETE, byId(JToggl.PROJECT_BY_ID, id), null)
+                .thenApply(response -> invalidated(MetadataCache.Region.PROJECTS, null));
+    }
+
+    public CompletableFuture<ProjectUser> createProjectUser(ProjectUser projectUser) {
+        return send(Method.POST, jToggl.apiUrl(JToggl.PROJECT_USERS), jToggl.createProjectUserRequestParameter(projectUser))
+                .thenApply(response -> data(response, ProjectUser::new));
+    }
+
+    /**
+     * Get active tasks of all workspaces, requesting the workspaces concurrently.
+     *
+     * @return tasks of all workspaces, completed exceptionally if a workspace fails
+     */
+    public CompletableFuture<HashMap<Long, Task>> getTasks() {
+        return getWorkspaces().thenCompose(workspaces -> perWorkspace(workspaces, this::getActiveWorkspaceTasks))
+                .thenApply(workspaceTasks -> {
+                    HashMap<Long, Task> tasks = new HashMap<>();
+                    for (List<Task> list : workspaceTasks.values()) {
+                        for (Task task : list) {
+                            tasks.put(task.getId(), task);
+                        }
+                    }
+                    return tasks;
+                });
+    }
+
+    public CompletableFuture<Task> createTask(Task task) {
+        return send(Method.POST, jToggl.apiUrl(JToggl.TASKS), jToggl.createTaskRequestParameter(task))
+                .thenApply(response -> invalidated(MetadataCache.Region.TASKS, data(response, Task::new)));
+    }
+
+    public CompletableFuture<Task> updateTask(Task task) {
+        return send(Method.PUT, byId(JToggl.TASK_BY_ID, task.getId()), jToggl.createTaskRequestParameter(task))
+                .thenApply(response -> invalidated(MetadataCache.Region.TASKS, data(response, Task::new)));
+    }
+
+    public CompletableFuture<Void> destroyTask(Long id) {
+        return send(Method.DELETE, byId(JToggl.TASK_BY_ID, id), null)
+                .thenApply(response -> invalidated(MetadataCache.Region.TASKS, null));
+    }
+
+    public CompletableFuture<User> getCurrentUser() {
+        return get(jToggl.apiUrl(JToggl.GET_CURRENT_USER)).thenApply(response -> data(response, User::new));
+    }
+
+    public CompletableFuture<List<User>> getWorkspaceUsers(long workspaceId) {
+        return get(byId(JToggl.WORKSPACE_USERS, workspaceId))
+                .thenApply(response -> jToggl.decodeList(response, User::new, User.class));
+    }
+
+    public CompletableFuture<List<Project>> getWorkspaceProjects(long workspaceId) {
+        return get(byId(JToggl.WORKSPACE_PROJECTS, workspaceId))
+                .thenApply(response -> jToggl.decodeList(response, Project::new, Project.class));
+    }
+
+    public CompletableFuture<List<Client>> getWorkspaceClients(long workspaceId) {
+        return get(byId(JToggl.WORKSPACE_CLIENTS, workspaceId))
+                .thenApply(response -> jToggl.decodeList(response, Client::new, Client.class));
+    }
+
+    public CompletableFuture<List<Task>> getActiveWorkspaceTasks(long workspaceId) {
+        return get(byId(JToggl.WORKSPACE_TASKS, workspaceId))
+                .thenApply(response -> jToggl.decodeList(response, Task::new, Task.class));
+    }
+
+    /**
+     * All users in all workspaces, requesting the workspaces concurrently.
+     *
+     * @return users of all workspaces, completed exceptionally if a workspace fails
+     */
+    public CompletableFuture<List<User>> getUsers() {
+        return getWorkspaces().thenCompose(workspaces -> perWorkspace(workspaces, this::getWorkspaceUsers))
+                .thenApply(workspaceUsers -> {
+                    HashSet<User> users = new HashSet<>();
+                    for (List<User> list : workspaceUsers.values()) {
+                        users.addAll(list);
+                    }
+                    return new ArrayList<>(users);
+                });
+    }
+
+    public CompletableFuture<PagedResult> getDetailedReport(PagedReportsParameter parameters) {
+        return get(jToggl.detailedReportUrl(parameters, parameters.getPage())).thenApply(jToggl::decodeDetailedReport);
+    }
+
+    public CompletableFuture<SummaryReport> getSummaryReport(ReportsParameter parameters) {
+        return get(jToggl.summaryReportUrl(parameters)).thenApply(jToggl::decodeSummaryReport);
+    }
+
+    public CompletableFuture<WeeklyReport> getWeeklyReport(ReportsParameter parameters) {
+        return get(jToggl.weeklyReportUrl(parameters)).thenApply(jToggl::decodeWeeklyReport);
+    }
+
+    private CompletableFuture<String> get(String url) {
+        return send(Method.GET, url, null);
+    }
+
+    private CompletableFuture<String> send(Method method, String url, JSONObject body) {
+        return jToggl.executeAsync(transport, method, url, body);
+    }
+
+    private String byId(String path, Object id) {
+        return jToggl.apiUrl(path.replace(JToggl.PLACEHOLDER, String.valueOf(id)));
+    }
+
+    private <T> T invalidated(MetadataCache.Region region, T result) {
+        jToggl.invalidate(region);
+        return result;
+    }
+
+    private static <T> T data(String response, Function<JSONObject, T> factory) {
+        JSONObject object = (JSONObject) JSONValue.parse(response);
+        JSONObject data = (JSONObject) object.get(JToggl.DATA);
+        return data == null ? null : factory.apply(data);
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            // every Java platform has to support UTF-8
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <V> CompletableFuture<Map<Long, V>> perWorkspace(Map<Long, Workspace> workspaces,
+            Function<Long, CompletableFuture<V>> request) {
+        Map<Long, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        for (Long workspaceId : workspaces.keySet()) {
+            futures.put(workspaceId, request.apply(workspaceId));
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            Map<Long, V> result = new LinkedHashMap<>();
+            for (Map.Entry<Long, CompletableFuture<V>> entry : futures.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().join());
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Send one request per item on {@link JToggl#getParallelism()} lanes; a lane sends its
+     * next item when the previous one completes. A failing item does not stop the others.
+     */
+    private <I, T> CompletableFuture<List<BulkResult<I, T>>> bulk(Collection<I> items,
+            Function<I, CompletableFuture<T>> request) {
+        Bulk<I, T> bulk = new Bulk<>(new ArrayList<>(items), request);
+        int lanes = Math.max(1, Math.min(jToggl.getParallelism(), bulk.items.size()));
+        for (int i = 0; i < lanes; i++) {
+            bulk.next();
+        }
+        return bulk.done;
+    }
+
+    private static class Bulk<I, T> {
+
+        private final List<I> items;
+        private final Function<I, CompletableFuture<T>> request;
+        private final AtomicReferenceArray<BulkResult<I, T>> results;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final CompletableFuture<List<BulkResult<I, T>>> done = new CompletableFuture<>();
+
+        Bulk(List<I> items, Function<I, CompletableFuture<T>> request) {
+            this.items = items;
+            this.request = request;
+            this.results = new AtomicReferenceArray<>(items.size());
+            this.remaining = new AtomicInteger(items.size());
+            if (items.isEmpty()) {
+                done.complete(new ArrayList<>());
+            }
+        }
+
+        /**
+         * Send items until one is still pending, which continues the lane when it completes.
+         * Looping instead of recursing keeps the stack flat when requests fail at once.
+         */
+        void next() {
+            for (int position = next.getAndIncrement(); position < items.size(); position = next.getAndIncrement()) {
+                I item = items.get(position);
+                CompletableFuture<T> call;
+                try {
+                    call = request.apply(item);
+                } catch (RuntimeException e) {
+                    call = new CompletableFuture<>();
+                    call.completeExceptionally(e);
+                }
+                int current = position;
+                if (!call.isDone()) {
+                    call.whenComplete((result, failure) -> {
+                        completed(current, item, result, failure);
+                        next();
+                    });
+                    return;
+                }
+                call.whenComplete((result, failure) -> completed(current, item, result, failure));
+            }
+        }
+
+        private void completed(int position, I item, T result, Throwable failure) {
+            results.set(position, failure == null
+                    ? new BulkResult<>(item, result, BulkResult.Status.SUCCESS, null)
+                    : BulkResult.failed(item, unwrap(failure)));
+            if (remaining.decrementAndGet() == 0) {
+                List<BulkResult<I, T>> list = new ArrayList<>(items.size());
+                for (int i = 0; i < items.size(); i++) {
+                    list.add(results.get(i));
+                }
+                done.complete(list);
+            }
+        }
+
+        private static RuntimeException unwrap(Throwable failure) {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause() : failure;
+            return cause instanceof RuntimeException ? (RuntimeException) cause
+                    : new TogglException(String.valueOf(cause.getMessage()), cause);
+        }
+    }
+}
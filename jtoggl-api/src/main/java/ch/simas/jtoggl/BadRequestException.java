@@ -0,0 +1,13 @@
+package ch.simas.jtoggl;
+
+/**
+ * Thrown when Toggl rejected the request as invalid (status 400).
+ */
+public class BadRequestException extends TogglException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BadRequestException(String message) {
+        super(message, 400, -1);
+    }
+}
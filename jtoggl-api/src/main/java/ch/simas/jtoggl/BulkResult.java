@@ -0,0 +1,77 @@
+package ch.simas.jtoggl;
+
+/**
+ * Outcome of one item of a bulk operation like {@link JToggl#createTimeEntries}.
+ *
+ * @param <I> type of the submitted item
+ * @param <T> type of the result of a successful request
+ */
+public class BulkResult<I, T> {
+
+    public enum Status {
+        /** the request succeeded */
+        SUCCESS,
+        /** Toggl rejected the item or the request failed for another reason */
+        FAILED,
+        /** Toggl failed to process the item and the request was not repeated, e.g. a POST */
+        SERVER_ERROR,
+        /** the request failed with a transient error as often as the retry policy allows */
+        RETRY_EXHAUSTED
+    }
+
+    private final I item;
+    private final T result;
+    private final Status status;
+    private final RuntimeException exception;
+
+    BulkResult(I item, T result, Status status, RuntimeException exception) {
+        this.item = item;
+        this.result = result;
+        this.status = status;
+        this.exception = exception;
+    }
+
+    static <I, T> BulkResult<I, T> failed(I item, RuntimeException exception) {
+        Status status = Status.FAILED;
+        if (exception instanceof TogglException && ((TogglException) exception).isRetriesExhausted()) {
+            status = Status.RETRY_EXHAUSTED;
+        } else if (exception instanceof ServerErrorException) {
+            status = Status.SERVER_ERROR;
+        }
+        return new BulkResult<>(item, null, status, exception);
+    }
+
+    /**
+     * @return the submitted item
+     */
+    public I getItem() {
+        return item;
+    }
+
+    /**
+     * @return the entity returned by Toggl, null if the request failed
+     */
+    public T getResult() {
+        return result;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return why the request failed, null on success
+     */
+    public RuntimeException getException() {
+        return exception;
+    }
+
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkResult{" + "item=" + item + ", status=" + status + ", exception=" + exception + '}';
+    }
+}
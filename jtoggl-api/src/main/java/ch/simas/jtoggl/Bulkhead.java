@@ -0,0 +1,71 @@
+package ch.simas.jtoggl;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of concurrent calls to an endpoint, so that one kind of traffic,
+ * e.g. large reports, cannot occupy every thread and connection.
+ */
+public class Bulkhead {
+
+    private final int maxConcurrentCalls;
+    private final long maxWait;
+    private final Semaphore permits;
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param maxConcurrentCalls maximum number of calls in flight
+     * @param maxWait how long a call waits for a free slot before it is rejected
+     * @param unit unit of the wait
+     */
+    public Bulkhead(int maxConcurrentCalls, long maxWait, TimeUnit unit) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWait = unit.toNanos(maxWait);
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+    }
+
+    /**
+     * Wait up to the maximum wait for a free slot.
+     *
+     * @return true if the call may proceed, it must then call {@link #release()}
+     */
+    public boolean tryAcquire() {
+        try {
+            if (permits.tryAcquire(maxWait, TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public long getMaxWait(TimeUnit unit) {
+        return unit.convert(maxWait, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return number of free slots
+     */
+    public int getAvailableCalls() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * @return number of calls rejected so far
+     */
+    public long getRejectedCalls() {
+        return rejected.get();
+    }
+}
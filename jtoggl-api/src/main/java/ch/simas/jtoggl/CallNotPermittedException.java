@@ -0,0 +1,14 @@
+package ch.simas.jtoggl;
+
+/**
+ * Thrown without sending a request when the circuit breaker of the endpoint is open
+ * or its bulkhead has no free slot.
+ */
+public class CallNotPermittedException extends TogglException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CallNotPermittedException(String message) {
+        super(message, 0, -1);
+    }
+}
@@ -0,0 +1,211 @@
+package ch.simas.jtoggl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops calls to an endpoint that keeps failing or answering slowly, so callers fail
+ * fast instead of waiting for the socket timeout.
+ * <p>
+ * The outcomes of the last calls are kept in a sliding window. Once the window holds
+ * the minimum number of calls and the rate of failed or of slow calls reaches its
+ * threshold, the breaker opens and rejects all calls. After the open duration it lets
+ * a few probe calls pass: if all of them succeed in time the breaker closes again,
+ * otherwise it opens for another period.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    public static final int DEFAULT_WINDOW_SIZE = 20;
+    public static final int DEFAULT_MINIMUM_CALLS = 10;
+    public static final int DEFAULT_FAILURE_RATE_THRESHOLD = 50;
+    public static final int DEFAULT_SLOW_CALL_RATE_THRESHOLD = 80;
+    public static final long DEFAULT_SLOW_CALL_DURATION = TimeUnit.SECONDS.toNanos(5);
+    public static final long DEFAULT_OPEN_DURATION = TimeUnit.SECONDS.toNanos(30);
+    public static final int DEFAULT_HALF_OPEN_CALLS = 3;
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final byte[] window;
+    private int minimumCalls = DEFAULT_MINIMUM_CALLS;
+    private int failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+    private int slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+    private long slowCallDuration = DEFAULT_SLOW_CALL_DURATION;
+    private long openDuration = DEFAULT_OPEN_DURATION;
+    private int halfOpenCalls = DEFAULT_HALF_OPEN_CALLS;
+
+    private State state = State.CLOSED;
+    private int next;
+    private int calls;
+    private int failedCalls;
+    private int slowCalls;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+    private long notPermittedCalls;
+
+    public CircuitBreaker() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param windowSize number of recent calls the rates are computed from
+     */
+    public CircuitBreaker(int windowSize) {
+        this.window = new byte[windowSize];
+    }
+
+    /**
+     * @param minimumCalls calls needed in the window before the rates are evaluated
+     * @return this breaker
+     */
+    public synchronized CircuitBreaker setMinimumCalls(int minimumCalls) {
+        this.minimumCalls = Math.min(minimumCalls, window.length);
+        return this;
+    }
+
+    /**
+     * @param percent failure rate in percent that opens the breaker
+     * @return this breaker
+     */
+    public synchronized CircuitBreaker setFailureRateThreshold(int percent) {
+        this.failureRateThreshold = percent;
+        return this;
+    }
+
+    /**
+     * @param percent rate of slow calls in percent that opens the breaker
+     * @param duration duration from which on a call counts as slow
+     * @param unit unit of the duration
+     * @return this breaker
+     */
+    public synchronized CircuitBreaker setSlowCallThreshold(int percent, long duration, TimeUnit unit) {
+        this.slowCallRateThreshold = percent;
+        this.slowCallDuration = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * @param duration how long the breaker rejects calls before probing
+     * @param unit unit of the duration
+     * @return this breaker
+     */
+    public synchronized CircuitBreaker setOpenDuration(long duration, TimeUnit unit) {
+        this.openDuration = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * @param halfOpenCalls number of probe calls let through after the open duration
+     * @return this breaker
+     */
+    public synchronized CircuitBreaker setHalfOpenCalls(int halfOpenCalls) {
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        return this;
+    }
+
+    /**
+     * Ask whether a call may be sent. Every permitted call must report its outcome
+     * with {@link #onResult(long, boolean)}.
+     *
+     * @return false if the call is to be rejected
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openDuration) {
+                notPermittedCalls++;
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesStarted = 0;
+            probesSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesStarted >= halfOpenCalls) {
+                notPermittedCalls++;
+                return false;
+            }
+            probesStarted++;
+        }
+        return true;
+    }
+
+    /**
+     * Record the outcome of a permitted call.
+     *
+     * @param duration duration of the call in nanoseconds
+     * @param failed true if the endpoint failed, i.e. a server error or no response
+     */
+    public synchronized void onResult(long duration, boolean failed) {
+        boolean slow = duration >= slowCallDuration;
+        if (state == State.HALF_OPEN) {
+            if (failed || slow) {
+                open();
+            } else if (++probesSucceeded >= halfOpenCalls) {
+                close();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // call started before the breaker opened
+            return;
+        }
+        if (calls == window.length) {
+            byte evicted = window[next];
+            failedCalls -= evicted & FAILED;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            calls++;
+        }
+        window[next] = (byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0));
+        failedCalls += failed ? 1 : 0;
+        slowCalls += slow ? 1 : 0;
+        next = (next + 1) % window.length;
+
+        if (calls >= minimumCalls
+                && (failedCalls * 100 >= failureRateThreshold * calls || slowCalls * 100 >= slowCallRateThreshold * calls)) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        calls = 0;
+        failedCalls = 0;
+        slowCalls = 0;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return failure rate of the calls in the window in percent
+     */
+    public synchronized float getFailureRate() {
+        return calls == 0 ? 0 : failedCalls * 100f / calls;
+    }
+
+    /**
+     * @return rate of slow calls in the window in percent
+     */
+    public synchronized float getSlowCallRate() {
+        return calls == 0 ? 0 : slowCalls * 100f / calls;
+    }
+
+    /**
+     * @return number of calls rejected so far
+     */
+    public synchronized long getNotPermittedCalls() {
+        return notPermittedCalls;
+    }
+}
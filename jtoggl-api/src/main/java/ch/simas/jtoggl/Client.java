@@ -38,7 +38,10 @@ public class Client {
     }
 
     public Client(String jsonString) {
-        JSONObject object = (JSONObject) JSONValue.parse(jsonString);
+        this((JSONObject) JSONValue.parse(jsonString));
+    }
+
+    public Client(JSONObject object) {
         this.id = (Long) object.get("id");
         this.name = (String) object.get("name");
         Object hrate = object.get("hrate");
@@ -50,7 +53,7 @@ public class Client {
 
         JSONObject workspaceObject = (JSONObject) object.get("workspace");
         if (workspaceObject != null) {
-            this.workspace = new Workspace(workspaceObject.toJSONString());
+            this.workspace = new Workspace(workspaceObject);
         }
     }
 
@@ -0,0 +1,118 @@
+package ch.simas.jtoggl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parsed responses of reference data requests with their {@code ETag} and
+ * {@code Last-Modified} validators. When a cached URL is requested again the
+ * validators are sent along; if the server answers 304 Not Modified the cached
+ * value is used without transferring or parsing the body again. Values are shared
+ * by all callers and never modified, {@link JToggl} builds new entities from them
+ * for every call.
+ * <p>
+ * Unlike the {@link MetadataCache} every lookup still costs a request, but entries
+ * never go stale. Both can be combined: the conditional request is only sent once
+ * the metadata cache entry has expired. The least recently used entry is evicted
+ * once the maximum number of entries is reached.
+ */
+public class ConditionalCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+    private final int maximumSize;
+    private final LinkedHashMap<String, Entry> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ConditionalCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * @param maximumSize maximum number of cached responses
+     */
+    public ConditionalCache(int maximumSize) {
+        this.maximumSize = maximumSize;
+        this.entries = new LinkedHashMap<String, ConditionalCache.Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ConditionalCache.Entry> eldest) {
+                if (size() > ConditionalCache.this.maximumSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    synchronized Entry get(String url) {
+        return entries.get(url);
+    }
+
+    /**
+     * Cache a parsed response, unless the server sent no validators for it.
+     * The value must not be modified afterwards.
+     */
+    synchronized void put(String url, String etag, String lastModified, Object value) {
+        misses++;
+        if (etag != null || lastModified != null) {
+            entries.put(url, new Entry(etag, lastModified, value));
+        } else {
+            entries.remove(url);
+        }
+    }
+
+    synchronized void notModified() {
+        hits++;
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return snapshot of the counters, hits are 304 responses and misses full responses
+     */
+    public synchronized MetadataCache.Stats getStats() {
+        return new MetadataCache.Stats(hits, misses, evictions);
+    }
+
+    static class Entry {
+
+        private final String etag;
+        private final String lastModified;
+        private final Object value;
+
+        Entry(String etag, String lastModified, Object value) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.value = value;
+        }
+
+        String getEtag() {
+            return etag;
+        }
+
+        String getLastModified() {
+            return lastModified;
+        }
+
+        Object getValue() {
+            return value;
+        }
+    }
+}
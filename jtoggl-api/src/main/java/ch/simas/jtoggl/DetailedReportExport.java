@@ -0,0 +1,175 @@
+package ch.simas.jtoggl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Copies the raw pages of a detailed report to a channel, one page per line.
+ * <p>
+ * Bodies pass through one direct buffer and are never decoded into characters. The
+ * total count and page size needed to find the last page are picked out of the bytes
+ * while they are copied.
+ */
+class DetailedReportExport {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JToggl jToggl;
+    private final PagedReportsParameter parameters;
+    private final WritableByteChannel target;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    DetailedReportExport(JToggl jToggl, PagedReportsParameter parameters, WritableByteChannel target) {
+        this.jToggl = jToggl;
+        this.parameters = parameters;
+        this.target = target;
+    }
+
+    /**
+     * @return number of bytes written
+     */
+    long run() {
+        long written = 0;
+        for (int page = parameters.getPage(); ; page++) {
+            NumberField totalCount = new NumberField("total_count");
+            NumberField perPage = new NumberField("per_page");
+            written += jToggl.fetchRaw(jToggl.detailedReportUrl(parameters, page),
+                    body -> copy(body, totalCount, perPage));
+            // through Buffer, as ByteBuffer only overrides clear() and flip() since Java 9
+            ((Buffer) buffer).clear();
+            ((Buffer) buffer.put((byte) '\n')).flip();
+            written += write();
+            if (isLastPage(totalCount.getValue(), perPage.getValue(), page)) {
+                return written;
+            }
+        }
+    }
+
+    static boolean isLastPage(Long totalCount, Long perPage, int page) {
+        return totalCount == null || perPage == null || perPage <= 0 || (long) page * perPage >= totalCount;
+    }
+
+    private long copy(InputStream body, NumberField... fields) {
+        ReadableByteChannel source = Channels.newChannel(body);
+        long copied = 0;
+        while (true) {
+            ((Buffer) buffer).clear();
+            int read;
+            try {
+                read = source.read(buffer);
+            } catch (IOException e) {
+                throw new TogglException("reading report page failed", e);
+            }
+            if (read < 0) {
+                return copied;
+            }
+            ((Buffer) buffer).flip();
+            for (NumberField field : fields) {
+                field.scan(buffer);
+            }
+            copied += write();
+        }
+    }
+
+    private int write() {
+        int written = 0;
+        try {
+            while (buffer.hasRemaining()) {
+                written += target.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return written;
+    }
+
+    /**
+     * Finds the integer value of a key in JSON bytes. Keys in string values cannot
+     * match, as their quotes are escaped and a string value is never followed by a colon.
+     */
+    static class NumberField {
+
+        private static final int KEY = 0;
+        private static final int COLON = 1;
+        private static final int VALUE = 2;
+        private static final int DONE = 3;
+
+        private final byte[] key;
+        private int state = KEY;
+        private int matched;
+        private long value;
+        private boolean digits;
+
+        NumberField(String name) {
+            this.key = ('"' + name + '"').getBytes(StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Scan the remaining bytes of the buffer without moving its position.
+         */
+        void scan(ByteBuffer bytes) {
+            for (int i = bytes.position(); i < bytes.limit() && state != DONE; i++) {
+                accept(bytes.get(i));
+            }
+        }
+
+        private void accept(byte b) {
+            switch (state) {
+                case KEY:
+                    if (b == key[matched]) {
+                        if (++matched == key.length) {
+                            state = COLON;
+                        }
+                    } else {
+                        matched = b == key[0] ? 1 : 0;
+                    }
+                    break;
+                case COLON:
+                    if (b == ':') {
+                        state = VALUE;
+                    } else if (!isWhitespace(b)) {
+                        reset(b);
+                    }
+                    break;
+                case VALUE:
+                    if (b >= '0' && b <= '9') {
+                        value = value * 10 + (b - '0');
+                        digits = true;
+                    } else if (digits) {
+                        state = DONE;
+                    } else if (!isWhitespace(b)) {
+                        // e.g. null, keep looking in case the key appears again
+                        reset(b);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void reset(byte b) {
+            state = KEY;
+            value = 0;
+            digits = false;
+            matched = b == key[0] ? 1 : 0;
+        }
+
+        private static boolean isWhitespace(byte b) {
+            return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+        }
+
+        /**
+         * @return the value, null if the key was not found or not followed by a number
+         */
+        Long getValue() {
+            return digits ? value : null;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ch.simas.jtoggl;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Iterates over all entries of a detailed report, fetching the next page only
+ * when the current one is exhausted.
+ * <p>
+ * With a prefetch window of k, the following k pages are requested concurrently
+ * on the executor of {@link JToggl} once the first page has told the total number
+ * of pages. Entries are still returned in page order and at most k + 1 pages are
+ * held in memory.
+ */
+class DetailedReportIterator implements Iterator<TimeEntry>, AutoCloseable {
+
+    private final JToggl jToggl;
+    private final PagedReportsParameter parameters;
+    private final int prefetch;
+    private final Deque<Future<PagedResult>> prefetched = new ArrayDeque<>();
+    private int nextPage;
+    private int nextPrefetchPage;
+    private boolean lastPage;
+    private Iterator<TimeEntry> current = Collections.emptyIterator();
+
+    DetailedReportIterator(JToggl jToggl, PagedReportsParameter parameters, int prefetch) {
+        this.jToggl = jToggl;
+        this.parameters = parameters;
+        this.prefetch = prefetch;
+        this.nextPage = parameters.getPage();
+        this.nextPrefetchPage = nextPage;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (lastPage) {
+                return false;
+            }
+            int page = nextPage++;
+            PagedResult result = prefetched.isEmpty() ? jToggl.getDetailedReport(parameters, page) : await(prefetched.poll());
+            lastPage = isLastPage(result, page);
+            if (lastPage) {
+                close();
+            } else {
+                prefetch(result);
+            }
+            current = result.getEntries().iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public TimeEntry next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    /**
+     * Cancel all pages requested in advance.
+     */
+    @Override
+    public void close() {
+        for (Future<PagedResult> future : prefetched) {
+            future.cancel(true);
+        }
+        prefetched.clear();
+    }
+
+    private void prefetch(PagedResult result) {
+        if (prefetch <= 0) {
+            return;
+        }
+        long pages = (result.getTotalCount() + result.getPageSize() - 1) / result.getPageSize();
+        nextPrefetchPage = Math.max(nextPrefetchPage, nextPage);
+        while (prefetched.size() < prefetch && nextPrefetchPage <= pages) {
+            int page = nextPrefetchPage++;
+            prefetched.add(jToggl.getExecutor().submit(() -> jToggl.getDetailedReport(parameters, page)));
+        }
+    }
+
+    private PagedResult await(Future<PagedResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new RuntimeException("interrupted while fetching report page", e);
+        } catch (ExecutionException e) {
+            close();
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    static boolean isLastPage(PagedResult result, int page) {
+        if (result.getEntries().isEmpty() || result.getTotalCount() == null || result.getPageSize() == null) {
+            return true;
+        }
+        return (long) page * result.getPageSize() >= result.getTotalCount();
+    }
+}
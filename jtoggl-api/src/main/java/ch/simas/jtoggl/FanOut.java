@@ -0,0 +1,68 @@
+package ch.simas.jtoggl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Runs one request per key concurrently and collects results and failures by key.
+ * <p>
+ * At most {@code parallelism} requests are submitted to the executor at a time; the
+ * calling thread submits the next one whenever one completes. Worker threads never
+ * wait for each other, so the engine works with any executor, including one
+ * creating a virtual thread per task.
+ */
+class FanOut {
+
+    private FanOut() {
+    }
+
+    static <V> FanOutResult<Map<Long, V>> run(ExecutorService executor, int parallelism, Collection<Long> keys, Function<Long, V> request) {
+        List<Long> pending = new ArrayList<>(keys);
+        Map<Future<V>, Long> running = new LinkedHashMap<>();
+        Map<Long, V> results = new LinkedHashMap<>();
+        Map<Long, RuntimeException> failures = new LinkedHashMap<>();
+        CompletionService<V> completion = new ExecutorCompletionService<>(executor);
+
+        int next = 0;
+        try {
+            while (next < pending.size() || !running.isEmpty()) {
+                while (next < pending.size() && running.size() < Math.max(1, parallelism)) {
+                    Long key = pending.get(next++);
+                    running.put(completion.submit(() -> request.apply(key)), key);
+                }
+                Future<V> done = completion.take();
+                Long key = running.remove(done);
+                try {
+                    results.put(key, done.get());
+                } catch (ExecutionException e) {
+                    failures.put(key, e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause()));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (Future<V> future : running.keySet()) {
+                future.cancel(true);
+            }
+            throw new RuntimeException("interrupted while waiting for workspace requests", e);
+        }
+
+        // keep the order of the keys independent of completion order
+        Map<Long, V> ordered = new LinkedHashMap<>();
+        for (Long key : pending) {
+            if (results.containsKey(key)) {
+                ordered.put(key, results.get(key));
+            }
+        }
+        return new FanOutResult<>(ordered, failures);
+    }
+}
@@ -0,0 +1,73 @@
+package ch.simas.jtoggl;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Merged result of requests issued for several workspaces, together with the
+ * requests that failed.
+ *
+ * @param <T> type of the merged result
+ */
+public class FanOutResult<T> {
+
+    private final T result;
+    private final Map<Long, RuntimeException> failures;
+    private boolean suppressedAdded;
+
+    FanOutResult(T result, Map<Long, RuntimeException> failures) {
+        this.result = result;
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * @return merged result of all successful requests
+     */
+    public T getResult() {
+        return result;
+    }
+
+    /**
+     * @return exceptions of failed requests by workspace id
+     */
+    public Map<Long, RuntimeException> getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return true if no request failed
+     */
+    public boolean isComplete() {
+        return failures.isEmpty();
+    }
+
+    /**
+     * @return the merged result if no request failed
+     * @throws RuntimeException the first failure, with the others added as suppressed exceptions
+     */
+    public T getResultOrThrow() {
+        if (isComplete()) {
+            return result;
+        }
+        throw failure();
+    }
+
+    private synchronized RuntimeException failure() {
+        Iterator<RuntimeException> iterator = failures.values().iterator();
+        RuntimeException first = iterator.next();
+        // only once, so that calling again does not add the others a second time
+        if (!suppressedAdded) {
+            while (iterator.hasNext()) {
+                first.addSuppressed(iterator.next());
+            }
+            suppressedAdded = true;
+        }
+        return first;
+    }
+
+    @Override
+    public String toString() {
+        return "FanOutResult{" + "result=" + result + ", failures=" + failures + '}';
+    }
+}
@@ -0,0 +1,105 @@
+package ch.simas.jtoggl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.OffsetDateTime;
+import java.util.Properties;
+
+import ch.simas.jtoggl.util.DateUtil;
+
+/**
+ * {@link SyncStateStore} keeping one properties file per workspace and user in a directory.
+ * A file is written to a temporary file first and then moved over the previous one, so a
+ * crash while saving leaves the previous state intact.
+ */
+public class FileSyncStateStore implements SyncStateStore {
+
+    private static final String HIGH_WATER_MARK = "highWaterMark";
+    private static final String LAST_RECONCILIATION = "lastReconciliation";
+    private static final String ENTRY = "entry.";
+    private static final String RUNNING = "running";
+
+    private final Path directory;
+
+    /**
+     * @param directory directory of the state files, created on the first save
+     */
+    public FileSyncStateStore(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public SyncState load(long workspaceId, long userId) {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file(workspaceId, userId), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (NoSuchFileException e) {
+            return new SyncState();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        SyncState state = new SyncState();
+        state.setHighWaterMark(parse(properties.getProperty(HIGH_WATER_MARK)));
+        state.setLastReconciliation(parse(properties.getProperty(LAST_RECONCILIATION)));
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(ENTRY)) {
+                String[] value = properties.getProperty(key).split(",");
+                state.put(Long.parseLong(key.substring(ENTRY.length())), Long.parseLong(value[0]),
+                        Long.parseUnsignedLong(value[1], 16), value.length > 2 && RUNNING.equals(value[2]));
+            }
+        }
+        return state;
+    }
+
+    @Override
+    public void save(long workspaceId, long userId, SyncState state) {
+        Properties properties = new Properties();
+        if (state.getHighWaterMark() != null) {
+            properties.setProperty(HIGH_WATER_MARK, DateUtil.convertDateToString(state.getHighWaterMark()));
+        }
+        if (state.getLastReconciliation() != null) {
+            properties.setProperty(LAST_RECONCILIATION, DateUtil.convertDateToString(state.getLastReconciliation()));
+        }
+        for (Long id : state.getIds()) {
+            properties.setProperty(ENTRY + id, state.getStart(id) + "," + Long.toHexString(state.getFingerprint(id))
+                    + (state.isRunning(id) ? "," + RUNNING : ""));
+        }
+
+        Path file = file(workspaceId, userId);
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    properties.store(writer, "time entry sync of workspace " + workspaceId + ", user " + userId);
+                }
+                try {
+                    Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path file(long workspaceId, long userId) {
+        return directory.resolve("time-entries-" + workspaceId + "-" + userId + ".properties");
+    }
+
+    private static OffsetDateTime parse(String value) {
+        return value == null ? null : DateUtil.convertStringToOffsetDate(value);
+    }
+}
@@ -0,0 +1,13 @@
+package ch.simas.jtoggl;
+
+/**
+ * Thrown when Toggl denied access, e.g. because of a wrong api token (status 403).
+ */
+public class ForbiddenException extends TogglException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ForbiddenException(String message) {
+        super(message, 403, -1);
+    }
+}
@@ -0,0 +1,135 @@
+package ch.simas.jtoggl;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import io.restassured.RestAssured;
+import io.restassured.config.DecoderConfig;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import org.apache.http.client.HttpClient;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.params.CoreConnectionPNames;
+
+/**
+ * Long-lived HTTP transport used by {@link JToggl}. All requests share one
+ * HttpClient with a bounded, keep-alive connection pool; connections idle for
+ * longer than the idle timeout are evicted by a background thread.
+ * <p>
+ * Requests accept gzip and deflate encoded responses, which are decoded transparently.
+ * JSON compresses well, so large lists and reports transfer a fraction of their size.
+ * <p>
+ * RestAssured 3 is bound to the HttpClient 4.x {@code AbstractHttpClient} API,
+ * hence the use of {@link DefaultHttpClient} and {@link PoolingClientConnectionManager}.
+ */
+@SuppressWarnings("deprecation")
+public class HttpTransport implements Closeable {
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 20;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 8;
+    public static final long DEFAULT_IDLE_TIMEOUT = 30 * 1000L;
+    public static final int DEFAULT_TIMEOUT = 15 * 1000;
+
+    private static volatile HttpTransport defaultTransport;
+
+    private final PoolingClientConnectionManager connectionManager;
+    private final DefaultHttpClient httpClient;
+    private final RestAssuredConfig config;
+    private final ScheduledExecutorService evictor;
+    private final int timeout;
+
+    public HttpTransport() {
+        this(DEFAULT_MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_IDLE_TIMEOUT, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * @param maxConnections maximum number of pooled connections
+     * @param maxConnectionsPerRoute maximum number of pooled connections per host
+     * @param idleTimeout milliseconds after which an idle connection is closed
+     * @param timeout connect and socket timeout in milliseconds
+     */
+    public HttpTransport(int maxConnections, int maxConnectionsPerRoute, long idleTimeout, int timeout) {
+        this.timeout = timeout;
+        connectionManager = new PoolingClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+
+        httpClient = new DefaultHttpClient(connectionManager);
+        httpClient.getParams()
+                .setIntParameter(CoreConnectionPNames.CONNECTION_TIMEOUT, timeout)
+                .setIntParameter(CoreConnectionPNames.SO_TIMEOUT, timeout);
+
+        config = RestAssured.config()
+                .httpClient(HttpClientConfig.httpClientConfig()
+                        .setParam(CoreConnectionPNames.CONNECTION_TIMEOUT, timeout)
+                        .setParam(CoreConnectionPNames.SO_TIMEOUT, timeout)
+                        .httpClientFactory(() -> httpClient)
+                        .reuseHttpClientInstance())
+                .decoderConfig(DecoderConfig.decoderConfig()
+                        .contentDecoders(DecoderConfig.ContentDecoder.GZIP, DecoderConfig.ContentDecoder.DEFLATE));
+
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "jtoggl-connection-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(idleTimeout / 2, 1000L);
+        evictor.scheduleWithFixedDelay(() -> {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the transport shared by all {@link JToggl} instances without an explicit transport
+     */
+    public static HttpTransport getDefault() {
+        if (defaultTransport == null) {
+            synchronized (HttpTransport.class) {
+                if (defaultTransport == null) {
+                    defaultTransport = new HttpTransport();
+                }
+            }
+        }
+        return defaultTransport;
+    }
+
+    RestAssuredConfig getConfig() {
+        return config;
+    }
+
+    HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public int getMaxConnections() {
+        return connectionManager.getMaxTotal();
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return connectionManager.getDefaultMaxPerRoute();
+    }
+
+    /**
+     * @return number of connections currently kept open, leased or idle
+     */
+    public int getOpenConnections() {
+        return connectionManager.getTotalStats().getLeased() + connectionManager.getTotalStats().getAvailable();
+    }
+
+    /**
+     * Close all pooled connections and stop the eviction thread.
+     */
+    @Override
+    public void close() {
+        evictor.shutdownNow();
+        connectionManager.shutdown();
+    }
+}
@@ -0,0 +1,207 @@
+package ch.simas.jtoggl;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import ch.simas.jtoggl.util.LatencyHistogram;
+
+/**
+ * {@link MetricsRecorder} keeping counters and latency histograms in memory,
+ * e.g. to log them periodically or to expose them through a status page.
+ */
+public class InMemoryMetrics implements MetricsRecorder {
+
+    private final ConcurrentHashMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyHistogram> decodeTimes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> decodedEntities = new ConcurrentHashMap<>();
+    private final Map<MetadataCache.Region, LongAdder> cacheHits = new EnumMap<>(MetadataCache.Region.class);
+    private final Map<MetadataCache.Region, LongAdder> cacheMisses = new EnumMap<>(MetadataCache.Region.class);
+    private final LatencyHistogram throttleWait = new LatencyHistogram();
+    private final LongAdder retries = new LongAdder();
+
+    public InMemoryMetrics() {
+        for (MetadataCache.Region region : MetadataCache.Region.values()) {
+            cacheHits.put(region, new LongAdder());
+            cacheMisses.put(region, new LongAdder());
+        }
+    }
+
+    @Override
+    public void request(String method, String endpoint, int status, long nanos, long bytesSent, long bytesDecoded) {
+        String key = method + " " + endpoint;
+        EndpointMetrics metrics = endpoints.get(key);
+        if (metrics == null) {
+            metrics = endpoints.computeIfAbsent(key, k -> new EndpointMetrics());
+        }
+        metrics.record(status, nanos, bytesSent, bytesDecoded);
+    }
+
+    @Override
+    public void throttled(long nanos) {
+        throttleWait.record(nanos);
+    }
+
+    @Override
+    public void decoded(String entityType, int count, long nanos) {
+        LatencyHistogram histogram = decodeTimes.get(entityType);
+        if (histogram == null) {
+            decodedEntities.putIfAbsent(entityType, new LongAdder());
+            histogram = decodeTimes.computeIfAbsent(entityType, k -> new LatencyHistogram());
+        }
+        histogram.record(nanos);
+        decodedEntities.get(entityType).add(count);
+    }
+
+    @Override
+    public void cacheAccess(MetadataCache.Region region, boolean hit) {
+        (hit ? cacheHits : cacheMisses).get(region).increment();
+    }
+
+    @Override
+    public void retry(String method, String endpoint, int status) {
+        retries.increment();
+    }
+
+    /**
+     * @return metrics per endpoint, keyed by method and normalized path, e.g. "GET workspaces/{id}/projects"
+     */
+    public Map<String, EndpointMetrics> getEndpoints() {
+        return Collections.unmodifiableMap(new TreeMap<>(endpoints));
+    }
+
+    /**
+     * @param key method and normalized path, e.g. "GET time_entries"
+     * @return metrics of the endpoint, null if it was never requested
+     */
+    public EndpointMetrics getEndpoint(String key) {
+        return endpoints.get(key);
+    }
+
+    /**
+     * @return time requests waited for the rate limiter
+     */
+    public LatencyHistogram getThrottleWait() {
+        return throttleWait;
+    }
+
+    /**
+     * @param entityType simple class name, e.g. "TimeEntry"
+     * @return time spent decoding responses of the type, null if none was decoded
+     */
+    public LatencyHistogram getDecodeTime(String entityType) {
+        return decodeTimes.get(entityType);
+    }
+
+    /**
+     * @param entityType simple class name, e.g. "TimeEntry"
+     * @return number of entities of the type decoded
+     */
+    public long getDecodedEntities(String entityType) {
+        LongAdder count = decodedEntities.get(entityType);
+        return count == null ? 0 : count.sum();
+    }
+
+    public long getCacheHits(MetadataCache.Region region) {
+        return cacheHits.get(region).sum();
+    }
+
+    public long getCacheMisses(MetadataCache.Region region) {
+        return cacheMisses.get(region).sum();
+    }
+
+    /**
+     * @param region cache region
+     * @return hits divided by all accesses of the region, 0 if there were none
+     */
+    public double getCacheHitRatio(MetadataCache.Region region) {
+        long hits = getCacheHits(region);
+        long accesses = hits + getCacheMisses(region);
+        return accesses == 0 ? 0 : (double) hits / accesses;
+    }
+
+    /**
+     * @return number of requests sent again after a transient failure
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (Map.Entry<String, EndpointMetrics> endpoint : getEndpoints().entrySet()) {
+            result.append(endpoint.getKey()).append(": ").append(endpoint.getValue()).append('\n');
+        }
+        for (Map.Entry<String, LatencyHistogram> decode : new TreeMap<>(decodeTimes).entrySet()) {
+            result.append("decode ").append(decode.getKey()).append(": ").append(decode.getValue()).append('\n');
+        }
+        result.append("throttle: ").append(throttleWait).append('\n');
+        result.append("retries: ").append(getRetries());
+        return result.toString();
+    }
+
+    /**
+     * Counters and latency of one endpoint.
+     */
+    public static class EndpointMetrics {
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder bytesSent = new LongAdder();
+        private final LongAdder bytesDecoded = new LongAdder();
+        private final ConcurrentHashMap<Integer, LongAdder> statusCodes = new ConcurrentHashMap<>();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        void record(int status, long nanos, long sent, long decoded) {
+            requests.increment();
+            bytesSent.add(sent);
+            bytesDecoded.add(decoded);
+            LongAdder count = statusCodes.get(status);
+            if (count == null) {
+                count = statusCodes.computeIfAbsent(status, k -> new LongAdder());
+            }
+            count.increment();
+            latency.record(nanos);
+        }
+
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        public long getBytesSent() {
+            return bytesSent.sum();
+        }
+
+        /**
+         * @return size of the response bodies after decompression, more than was transferred
+         *         for compressed responses
+         */
+        public long getBytesDecoded() {
+            return bytesDecoded.sum();
+        }
+
+        /**
+         * @return number of responses per HTTP status, 0 for requests without response
+         */
+        public Map<Integer, Long> getStatusCodes() {
+            Map<Integer, Long> result = new TreeMap<>();
+            for (Map.Entry<Integer, LongAdder> status : statusCodes.entrySet()) {
+                result.put(status.getKey(), status.getValue().sum());
+            }
+            return result;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        @Override
+        public String toString() {
+            return "requests=" + getRequests() + ", status=" + getStatusCodes() + ", sent=" + getBytesSent()
+                    + "B, decoded=" + getBytesDecoded() + "B, " + latency;
+        }
+    }
+}
@@ -18,28 +18,64 @@
  */
 package ch.simas.jtoggl;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.*;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import ch.simas.jtoggl.util.DateUtil;
+import ch.simas.jtoggl.util.JsonStreamDecoder;
 import io.restassured.RestAssured;
-import io.restassured.config.HttpClientConfig;
-import io.restassured.config.RestAssuredConfig;
 import io.restassured.filter.log.RequestLoggingFilter;
 import io.restassured.filter.log.ResponseLoggingFilter;
 import io.restassured.http.ContentType;
+import io.restassured.http.Method;
 import io.restassured.response.Response;
 import io.restassured.specification.RequestSpecification;
-import org.apache.http.params.CoreConnectionPNames;
-import org.json.simple.JSONArray;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.entity.GzipDecompressingEntity;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
 import org.json.simple.JSONObject;
 import org.json.simple.JSONValue;
+import org.reactivestreams.Publisher;
 
 
 /**
@@ -49,46 +85,75 @@ import org.json.simple.JSONValue;
  */
 public class JToggl {
 
+    /**
+     * Families of endpoints with their own circuit breaker and bulkhead.
+     */
+    public enum Endpoint {
+        /** the Toggl API for time entries, projects, clients, etc. */
+        API,
+        /** the reports API */
+        REPORTS
+    }
+
     private static final String API_ROOT = "https://www.toggl.com/api";
     private static final String REPORTS_ENDPOINT = "https://toggl.com/reports/api/v2";
     private static final int API_VERSION = 8;
-    private static final String API_BASE = String.format("%s/v%d/", API_ROOT, API_VERSION);
 
-    private static final String DATA = "data";
-    private static final String PLACEHOLDER = "{0}";
+    static final String DATA = "data";
+    static final String PLACEHOLDER = "{0}";
     private static final String SIMPLE_ID_PATH = "/" + PLACEHOLDER;
 
-    private static final String TIME_ENTRIES = API_BASE + "time_entries";
-    private static final String TIME_ENTRY_BY_ID = TIME_ENTRIES + SIMPLE_ID_PATH;
-    private static final String TIME_ENTRY_CURRENT = TIME_ENTRIES + "/current";
-    private static final String TIME_ENTRY_START = TIME_ENTRIES + "/start";
-    private static final String TIME_ENTRY_STOP = TIME_ENTRIES + SIMPLE_ID_PATH + "/stop";
+    static final String TIME_ENTRIES = "time_entries";
+    static final String TIME_ENTRY_BY_ID = TIME_ENTRIES + SIMPLE_ID_PATH;
+    static final String TIME_ENTRY_CURRENT = TIME_ENTRIES + "/current";
+    static final String TIME_ENTRY_START = TIME_ENTRIES + "/start";
+    static final String TIME_ENTRY_STOP = TIME_ENTRIES + SIMPLE_ID_PATH + "/stop";
 
-    private static final String WORKSPACES = API_BASE + "workspaces";
+    static final String WORKSPACES = "workspaces";
     private static final String WORKSPACE_BY_ID = WORKSPACES + SIMPLE_ID_PATH;
-    private static final String WORKSPACE_USERS = WORKSPACE_BY_ID + "/users";
-    private static final String WORKSPACE_PROJECTS = WORKSPACE_BY_ID + "/projects";
-    private static final String WORKSPACE_TASKS = WORKSPACE_BY_ID + "/tasks";
-    private static final String WORKSPACE_CLIENTS = WORKSPACE_BY_ID + "/clients";
+    static final String WORKSPACE_USERS = WORKSPACE_BY_ID + "/users";
+    static final String WORKSPACE_PROJECTS = WORKSPACE_BY_ID + "/projects";
+    static final String WORKSPACE_TASKS = WORKSPACE_BY_ID + "/tasks";
+    static final String WORKSPACE_CLIENTS = WORKSPACE_BY_ID + "/clients";
+    private static final String WORKSPACE_TAGS = WORKSPACE_BY_ID + "/tags";
 
-    private static final String CLIENTS = API_BASE + "clients";
-    private static final String CLIENT_BY_ID = CLIENTS + SIMPLE_ID_PATH;
+    static final String CLIENTS = "clients";
+    static final String CLIENT_BY_ID = CLIENTS + SIMPLE_ID_PATH;
 
-    private static final String PROJECTS = API_BASE + "projects";
-    private static final String PROJECT_BY_ID = PROJECTS + SIMPLE_ID_PATH;
+    static final String PROJECTS = "projects";
+    static final String PROJECT_BY_ID = PROJECTS + SIMPLE_ID_PATH;
 
-    private static final String TASKS = API_BASE + "tasks";
-    private static final String TASK_BY_ID = TASKS + SIMPLE_ID_PATH;
+    static final String TASKS = "tasks";
+    static final String TASK_BY_ID = TASKS + SIMPLE_ID_PATH;
 
-    private static final String TAGS = API_BASE + "tags";
+    private static final String TAGS = "tags";
 
-    private static final String PROJECT_USERS = WORKSPACES + "/673279/project_users";
-    private static final String GET_CURRENT_USER = API_BASE + "me";
+    static final String PROJECT_USERS = WORKSPACES + "/673279/project_users";
+    static final String GET_CURRENT_USER = "me";
+    private static final Pattern ID_SEGMENT = Pattern.compile("(?<=^|/)\\d+(?=/|$)");
     private final String user;
     private final String password;
     
+    private static final long DEFAULT_THROTTLE_PERIOD = 1000L;
+    private static final int DEFAULT_PARALLELISM = 4;
+    private static final int DEFAULT_API_CALLS = 16;
+    private static final int DEFAULT_REPORTS_CALLS = 4;
+    private static final long DEFAULT_BULKHEAD_WAIT = 5;
+
     private boolean log = false;
-    private long throttlePeriod = 0L;
+    private long throttlePeriod = DEFAULT_THROTTLE_PERIOD;
+    private RateLimiter rateLimiter;
+    private HttpTransport transport = HttpTransport.getDefault();
+    private volatile ExecutorService executor;
+    private int parallelism = DEFAULT_PARALLELISM;
+    private volatile MetadataCache cache;
+    private volatile ConditionalCache conditionalCache;
+    private volatile RetryPolicy retryPolicy = new RetryPolicy();
+    private volatile MetricsRecorder metrics = MetricsRecorder.NOOP;
+    private final Map<Endpoint, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final Map<Endpoint, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    private String apiBase = String.format("%s/v%d/", API_ROOT, API_VERSION);
+    private String reportsEndpoint = REPORTS_ENDPOINT;
     
     /**
      * Constructor to create an instance of JToggl that uses an api token to connect to toggl.
@@ -108,6 +173,11 @@ public class JToggl {
     public JToggl(String user, String password) {
         this.user = user;
         this.password = password;
+        this.rateLimiter = TokenBucketRateLimiter.shared(user, 1000d / DEFAULT_THROTTLE_PERIOD, 1);
+        circuitBreakers.put(Endpoint.API, new CircuitBreaker());
+        circuitBreakers.put(Endpoint.REPORTS, new CircuitBreaker());
+        bulkheads.put(Endpoint.API, new Bulkhead(DEFAULT_API_CALLS, DEFAULT_BULKHEAD_WAIT, TimeUnit.SECONDS));
+        bulkheads.put(Endpoint.REPORTS, new Bulkhead(DEFAULT_REPORTS_CALLS, DEFAULT_BULKHEAD_WAIT, TimeUnit.SECONDS));
     }
 
     /**
@@ -136,17 +206,8 @@ public class JToggl {
             queryParams.put("start_date", DateUtil.convertDateToString(startDate));
             queryParams.put("end_date", DateUtil.convertDateToString(endDate));
         }
-        String response = fetch(TIME_ENTRIES, queryParams);
-        JSONArray data = (JSONArray) JSONValue.parse(response);
-
-        List<TimeEntry> entries = new ArrayList<>();
-        if (data != null) {
-	        for (Object obj : data) {
-	            JSONObject entryObject = (JSONObject) obj;
-	            entries.add(new TimeEntry(entryObject.toJSONString()));
-	        }
-        }
-        return entries;
+        String response = fetch(apiBase + TIME_ENTRIES, queryParams);
+        return decodeList(response, TimeEntry::new, TimeEntry.class);
     }
 
     /**
@@ -156,7 +217,7 @@ public class JToggl {
      * @return TimeEntry or null if no Entry is found.
      */
     public TimeEntry getTimeEntry(Long id) {
-        String url = TIME_ENTRY_BY_ID.replace(PLACEHOLDER, id.toString());
+        String url = apiBase + TIME_ENTRY_BY_ID.replace(PLACEHOLDER, id.toString());
 
         String response = fetch(url);
 
@@ -165,7 +226,7 @@ public class JToggl {
         if (data == null)
         	return null;
 
-        return new TimeEntry(data.toJSONString());
+        return new TimeEntry(data);
     }
 
 	/**
@@ -174,14 +235,14 @@ public class JToggl {
 	 * @return The running time entry or null if none
 	 */
 	public TimeEntry getCurrentTimeEntry() {
-		String response = fetch(TIME_ENTRY_CURRENT);
+		String response = fetch(apiBase + TIME_ENTRY_CURRENT);
 
         JSONObject object = (JSONObject) JSONValue.parse(response);
 		JSONObject data = (JSONObject) object.get(DATA);
 		if (data == null)
 			return null;
 
-		return new TimeEntry(data.toJSONString());
+		return new TimeEntry(data);
 	}
 
     /**
@@ -193,11 +254,11 @@ public class JToggl {
     public TimeEntry createTimeEntry(TimeEntry timeEntry) {
 
         JSONObject object = createTimeEntryRequestParameter(timeEntry);
-        String response = post(object, TIME_ENTRIES);
+        String response = post(object, apiBase + TIME_ENTRIES);
 
         object = (JSONObject) JSONValue.parse(response);
         JSONObject data = (JSONObject) object.get(DATA);
-        return new TimeEntry(data.toJSONString());
+        return new TimeEntry(data);
     }
     
 	/**
@@ -209,11 +270,11 @@ public class JToggl {
 	 */
     public TimeEntry startTimeEntry(TimeEntry timeEntry) {
         JSONObject object = createTimeEntryRequestParameter(timeEntry);
-        String response = post(object, TIME_ENTRY_START);
+        String response = post(object, apiBase + TIME_ENTRY_START);
 
         object = (JSONObject) JSONValue.parse(response);
         JSONObject data = (JSONObject) object.get(DATA);
-        return new TimeEntry(data.toJSONString());
+        return new TimeEntry(data);
     }
     
 	/**
@@ -224,14 +285,14 @@ public class JToggl {
 	 * @return the stopped {@link TimeEntry}
 	 */
     public TimeEntry stopTimeEntry(TimeEntry timeEntry) {
-        String url = TIME_ENTRY_STOP.replace(PLACEHOLDER, timeEntry.getId().toString());
+        String url = apiBase + TIME_ENTRY_STOP.replace(PLACEHOLDER, timeEntry.getId().toString());
 
         JSONObject object = createTimeEntryRequestParameter(timeEntry);
-        String response = getClient().body(object.toJSONString()).put(url).body().asString();
+        String response = put(object, url);
 
         object = (JSONObject) JSONValue.parse(response);
         JSONObject data = (JSONObject) object.get(DATA);
-        return new TimeEntry(data.toJSONString());
+        return new TimeEntry(data);
     }
 
     /**
@@ -241,14 +302,14 @@ public class JToggl {
      * @return created {@link TimeEntry}
      */
     public TimeEntry updateTimeEntry(TimeEntry timeEntry) {
-        String url = TIME_ENTRY_BY_ID.replace(PLACEHOLDER, timeEntry.getId().toString());
+        String url = apiBase + TIME_ENTRY_BY_ID.replace(PLACEHOLDER, timeEntry.getId().toString());
 
         JSONObject object = createTimeEntryRequestParameter(timeEntry);
-        String response = getClient().body(object.toJSONString()).put(url).body().asString();
+        String response = put(object, url);
 
         object = (JSONObject) JSONValue.parse(response);
         JSONObject data = (JSONObject) object.get(DATA);
-        return new TimeEntry(data.toJSONString());
+        return new TimeEntry(data);
     }
 
     /**
@@ -257,9 +318,75 @@ public class JToggl {
      * @param id 
      */
     public void destroyTimeEntry(Long id) {
-        String url = TIME_ENTRY_BY_ID.replace(PLACEHOLDER, id.toString());
+        String url = apiBase + TIME_ENTRY_BY_ID.replace(PLACEHOLDER, id.toString());
+
+        delete(url);
+    }
+
+    /**
+     * Create many time entries, sending up to {@link #getParallelism()} requests at a time.
+     *
+     * @param timeEntries time entries to create
+     * @return one result per time entry, in the order of the collection
+     */
+    public List<BulkResult<TimeEntry, TimeEntry>> createTimeEntries(Collection<TimeEntry> timeEntries) {
+        return createTimeEntries(timeEntries, parallelism);
+    }
+
+    /**
+     * Create many time entries. A failing entry does not stop the others.
+     *
+     * @param timeEntries time entries to create
+     * @param concurrency maximum number of requests in flight
+     * @return one result per time entry, in the order of the collection
+     */
+    public List<BulkResult<TimeEntry, TimeEntry>> createTimeEntries(Collection<TimeEntry> timeEntries, int concurrency) {
+        return bulk(timeEntries, concurrency, this::createTimeEntry);
+    }
+
+    /**
+     * Update many time entries, sending up to {@link #getParallelism()} requests at a time.
+     *
+     * @param timeEntries time entries to update
+     * @return one result per time entry, in the order of the collection
+     */
+    public List<BulkResult<TimeEntry, TimeEntry>> updateTimeEntries(Collection<TimeEntry> timeEntries) {
+        return updateTimeEntries(timeEntries, parallelism);
+    }
 
-        getClient().delete(url);
+    /**
+     * Update many time entries. A failing entry does not stop the others.
+     *
+     * @param timeEntries time entries to update
+     * @param concurrency maximum number of requests in flight
+     * @return one result per time entry, in the order of the collection
+     */
+    public List<BulkResult<TimeEntry, TimeEntry>> updateTimeEntries(Collection<TimeEntry> timeEntries, int concurrency) {
+        return bulk(timeEntries, concurrency, this::updateTimeEntry);
+    }
+
+    /**
+     * Destroy many time entries, sending up to {@link #getParallelism()} requests at a time.
+     *
+     * @param ids ids of the time entries to destroy
+     * @return one result per id, in the order of the collection
+     */
+    public List<BulkResult<Long, Void>> destroyTimeEntries(Collection<Long> ids) {
+        return destroyTimeEntries(ids, parallelism);
+    }
+
+    /**
+     * Destroy many time entries. A failing entry does not stop the others.
+     *
+     * @param ids ids of the time entries to destroy
+     * @param concurrency maximum number of requests in flight
+     * @return one result per id, in the order of the collection
+     */
+    public List<BulkResult<Long, Void>> destroyTimeEntries(Collection<Long> ids, int concurrency) {
+        return bulk(ids, concurrency, id -> {
+            destroyTimeEntry(id);
+            return null;
+        });
     }
 
 	/**
@@ -268,8 +395,9 @@ public class JToggl {
 	 * @param id
 	 */
 	public void destroyProject(Long id) {
-        String url = PROJECT_BY_ID.replace(PLACEHOLDER, id.toString());
-        getClient().delete(url);
+        String url = apiBase + PROJECT_BY_ID.replace(PLACEHOLDER, id.toString());
+        delete(url);
+        invalidate(MetadataCache.Region.PROJECTS);
 	}
 
     
@@ -279,16 +407,10 @@ public class JToggl {
      * @return list of {@link Workspace}
      */
     public LinkedHashMap<Long, Workspace> getWorkspaces() {
-        String response = fetch(WORKSPACES);
-        JSONArray data = (JSONArray) JSONValue.parse(response);
-
         LinkedHashMap<Long, Workspace> workspaces = new LinkedHashMap<>();
-        if (data != null) {
-	        for (Object obj : data) {
-	            JSONObject entryObject = (JSONObject) obj;
-	            Workspace workspace = new Workspace(entryObject.toJSONString());
-	            workspaces.put(workspace.getId(), workspace);
-	        }
+        for (JSONObject object : reference(MetadataCache.Region.WORKSPACES, WORKSPACES, apiBase + WORKSPACES, Workspace.class)) {
+            Workspace workspace = new Workspace(object);
+            workspaces.put(workspace.getId(), workspace);
         }
         return workspaces;
     }
@@ -299,16 +421,10 @@ public class JToggl {
      * @return list of {@link ch.simas.jtoggl.Client}
      */
     public HashMap<Long, ch.simas.jtoggl.Client> getClients() {
-        String response = fetch(CLIENTS);
-        JSONArray data = (JSONArray) JSONValue.parse(response);
-
         HashMap<Long, ch.simas.jtoggl.Client> clients = new HashMap<>();
-        if (data != null) {
-	        for (Object obj : data) {
-	            JSONObject entryObject = (JSONObject) obj;
-	            Client client = new ch.simas.jtoggl.Client(entryObject.toJSONString());
-	            clients.put(client.getId(), client);
-	        }
+        for (JSONObject object : reference(MetadataCache.Region.CLIENTS, CLIENTS, apiBase + CLIENTS, ch.simas.jtoggl.Client.class)) {
+            ch.simas.jtoggl.Client client = new ch.simas.jtoggl.Client(object);
+            clients.put(client.getId(), client);
         }
         return clients;
     }
@@ -322,12 +438,13 @@ public class JToggl {
     public ch.simas.jtoggl.Client createClient(ch.simas.jtoggl.Client clientObject) {
 
         JSONObject object = createClientRequestParameter(clientObject);
-        String url = CLIENTS;
+        String url = apiBase + CLIENTS;
         String response = post(object, url);
 
         object = (JSONObject) JSONValue.parse(response);
         JSONObject data = (JSONObject) object.get(DATA);
-        return new ch.simas.jtoggl.Client(data.toJSONString());
+        invalidate(MetadataCache.Region.CLIENTS);
+        return new ch.simas.jtoggl.Client(data);
     }
 
     /**
@@ -337,14 +454,15 @@ public class JToggl {
      * @return updated {@link ch.simas.jtoggl.Client}
      */
     public ch.simas.jtoggl.Client updateClient(ch.simas.jtoggl.Client clientObject) {
-        String url = CLIENT_BY_ID.replace(PLACEHOLDER, clientObject.getId().toString());
+        String url = apiBase + CLIENT_BY_ID.replace(PLACEHOLDER, clientObject.getId().toString());
 
         JSONObject object = createClientRequestParameter(clientObject);
-        String response = getClient().body(object.toJSONString()).put(url).body().asString();
+        String response = put(object, url);
 
         object = (JSONObject) JSONValue.parse(response);
         JSONObject data = (JSONObject) object.get(DATA);
-        return new ch.simas.jtoggl.Client(data.toJSONString());
+        invalidate(MetadataCache.Region.CLIENTS);
+        return new ch.simas.jtoggl.Client(data);
     }
 
     /**
@@ -353,8 +471,9 @@ public class JToggl {
      * @param id 
      */
     public void destroyClient(Long id) {
-        String url = CLIENT_BY_ID.replace(PLACEHOLDER, id.toString());
-        getClient().delete(url);
+        String url = apiBase + CLIENT_BY_ID.replace(PLACEHOLDER, id.toString());
+        delete(url);
+        invalidate(MetadataCache.Region.CLIENTS);
     }
 
     /**
@@ -363,18 +482,41 @@ public class JToggl {
      * @return list of {@link Project}
      */
     public HashMap<Long, Project> getProjects() {
-        HashMap<Long, Project> projects = new HashMap();
-
-        HashMap<Long, Workspace> workspaces = getWorkspaces();
-        for (Map.Entry<Long, Workspace> workspace : workspaces.entrySet()) {
-			List<Project> workspaceProjects = getWorkspaceProjects(workspace.getValue().getId());
-			for (Project project : workspaceProjects) {
-				project.setWorkspace(workspace.getValue());
-				projects.put(project.getId(), project);
-			}
-		}
+        return getProjectsFanOut().getResultOrThrow();
+    }
 
-        return projects;
+    /**
+     * Get projects of all workspaces, requesting the workspaces concurrently.
+     * A failing workspace does not fail the whole call but is reported in the result.
+     *
+     * @return projects of all workspaces that could be fetched
+     */
+    public FanOutResult<HashMap<Long, Project>> getProjectsFanOut() {
+        LinkedHashMap<Long, Workspace> workspaces = getWorkspaces();
+        FanOutResult<Map<Long, List<Project>>> result = fanOut(workspaces.keySet(), this::getWorkspaceProjects);
+
+        HashMap<Long, Project> projects = new HashMap<>();
+        for (Map.Entry<Long, List<Project>> workspaceProjects : result.getResult().entrySet()) {
+            for (Project project : workspaceProjects.getValue()) {
+                project.setWorkspace(workspaces.get(workspaceProjects.getKey()));
+                projects.put(project.getId(), project);
+            }
+        }
+        return new FanOutResult<>(projects, result.getFailures());
+    }
+
+    /**
+     * Get a project, including archived ones.
+     *
+     * @param id id of the project
+     * @return the project or null if none is found
+     */
+    public Project getProject(Long id) {
+        String response = fetch(apiBase + PROJECT_BY_ID.replace(PLACEHOLDER, id.toString()));
+
+        JSONObject object = (JSONObject) JSONValue.parse(response);
+        JSONObject data = (JSONObject) object.get(DATA);
+        return data == null ? null : new Project(data);
     }
 
     /**
@@ -384,11 +526,12 @@ public class JToggl {
      */
     public Project createProject(Project project) {
         JSONObject object = createProjectRequestParameter(project);
-        String response = post(object, PROJECTS);
+        String response = post(object, apiBase + PROJECTS);
 
         object = (JSONObject) JSONValue.parse(response);
         JSONObject data = (JSONObject) object.get(DATA);
-        return new Project(data.toJSONString());
+        invalidate(MetadataCache.Region.PROJECTS);
+        return new Project(data);
     }
 
     /**
@@ -398,13 +541,14 @@ public class JToggl {
      * @return updated {@link Project}
      */
     public Project updateProject(Project project) {
-        String url = PROJECT_BY_ID.replace(PLACEHOLDER, project.getId().toString());
+        String url = apiBase + PROJECT_BY_ID.replace(PLACEHOLDER, project.getId().toString());
         JSONObject object = createProjectRequestParameter(project);
-        String response = getClient().body(object.toJSONString()).put(url).body().asString();
+        String response = put(object, url);
 
         object = (JSONObject) JSONValue.parse(response);
         JSONObject data = (JSONObject) object.get(DATA);
-        return new Project(data.toJSONString());
+        invalidate(MetadataCache.Region.PROJECTS);
+        return new Project(data);
     }
 
     /**
@@ -415,12 +559,12 @@ public class JToggl {
      */
     public ProjectUser createProjectUser(ProjectUser projectUser) {
         JSONObject object = createProjectUserRequestParameter(projectUser);
-        String response = post(object, PROJECT_USERS);
+        String response = post(object, apiBase + PROJECT_USERS);
 
 
         object = (JSONObject) JSONValue.parse(response);
         JSONObject data = (JSONObject) object.get(DATA);
-        return new ProjectUser(data.toJSONString());
+        return new ProjectUser(data);
     }
 
     /**
@@ -430,16 +574,39 @@ public class JToggl {
      * @return list of {@link Task}
      */
     public HashMap<Long, Task> getTasks() {
-        HashMap<Long, Task> tasks = new HashMap();
+        return getTasksFanOut().getResultOrThrow();
+    }
+
+    /**
+     * Get active tasks of all workspaces, requesting the workspaces concurrently.
+     * A failing workspace does not fail the whole call but is reported in the result.
+     *
+     * @return tasks of all workspaces that could be fetched
+     */
+    public FanOutResult<HashMap<Long, Task>> getTasksFanOut() {
+        FanOutResult<Map<Long, List<Task>>> result = fanOut(getWorkspaces().keySet(), this::getActiveWorkspaceTasks);
 
-        HashMap<Long, Workspace> workspaces = getWorkspaces();
-        for (Map.Entry<Long, Workspace> workspace : workspaces.entrySet()) {
-			List<Task> workspaceTasks = getActiveWorkspaceTasks(workspace.getValue().getId());
-			for (Task task : workspaceTasks) {
-			    tasks.put(task.getId(), task);
+        HashMap<Long, Task> tasks = new HashMap<>();
+        for (List<Task> workspaceTasks : result.getResult().values()) {
+            for (Task task : workspaceTasks) {
+                tasks.put(task.getId(), task);
             }
-		}
-        return tasks;
+        }
+        return new FanOutResult<>(tasks, result.getFailures());
+    }
+
+    /**
+     * Get a task, including inactive ones.
+     *
+     * @param id id of the task
+     * @return the task or null if none is found
+     */
+    public Task getTask(Long id) {
+        String response = fetch(apiBase + TASK_BY_ID.replace(PLACEHOLDER, id.toString()));
+
+        JSONObject object = (JSONObject) JSONValue.parse(response);
+        JSONObject data = (JSONObject) object.get(DATA);
+        return data == null ? null : new Task(data);
     }
 
     /** 
@@ -450,11 +617,12 @@ public class JToggl {
      */
     public Task createTask(Task task) {
         JSONObject object = createTaskRequestParameter(task);
-        String response = post(object, TASKS);
+        String response = post(object, apiBase + TASKS);
 
         object = (JSONObject) JSONValue.parse(response);
         JSONObject data = (JSONObject) object.get(DATA);
-        return new Task(data.toJSONString());
+        invalidate(MetadataCache.Region.TASKS);
+        return new Task(data);
     }
 
     /**
@@ -464,14 +632,15 @@ public class JToggl {
      * @return updated {@link Task}
      */
     public Task updateTask(Task task) {
-        String url = TASK_BY_ID.replace(PLACEHOLDER, task.getId().toString());
+        String url = apiBase + TASK_BY_ID.replace(PLACEHOLDER, task.getId().toString());
         JSONObject object = createTaskRequestParameter(task);
 
-        String response = getClient().body(object.toJSONString()).put(url).body().asString();
+        String response = put(object, url);
 
         object = (JSONObject) JSONValue.parse(response);
         JSONObject data = (JSONObject) object.get(DATA);
-        return new Task(data.toJSONString());
+        invalidate(MetadataCache.Region.TASKS);
+        return new Task(data);
     }
 
     /**
@@ -480,8 +649,9 @@ public class JToggl {
      * @param id
      */
     public void destroyTask(Long id) {
-        String url = TASK_BY_ID.replace(PLACEHOLDER, id.toString());
-        getClient().delete(url);
+        String url = apiBase + TASK_BY_ID.replace(PLACEHOLDER, id.toString());
+        delete(url);
+        invalidate(MetadataCache.Region.TASKS);
     }
 
     /**
@@ -490,11 +660,11 @@ public class JToggl {
      * @return current user {@link User}
      */
     public User getCurrentUser() {
-        String response = fetch(GET_CURRENT_USER);
+        String response = fetch(apiBase + GET_CURRENT_USER);
         JSONObject object = (JSONObject) JSONValue.parse(response);
         JSONObject data = (JSONObject) object.get(DATA);
 
-        return new User(data.toJSONString());
+        return new User(data);
     }
 
     /**
@@ -516,19 +686,10 @@ public class JToggl {
 	 * @return all users
 	 */
 	public List<User> getWorkspaceUsers(long workspaceId) {
-		String url = WORKSPACE_USERS.replace(PLACEHOLDER, String.valueOf(workspaceId));
+		String url = apiBase + WORKSPACE_USERS.replace(PLACEHOLDER, String.valueOf(workspaceId));
 
 		String response = fetch(url);
-		JSONArray data = (JSONArray) JSONValue.parse(response);
-
-		List<User> users = new ArrayList<>();
-		if (data != null) {
-			for (Object obj : data) {
-				JSONObject entryObject = (JSONObject) obj;
-				users.add(new User(entryObject.toJSONString()));
-			}
-		}
-		return users;
+		return decodeList(response, User::new, User.class);
 	}
 	
 	/**
@@ -539,19 +700,9 @@ public class JToggl {
 	 * @return all projects
 	 */
 	public List<Project> getWorkspaceProjects(long workspaceId) {
-		String url = WORKSPACE_PROJECTS.replace(PLACEHOLDER, String.valueOf(workspaceId));
+		String url = apiBase + WORKSPACE_PROJECTS.replace(PLACEHOLDER, String.valueOf(workspaceId));
 
-		String response = fetch(url);
-		JSONArray data = (JSONArray) JSONValue.parse(response);
-
-		List<Project> projects = new ArrayList<>();
-		if (data != null) {
-			for (Object obj : data) {
-				JSONObject entryObject = (JSONObject) obj;
-				projects.add(new Project(entryObject.toJSONString()));
-			}
-		}
-		return projects;
+		return entities(reference(MetadataCache.Region.PROJECTS, workspaceId, url, Project.class), Project::new);
 	}
 	
 	/**
@@ -562,18 +713,9 @@ public class JToggl {
 	 * @return all clients
 	 */
 	public List<ch.simas.jtoggl.Client> getWorkspaceClients(long workspaceId) {
-		String url = WORKSPACE_CLIENTS.replace(PLACEHOLDER, String.valueOf(workspaceId));
-		String response = fetch(url);
-		JSONArray data = (JSONArray) JSONValue.parse(response);
-
-        List<ch.simas.jtoggl.Client> clients = new ArrayList<>();
-        if (data != null) {
-	        for (Object obj : data) {
-	            JSONObject entryObject = (JSONObject) obj;
-	            clients.add(new ch.simas.jtoggl.Client(entryObject.toJSONString()));
-	        }
-        }
-        return clients;
+		String url = apiBase + WORKSPACE_CLIENTS.replace(PLACEHOLDER, String.valueOf(workspaceId));
+		return entities(reference(MetadataCache.Region.CLIENTS, workspaceId, url, ch.simas.jtoggl.Client.class),
+				ch.simas.jtoggl.Client::new);
 	}
 	
 	/**
@@ -584,18 +726,20 @@ public class JToggl {
 	 * @return all tasks
 	 */
 	public List<Task> getActiveWorkspaceTasks(long workspaceId) {
-		String url = WORKSPACE_TASKS.replace(PLACEHOLDER, String.valueOf(workspaceId));
-		String response = fetch(url);
-		JSONArray data = (JSONArray) JSONValue.parse(response);
+		String url = apiBase + WORKSPACE_TASKS.replace(PLACEHOLDER, String.valueOf(workspaceId));
+		return entities(reference(MetadataCache.Region.TASKS, workspaceId, url, Task.class), Task::new);
+	}
 
-		List<Task> tasks = new ArrayList<>();
-		if (data != null) {
-			for (Object obj : data) {
-				JSONObject entryObject = (JSONObject) obj;
-				tasks.add(new Task(entryObject.toJSONString()));
-			}
-		}
-		return tasks;
+	/**
+	 * All tags in the workspace with the given id.
+	 *
+	 * @param workspaceId
+	 *            id of the workspace
+	 * @return all tags
+	 */
+	public List<Tag> getWorkspaceTags(long workspaceId) {
+		String url = apiBase + WORKSPACE_TAGS.replace(PLACEHOLDER, String.valueOf(workspaceId));
+		return entities(reference(MetadataCache.Region.TAGS, workspaceId, url, Tag.class), Tag::new);
 	}
 
     /**
@@ -604,20 +748,243 @@ public class JToggl {
 	 * @return all users in all workspaces
 	 */
 	public List<User> getUsers() {
-		HashSet<User> result = new HashSet<>();
-        LinkedHashMap<Long, Workspace> workspaces = getWorkspaces();
-		for (Map.Entry<Long, Workspace> workspace : workspaces.entrySet()) {
-			List<User> workspaceUsers = getWorkspaceUsers(workspace.getValue().getId());
-			result.addAll(workspaceUsers);
+		return getUsersFanOut().getResultOrThrow();
+	}
+
+	/**
+	 * All users in all workspaces, requesting the workspaces concurrently.
+	 * A failing workspace does not fail the whole call but is reported in the result.
+	 *
+	 * @return users of all workspaces that could be fetched
+	 */
+	public FanOutResult<List<User>> getUsersFanOut() {
+		FanOutResult<Map<Long, List<User>>> result = fanOut(getWorkspaces().keySet(), this::getWorkspaceUsers);
+
+		HashSet<User> users = new HashSet<>();
+		for (List<User> workspaceUsers : result.getResult().values()) {
+			users.addAll(workspaceUsers);
 		}
-		return new ArrayList<>(result);
+		return new FanOutResult<>(new ArrayList<>(users), result.getFailures());
+	}
+
+	private <I, T> List<BulkResult<I, T>> bulk(Collection<I> items, int concurrency, Function<I, T> request) {
+		List<I> list = new ArrayList<>(items);
+		List<Long> positions = new ArrayList<>(list.size());
+		for (long position = 0; position < list.size(); position++) {
+			positions.add(position);
+		}
+		FanOutResult<Map<Long, T>> result = FanOut.run(getExecutor(), concurrency, positions,
+				position -> request.apply(list.get(position.intValue())));
+
+		List<BulkResult<I, T>> results = new ArrayList<>(list.size());
+		for (Long position : positions) {
+			I item = list.get(position.intValue());
+			RuntimeException failure = result.getFailures().get(position);
+			if (failure == null) {
+				results.add(new BulkResult<>(item, result.getResult().get(position), BulkResult.Status.SUCCESS, null));
+			} else {
+				results.add(BulkResult.failed(item, failure));
+			}
+		}
+		return results;
+	}
+
+	<V> FanOutResult<Map<Long, V>> fanOut(Collection<Long> workspaceIds, Function<Long, V> request) {
+		return FanOut.run(getExecutor(), parallelism, workspaceIds, request);
 	}
 
+    /**
+     * Resolve the project, workspace, task, user and client references of the given
+     * time entries in bulk and wire them into the entries.
+     *
+     * @param entries time entries to hydrate
+     * @return ids that could not be resolved and failed requests
+     * @see TimeEntryHydrator
+     */
+    public TimeEntryHydrator.Result hydrate(Collection<TimeEntry> entries) {
+        return new TimeEntryHydrator(this).hydrate(entries);
+    }
+
     public PagedResult getDetailedReport(PagedReportsParameter parameters) {
-        String response = fetch(REPORTS_ENDPOINT + "/details?" + parameters.toParamList());
-        return new PagedResult(response);
+        return getDetailedReport(parameters, parameters.getPage());
     }
-	
+
+    PagedResult getDetailedReport(PagedReportsParameter parameters, int page) {
+        return decodeDetailedReport(fetch(detailedReportUrl(parameters, page)));
+    }
+
+    String detailedReportUrl(PagedReportsParameter parameters, int page) {
+        return reportsEndpoint + "/details?" + parameters.toParamList(page);
+    }
+
+    PagedResult decodeDetailedReport(String response) {
+        long start = System.nanoTime();
+        PagedResult result = new PagedResult(response);
+        metrics.decoded(TimeEntry.class.getSimpleName(), result.getEntries().size(), System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Write the raw JSON of all pages of the detailed report, starting at the page of the
+     * parameters, one page per line. Response bodies are copied to the channel through a
+     * single buffer and never decoded, so this suits archiving large reports. Pages are
+     * not retried, as part of a failed page may have been written already.
+     *
+     * @param parameters report parameters, not modified
+     * @param target channel to write to, not closed
+     * @return number of bytes written
+     */
+    public long exportDetailedReport(PagedReportsParameter parameters, WritableByteChannel target) {
+        return new DetailedReportExport(this, parameters, target).run();
+    }
+
+    /**
+     * @param parameters report parameters, not modified
+     * @param target stream to write to, not closed
+     * @return number of bytes written
+     * @see #exportDetailedReport(PagedReportsParameter, WritableByteChannel)
+     */
+    public long exportDetailedReport(PagedReportsParameter parameters, OutputStream target) {
+        return exportDetailedReport(parameters, Channels.newChannel(target));
+    }
+
+    /**
+     * @param parameters report parameters, not modified
+     * @param target file to write to, created or truncated
+     * @return number of bytes written
+     * @see #exportDetailedReport(PagedReportsParameter, WritableByteChannel)
+     */
+    public long exportDetailedReport(PagedReportsParameter parameters, Path target) {
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            return exportDetailedReport(parameters, channel);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Time per project and time entry description, summed up by the server.
+     *
+     * @param parameters report parameters
+     * @return the summary report
+     */
+    public SummaryReport getSummaryReport(ReportsParameter parameters) {
+        return decodeSummaryReport(fetch(summaryReportUrl(parameters)));
+    }
+
+    String summaryReportUrl(ReportsParameter parameters) {
+        return reportsEndpoint + "/summary?" + parameters.toParamList();
+    }
+
+    SummaryReport decodeSummaryReport(String response) {
+        long start = System.nanoTime();
+        SummaryReport result = new SummaryReport(response);
+        metrics.decoded(SummaryReport.Group.class.getSimpleName(), result.getGroups().size(), System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Time per day of the seven days starting at {@link ReportsParameter#getSince()},
+     * per project and user, summed up by the server.
+     *
+     * @param parameters report parameters
+     * @return the weekly report
+     */
+    public WeeklyReport getWeeklyReport(ReportsParameter parameters) {
+        return decodeWeeklyReport(fetch(weeklyReportUrl(parameters)));
+    }
+
+    String weeklyReportUrl(ReportsParameter parameters) {
+        return reportsEndpoint + "/weekly?" + parameters.toParamList();
+    }
+
+    WeeklyReport decodeWeeklyReport(String response) {
+        long start = System.nanoTime();
+        WeeklyReport result = new WeeklyReport(response);
+        metrics.decoded(WeeklyReport.Row.class.getSimpleName(), result.getRows().size(), System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * All entries of the detailed report, starting at the page of the parameters.
+     * Pages are fetched one at a time when the previous page has been consumed.
+     *
+     * @param parameters report parameters, not modified
+     * @return iterator over all entries
+     */
+    public Iterator<TimeEntry> iterateDetailedReport(PagedReportsParameter parameters) {
+        return iterateDetailedReport(parameters, 0);
+    }
+
+    /**
+     * All entries of the detailed report, starting at the page of the parameters.
+     * Once the first page is known, up to {@code prefetch} following pages are fetched
+     * concurrently on the {@link #getExecutor() executor}; entries are returned in page order.
+     *
+     * @param parameters report parameters, not modified
+     * @param prefetch number of pages to fetch in advance, 0 to fetch one page at a time
+     * @return iterator over all entries
+     */
+    public Iterator<TimeEntry> iterateDetailedReport(PagedReportsParameter parameters, int prefetch) {
+        return new DetailedReportIterator(this, parameters, prefetch);
+    }
+
+    /**
+     * All entries of the detailed report as a sequential, lazily fetched stream.
+     * Short-circuiting operations like {@code limit} or {@code findFirst} stop fetching pages.
+     *
+     * @param parameters report parameters, not modified
+     * @return stream of all entries
+     * @see #iterateDetailedReport(PagedReportsParameter)
+     */
+    public Stream<TimeEntry> streamDetailedReport(PagedReportsParameter parameters) {
+        return streamDetailedReport(parameters, 0);
+    }
+
+    /**
+     * All entries of the detailed report as a sequential stream with bounded look-ahead.
+     * Closing the stream cancels pages fetched in advance.
+     *
+     * @param parameters report parameters, not modified
+     * @param prefetch number of pages to fetch in advance, 0 to fetch one page at a time
+     * @return stream of all entries
+     * @see #iterateDetailedReport(PagedReportsParameter, int)
+     */
+    public Stream<TimeEntry> streamDetailedReport(PagedReportsParameter parameters, int prefetch) {
+        DetailedReportIterator iterator = new DetailedReportIterator(this, parameters, prefetch);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * Publish all entries of the detailed report honouring subscriber demand: a page is
+     * only fetched and decoded when the subscriber has requested more entries than the
+     * previous pages held. On Java 9+ {@code org.reactivestreams.FlowAdapters.toFlowPublisher}
+     * turns the result into a {@code java.util.concurrent.Flow.Publisher}.
+     *
+     * @param parameters report parameters, not modified
+     * @return publisher of all entries, signalling on the {@link #getExecutor() executor}
+     */
+    public Publisher<TimeEntry> publishDetailedReport(PagedReportsParameter parameters) {
+        return new LazyPublisher<>(() -> new DetailedReportIterator(this, parameters, 0), getExecutor());
+    }
+
+    /**
+     * Publish the time entries started in a range honouring subscriber demand. The range
+     * is requested in consecutive windows, the next window only when the subscriber has
+     * requested more entries than the previous windows held.
+     *
+     * @param startDate start of the range
+     * @param endDate end of the range
+     * @param window length of the windows the range is requested in
+     * @return publisher of all entries, signalling on the {@link #getExecutor() executor}
+     */
+    public Publisher<TimeEntry> publishTimeEntries(OffsetDateTime startDate, OffsetDateTime endDate, Duration window) {
+        return new LazyPublisher<>(() -> new TimeEntryRangeIterator(this, startDate, endDate, window), getExecutor());
+    }
+
     /**
      * Switch logging on.
      */
@@ -636,55 +1003,391 @@ public class JToggl {
         return fetch(url, new HashMap<String, String>());
     }
 
+    private String fetch(String url, Map<String, String> params) {
+        return execute(Method.GET, url, params, null, null);
+    }
+
+    /**
+     * Fetch and decode reference data, revalidating a cached value with the server
+     * if a {@link ConditionalCache} is set.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T fetchConditional(String url, Function<String, T> decoder) {
+        ConditionalCache current = conditionalCache;
+        if (current == null) {
+            return decoder.apply(fetch(url));
+        }
+        Validators validators = new Validators(current.get(url));
+        String response = execute(Method.GET, url, new HashMap<String, String>(), null, validators);
+        if (validators.notModified) {
+            if (validators.cached == null) {
+                // no validators were sent, so there is nothing the server could have confirmed
+                throw new TogglException("304 Not Modified without cached response: " + url, 304, -1);
+            }
+            current.notModified();
+            return (T) validators.cached.getValue();
+        }
+        T result = decoder.apply(response);
+        current.put(url, validators.etag, validators.lastModified, result);
+        return result;
+    }
+
     private String post(JSONObject object, String url) {
-        try {
-            Thread.sleep(1000);
-        } catch (InterruptedException e) {
+        return execute(Method.POST, url, null, object, null);
+    }
+
+    private String put(JSONObject object, String url) {
+        return execute(Method.PUT, url, null, object, null);
+    }
+
+    private void delete(String url) {
+        execute(Method.DELETE, url, null, null, null);
+    }
 
+    /**
+     * Send a request and repeat it on transient failures as the retry policy allows.
+     */
+    private String execute(Method method, String url, Map<String, String> params, JSONObject body,
+            Validators validators) {
+        RetryPolicy policy = retryPolicy;
+        for (int attempt = 1; ; attempt++) {
+            TogglException failure;
+            try {
+                String response = send(method, url, params, body, validators);
+                if (attempt > 1) {
+                    policy.recovered();
+                }
+                return response;
+            } catch (TogglException e) {
+                failure = e;
+            }
+            long delay = retryDelay(policy, method, url, attempt, failure);
+            if (delay < 0) {
+                throw failure;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.setAttempts(attempt, false);
+                throw failure;
+            }
         }
+    }
 
-        RequestSpecification client = getClient();
-        Response response = client
-                .body(object.toJSONString())
-                .post(url);
-        if (response.getStatusCode() == 403) {
-            throw new RuntimeException("forbidden");
-        } else if (response.getStatusCode() == 404) {
-            throw new RuntimeException("not found: " + url);
-        } else if (response.getStatusCode() == 400) {
-            throw new RuntimeException("bad request: " + response.getBody().asString());
+    /**
+     * Decide whether a failed attempt is sent again and record the decision.
+     *
+     * @return nanoseconds to wait before the next attempt, -1 if the failure is final
+     */
+    private long retryDelay(RetryPolicy policy, Method method, String url, int attempt, TogglException failure) {
+        boolean retryable = policy.isRetryable(failure, method != Method.POST);
+        if (!retryable || attempt >= policy.getMaxAttempts()) {
+            failure.setAttempts(attempt, retryable);
+            if (retryable) {
+                policy.exhausted();
+            }
+            return -1;
         }
-        return response.body().asString();
+        policy.retried();
+        metrics.retry(method.name(), route(url), failure.getStatusCode());
+        return policy.getDelay(attempt, failure.getRetryAfter());
     }
 
-    private String fetch(String url, Map<String, String> params) {
+    private String send(Method method, String url, Map<String, String> params, JSONObject body, Validators validators) {
+        return guarded(url, () -> request(method, url, params, body, validators));
+    }
+
+    /**
+     * Run a request behind the rate limiter, bulkhead and circuit breaker of its endpoint.
+     * The rate limiter comes first, so that waiting for it neither holds a bulkhead slot
+     * nor, if the wait is interrupted, a permission of the circuit breaker.
+     */
+    private <T> T guarded(String url, Supplier<T> call) {
+        Endpoint endpoint = endpoint(url);
+        throttle();
+        Bulkhead bulkhead = bulkheads.get(endpoint);
+        if (bulkhead != null && !bulkhead.tryAcquire()) {
+            throw new CallNotPermittedException("too many concurrent calls to " + endpoint);
+        }
         try {
-            Thread.sleep(1000);
-        } catch (InterruptedException e) {
+            CircuitBreaker circuitBreaker = circuitBreakers.get(endpoint);
+            if (circuitBreaker != null && !circuitBreaker.tryAcquirePermission()) {
+                throw new CallNotPermittedException("circuit breaker open for " + endpoint);
+            }
+
+            long start = System.nanoTime();
+            boolean failed = false;
+            try {
+                return call.get();
+            } catch (TogglException e) {
+                failed = e instanceof ServerErrorException || e.getCause() instanceof IOException;
+                throw e;
+            } finally {
+                if (circuitBreaker != null) {
+                    circuitBreaker.onResult(System.nanoTime() - start, failed);
+                }
+            }
+        } finally {
+            if (bulkhead != null) {
+                bulkhead.release();
+            }
+        }
+    }
+
+    /**
+     * GET the URL and hand the undecoded response body to the reader. The request is
+     * guarded like all others but never retried, as the reader may have consumed part
+     * of the body already.
+     *
+     * @param reader consumes the body and returns the number of bytes it read
+     * @return the result of the reader
+     */
+    long fetchRaw(String url, ToLongFunction<InputStream> reader) {
+        return guarded(url, () -> requestRaw(url, reader));
+    }
 
+    private long requestRaw(String url, ToLongFunction<InputStream> reader) {
+        HttpGet get = new HttpGet(url);
+        get.setHeader("Authorization", authorization());
+        get.setHeader("Accept", ContentType.JSON.getAcceptHeader());
+        get.setHeader("Accept-Encoding", "gzip");
+        long start = System.nanoTime();
+        int status = 0;
+        long bytes = 0;
+        HttpEntity entity = null;
+        boolean completed = false;
+        try {
+            HttpResponse response = transport.getHttpClient().execute(get);
+            status = response.getStatusLine().getStatusCode();
+            entity = response.getEntity();
+            HttpEntity body = entity != null && entity.getContentEncoding() != null
+                    && "gzip".equalsIgnoreCase(entity.getContentEncoding().getValue())
+                    ? new GzipDecompressingEntity(entity) : entity;
+            if (status >= 400) {
+                String content = body == null ? "" : EntityUtils.toString(body, StandardCharsets.UTF_8);
+                bytes = utf8Length(content);
+                completed = true;
+                Header retryAfter = response.getFirstHeader("Retry-After");
+                throw TogglException.forStatus(status, url, content,
+                        RetryPolicy.parseRetryAfter(retryAfter == null ? null : retryAfter.getValue()));
+            }
+            if (body == null) {
+                completed = true;
+                return 0;
+            }
+            // not closed by try-with-resources, closing the stream reads the rest of the body
+            InputStream in = body.getContent();
+            bytes = reader.applyAsLong(in);
+            in.close();
+            completed = true;
+            return bytes;
+        } catch (IOException e) {
+            throw new TogglException("request failed: " + url, e);
+        } finally {
+            if (completed) {
+                EntityUtils.consumeQuietly(entity);
+            } else {
+                // the reader or the connection failed: drop the connection instead of
+                // draining a possibly large body to return it to the pool
+                get.abort();
+            }
+            MetricsRecorder recorder = metrics;
+            if (recorder != MetricsRecorder.NOOP) {
+                recorder.request(Method.GET.name(), route(url), status, System.nanoTime() - start, 0, bytes);
+            }
         }
+    }
 
+    /**
+     * Send a request on the non-blocking transport, behind the same rate limiter, circuit
+     * breaker and retry policy as the blocking calls. Waits for the rate limiter and between
+     * retries are scheduled on the transport, so no thread is held while the request is
+     * pending. The future is completed on an I/O thread of the transport with the response
+     * body, or with the {@link TogglException} the blocking call would throw.
+     */
+    CompletableFuture<String> executeAsync(AsyncHttpTransport transport, Method method, String url, JSONObject body) {
+        AsyncRequest request = new AsyncRequest(transport, method, url, body == null ? null : body.toJSONString());
+        request.attempt();
+        return request.result;
+    }
+
+    String apiUrl(String path) {
+        return apiBase + path;
+    }
+
+    private String request(Method method, String url, Map<String, String> params, JSONObject body,
+            Validators validators) {
+        MetricsRecorder recorder = metrics;
         RequestSpecification client = getClient();
-        Response response = client
-                .params(params)
-                .get(url);
-        if (response.getStatusCode() == 403) {
-            throw new RuntimeException("forbidden");
-        } else if (response.getStatusCode() == 404) {
-            throw new RuntimeException("not found: " + url);
-        } else if (response.getStatusCode() == 400) {
-            throw new RuntimeException("bad request: " + response.getBody().asString());
+        if (url.indexOf('?') >= 0) {
+            // query strings of ReportsParameter are encoded already
+            client = client.urlEncodingEnabled(false);
+        }
+        if (params != null) {
+            client = client.params(params);
+        }
+        if (validators != null && validators.cached != null) {
+            if (validators.cached.getEtag() != null) {
+                client = client.header("If-None-Match", validators.cached.getEtag());
+            }
+            if (validators.cached.getLastModified() != null) {
+                client = client.header("If-Modified-Since", validators.cached.getLastModified());
+            }
+        }
+        String json = body == null ? null : body.toJSONString();
+        if (json != null) {
+            client = client.body(json);
+        }
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = client.request(method, url);
+        } catch (Exception e) {
+            if (recorder != MetricsRecorder.NOOP) {
+                recorder.request(method.name(), route(url), 0, System.nanoTime() - start, utf8Length(json), 0);
+            }
+            // RestAssured rethrows I/O errors unchecked
+            if (e instanceof IOException) {
+                throw new TogglException("request failed: " + url, e);
+            }
+            throw e;
         }
-        return response.body().asString();
+        String content = response.body().asString();
+        if (recorder != MetricsRecorder.NOOP) {
+            recorder.request(method.name(), route(url), response.getStatusCode(), System.nanoTime() - start,
+                    utf8Length(json), utf8Length(content));
+        }
+        if (response.getStatusCode() >= 400) {
+            throw TogglException.forStatus(response.getStatusCode(), url, content,
+                    RetryPolicy.parseRetryAfter(response.getHeader("Retry-After")));
+        }
+        if (validators != null) {
+            validators.notModified = response.getStatusCode() == 304;
+            validators.etag = response.getHeader("ETag");
+            validators.lastModified = response.getHeader("Last-Modified");
+        }
+        return content;
     }
 
-    private RequestSpecification getClient() {
-        RestAssuredConfig config = RestAssured.config()
-                .httpClient(HttpClientConfig.httpClientConfig()
-                        .setParam(CoreConnectionPNames.CONNECTION_TIMEOUT, 15 * 1000)
-                        .setParam(CoreConnectionPNames.SO_TIMEOUT, 15 * 1000));
+    /**
+     * Path of the URL below the API or reports root without query and with ids replaced by {id}.
+     */
+    private String route(String url) {
+        String path = url;
+        if (url.startsWith(apiBase)) {
+            path = url.substring(apiBase.length());
+        } else if (url.startsWith(reportsEndpoint)) {
+            path = "reports" + url.substring(reportsEndpoint.length());
+        }
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        return ID_SEGMENT.matcher(path).replaceAll("{id}");
+    }
+
+    private Endpoint endpoint(String url) {
+        return url.startsWith(reportsEndpoint) ? Endpoint.REPORTS : Endpoint.API;
+    }
 
-        RequestSpecification result = RestAssured.given().config(config);
+    private String authorization() {
+        return "Basic " + Base64.getEncoder().encodeToString((user + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long utf8Length(String text) {
+        if (text == null) {
+            return 0;
+        }
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    <T> List<T> decodeList(String response, Function<JSONObject, T> factory, Class<T> type) {
+        List<T> result = new ArrayList<>();
+        decode(response, factory, type, result::add);
+        return result;
+    }
+
+    private <T> void decode(String response, Function<JSONObject, T> factory, Class<?> type, Consumer<? super T> sink) {
+        MetricsRecorder recorder = metrics;
+        if (recorder == MetricsRecorder.NOOP) {
+            JsonStreamDecoder.decode(new StringReader(response), null, factory, sink);
+            return;
+        }
+        int[] count = new int[1];
+        long start = System.nanoTime();
+        JsonStreamDecoder.decode(new StringReader(response), null, factory, entity -> {
+            count[0]++;
+            sink.accept(entity);
+        });
+        recorder.decoded(type.getSimpleName(), count[0], System.nanoTime() - start);
+    }
+
+    /**
+     * Elements of a reference data response, cached as JSON objects that are shared by all
+     * callers and never modified. Entities are mutable, so each call builds its own from them.
+     */
+    private List<JSONObject> reference(MetadataCache.Region region, Object key, String url, Class<?> type) {
+        return cached(region, key, () -> fetchConditional(url, response -> {
+            List<JSONObject> objects = new ArrayList<>();
+            decode(response, object -> object, type, objects::add);
+            return Collections.unmodifiableList(objects);
+        }));
+    }
+
+    private static <T> List<T> entities(List<JSONObject> objects, Function<JSONObject, T> factory) {
+        List<T> result = new ArrayList<>(objects.size());
+        for (JSONObject object : objects) {
+            result.add(factory.apply(object));
+        }
+        return result;
+    }
+
+    private <T> T cached(MetadataCache.Region region, Object key, Supplier<T> loader) {
+        MetadataCache current = cache;
+        if (current == null) {
+            return loader.get();
+        }
+        MetricsRecorder recorder = metrics;
+        if (recorder == MetricsRecorder.NOOP) {
+            return current.get(region, key, loader);
+        }
+        boolean[] loaded = new boolean[1];
+        T result = current.get(region, key, () -> {
+            loaded[0] = true;
+            return loader.get();
+        });
+        recorder.cacheAccess(region, !loaded[0]);
+        return result;
+    }
+
+    void invalidate(MetadataCache.Region region) {
+        MetadataCache current = cache;
+        if (current != null) {
+            current.invalidate(region);
+        }
+    }
+
+    private void throttle() {
+        metrics.throttled(rateLimiter.acquire());
+    }
+
+    private RequestSpecification getClient() {
+        RequestSpecification result = RestAssured.given().config(transport.getConfig());
         if (log) {
             result = result
                     .filter(new RequestLoggingFilter())
@@ -694,31 +1397,31 @@ public class JToggl {
     }
 
 
-    private JSONObject createTimeEntryRequestParameter(TimeEntry timeEntry) {
+    JSONObject createTimeEntryRequestParameter(TimeEntry timeEntry) {
         JSONObject object = new JSONObject();
         object.put("time_entry", timeEntry.toJSONObject());
         return object;
     }
 
-    private JSONObject createClientRequestParameter(ch.simas.jtoggl.Client client) {
+    JSONObject createClientRequestParameter(ch.simas.jtoggl.Client client) {
         JSONObject object = new JSONObject();
         object.put("client", client.toJSONObject());
         return object;
     }
 
-    private JSONObject createProjectRequestParameter(Project project) {
+    JSONObject createProjectRequestParameter(Project project) {
         JSONObject object = new JSONObject();
         object.put("project", project.toJSONObject());
         return object;
     }
 
-    private JSONObject createProjectUserRequestParameter(ProjectUser projectUser) {
+    JSONObject createProjectUserRequestParameter(ProjectUser projectUser) {
         JSONObject object = new JSONObject();
         object.put("project_user", projectUser.toJSONObject());
         return object;
     }
 
-    private JSONObject createTaskRequestParameter(Task task) {
+    JSONObject createTaskRequestParameter(Task task) {
         JSONObject object = new JSONObject();
         object.put("task", task.toJSONObject());
         return object;
@@ -728,8 +1431,349 @@ public class JToggl {
 		return throttlePeriod;
 	}
 
+	/**
+	 * Set the minimal period between two requests in milliseconds, 0 or less disables throttling.
+	 * This instance gets a rate limiter of its own, so it no longer shares the budget of other
+	 * instances using the same api token, and their rate is left unchanged.
+	 *
+	 * @param throttlePeriod period in milliseconds
+	 */
 	public void setThrottlePeriod(long throttlePeriod) {
 		this.throttlePeriod = throttlePeriod;
+		this.rateLimiter = new TokenBucketRateLimiter(throttlePeriod > 0 ? 1000d / throttlePeriod : 0, 1);
+	}
+
+	public RateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+
+	public MetricsRecorder getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Record request counts, latencies, throttling, decoding and cache accesses,
+	 * e.g. with {@link InMemoryMetrics} or an adapter to an external metrics system.
+	 *
+	 * @param metrics the recorder, {@link MetricsRecorder#NOOP} to record nothing
+	 */
+	public void setMetrics(MetricsRecorder metrics) {
+		this.metrics = metrics == null ? MetricsRecorder.NOOP : metrics;
+	}
+
+	public RetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+
+	/**
+	 * Replace the policy deciding which failed requests are sent again.
+	 *
+	 * @param retryPolicy the retry policy, {@link RetryPolicy#none()} to never retry
+	 */
+	public void setRetryPolicy(RetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+	}
+
+	public CircuitBreaker getCircuitBreaker(Endpoint endpoint) {
+		return circuitBreakers.get(endpoint);
+	}
+
+	/**
+	 * Replace the circuit breaker of an endpoint family.
+	 *
+	 * @param endpoint the endpoint family
+	 * @param circuitBreaker the circuit breaker, null to disable it
+	 */
+	public void setCircuitBreaker(Endpoint endpoint, CircuitBreaker circuitBreaker) {
+		if (circuitBreaker == null) {
+			circuitBreakers.remove(endpoint);
+		} else {
+			circuitBreakers.put(endpoint, circuitBreaker);
+		}
+	}
+
+	public Bulkhead getBulkhead(Endpoint endpoint) {
+		return bulkheads.get(endpoint);
+	}
+
+	/**
+	 * Replace the bulkhead of an endpoint family. By default up to 16 API calls and
+	 * 4 report calls are in flight, further calls wait up to 5 seconds for a slot.
+	 *
+	 * @param endpoint the endpoint family
+	 * @param bulkhead the bulkhead, null to disable it
+	 */
+	public void setBulkhead(Endpoint endpoint, Bulkhead bulkhead) {
+		if (bulkhead == null) {
+			bulkheads.remove(endpoint);
+		} else {
+			bulkheads.put(endpoint, bulkhead);
+		}
+	}
+
+	public HttpTransport getTransport() {
+		return transport;
+	}
+
+	/**
+	 * Use the given transport instead of the default one shared by all instances.
+	 *
+	 * @param transport the transport to send requests with
+	 */
+	public void setTransport(HttpTransport transport) {
+		this.transport = transport;
+	}
+
+	/**
+	 * Send API requests to another root, e.g. a proxy or a stub server.
+	 *
+	 * @param apiRoot root of the Toggl API without version, defaults to https://www.toggl.com/api
+	 */
+	public void setApiRoot(String apiRoot) {
+		this.apiBase = String.format("%s/v%d/", apiRoot, API_VERSION);
+	}
+
+	/**
+	 * Send report requests to another endpoint, e.g. a proxy or a stub server.
+	 *
+	 * @param reportsEndpoint reports endpoint, defaults to https://toggl.com/reports/api/v2
+	 */
+	public void setReportsEndpoint(String reportsEndpoint) {
+		this.reportsEndpoint = reportsEndpoint;
+	}
+
+	/**
+	 * @return executor for concurrent requests, a shared pool of daemon threads unless set
+	 */
+	public ExecutorService getExecutor() {
+		ExecutorService result = executor;
+		return result != null ? result : DefaultExecutor.INSTANCE;
+	}
+
+	/**
+	 * Run concurrent requests on the given executor. The executor is not shut down by JToggl.
+	 * On Java 21 an executor creating a virtual thread per task is a good fit.
+	 *
+	 * @param executor executor for concurrent requests
+	 */
+	public void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Set the maximum number of concurrent requests when fetching data of all workspaces.
+	 * Requests still pass the rate limiter, so a higher parallelism only pays off if the
+	 * rate limit allows it.
+	 *
+	 * @param parallelism maximum number of concurrent requests per call
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	public MetadataCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Cache workspaces, projects, clients, tasks and tags. Creating, updating or destroying
+	 * projects, clients or tasks through this instance invalidates the affected region.
+	 * The cache holds the undecoded JSON objects, so every call still returns entities of
+	 * its own that the caller may modify. The cache may be shared by instances using the
+	 * same api token.
+	 *
+	 * @param cache the cache to use, null to disable caching
+	 */
+	public void setCache(MetadataCache cache) {
+		this.cache = cache;
 	}
 
+	public ConditionalCache getConditionalCache() {
+		return conditionalCache;
+	}
+
+	/**
+	 * Revalidate workspaces, projects, clients, tasks and tags with the server instead of
+	 * downloading them again. Unchanged data costs a 304 response and is not parsed again;
+	 * every call still builds entities of its own from the cached JSON objects.
+	 * The cache may be shared by instances using the same api token.
+	 *
+	 * @param conditionalCache the cache to use, null to disable conditional requests
+	 */
+	public void setConditionalCache(ConditionalCache conditionalCache) {
+		this.conditionalCache = conditionalCache;
+	}
+
+	/**
+	 * Replace the rate limiter, e.g. with a {@link TokenBucketRateLimiter} allowing bursts.
+	 *
+	 * @param rateLimiter the rate limiter to use for all requests
+	 */
+	public void setRateLimiter(RateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
+    /**
+     * Validators of a cached response sent with a request, and those of its response.
+     */
+    private static class Validators {
+
+        private final ConditionalCache.Entry cached;
+        private boolean notModified;
+        private String etag;
+        private String lastModified;
+
+        Validators(ConditionalCache.Entry cached) {
+            this.cached = cached;
+        }
+    }
+
+    /**
+     * A request sent on an {@link AsyncHttpTransport}, with its attempts chained through
+     * the callbacks of the transport.
+     */
+    private class AsyncRequest {
+
+        private final AsyncHttpTransport transport;
+        private final Method method;
+        private final String url;
+        private final String json;
+        private final RetryPolicy policy = retryPolicy;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private volatile CompletableFuture<HttpResponse> pending;
+        private int attempts;
+
+        AsyncRequest(AsyncHttpTransport transport, Method method, String url, String json) {
+            this.transport = transport;
+            this.method = method;
+            this.url = url;
+            this.json = json;
+            result.whenComplete((response, failure) -> {
+                CompletableFuture<HttpResponse> current = pending;
+                if (result.isCancelled() && current != null) {
+                    current.cancel(false);
+                }
+            });
+        }
+
+        void attempt() {
+            long wait;
+            try {
+                wait = rateLimiter.reserve();
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            metrics.throttled(wait);
+            if (wait > 0) {
+                transport.schedule(this::send, wait, TimeUnit.NANOSECONDS);
+            } else {
+                send();
+            }
+        }
+
+        private void send() {
+            if (result.isDone()) {
+                return;
+            }
+            attempts++;
+            Endpoint endpoint = endpoint(url);
+            CircuitBreaker circuitBreaker = circuitBreakers.get(endpoint);
+            if (circuitBreaker != null && !circuitBreaker.tryAcquirePermission()) {
+                failed(new CallNotPermittedException("circuit breaker open for " + endpoint));
+                return;
+            }
+            RequestBuilder builder = RequestBuilder.create(method.name()).setUri(url)
+                    .setHeader("Authorization", authorization())
+                    .setHeader("Accept", ContentType.JSON.getAcceptHeader())
+                    .setHeader("Accept-Encoding", "gzip");
+            if (json != null) {
+                builder.setEntity(new StringEntity(json, org.apache.http.entity.ContentType.APPLICATION_JSON));
+            }
+            long start = System.nanoTime();
+            CompletableFuture<HttpResponse> current;
+            try {
+                current = transport.execute(builder.build());
+            } catch (RuntimeException e) {
+                // the transport has been closed
+                if (circuitBreaker != null) {
+                    circuitBreaker.onResult(System.nanoTime() - start, false);
+                }
+                result.completeExceptionally(e);
+                return;
+            }
+            pending = current;
+            current.whenComplete((response, error) -> completed(circuitBreaker, start, response, error));
+        }
+
+        private void completed(CircuitBreaker circuitBreaker, long start, HttpResponse response, Throwable error) {
+            int status = 0;
+            String content = null;
+            TogglException failure = null;
+            try {
+                if (error != null) {
+                    failure = new TogglException("request failed: " + url, error);
+                } else {
+                    status = response.getStatusLine().getStatusCode();
+                    content = read(response.getEntity());
+                    if (status >= 400) {
+                        Header retryAfter = response.getFirstHeader("Retry-After");
+                        failure = TogglException.forStatus(status, url, content,
+                                RetryPolicy.parseRetryAfter(retryAfter == null ? null : retryAfter.getValue()));
+                    }
+                }
+            } catch (IOException e) {
+                failure = new TogglException("request failed: " + url, e);
+            }
+            long nanos = System.nanoTime() - start;
+            if (circuitBreaker != null) {
+                circuitBreaker.onResult(nanos, failure instanceof ServerErrorException
+                        || failure != null && failure.getCause() instanceof IOException);
+            }
+            MetricsRecorder recorder = metrics;
+            if (recorder != MetricsRecorder.NOOP) {
+                recorder.request(method.name(), route(url), status, nanos, utf8Length(json), utf8Length(content));
+            }
+            if (failure == null) {
+                if (attempts > 1) {
+                    policy.recovered();
+                }
+                result.complete(content);
+            } else {
+                failed(failure);
+            }
+        }
+
+        private void failed(TogglException failure) {
+            long delay = retryDelay(policy, method, url, attempts, failure);
+            if (delay < 0 || result.isDone()) {
+                result.completeExceptionally(failure);
+            } else {
+                transport.schedule(this::attempt, delay, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private String read(HttpEntity entity) throws IOException {
+            if (entity == null) {
+                return "";
+            }
+            HttpEntity body = entity.getContentEncoding() != null
+                    && "gzip".equalsIgnoreCase(entity.getContentEncoding().getValue())
+                    ? new GzipDecompressingEntity(entity) : entity;
+            return EntityUtils.toString(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static class DefaultExecutor {
+        static final ExecutorService INSTANCE = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "jtoggl-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
 }
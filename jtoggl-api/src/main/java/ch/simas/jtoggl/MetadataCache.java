@@ -0,0 +1,229 @@
+package ch.simas.jtoggl;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for reference data like workspaces, projects, clients, tasks
+ * and tags. Entries expire after a time to live per region and the least recently
+ * used entry is evicted once the maximum number of entries is reached.
+ * <p>
+ * Values are loaded outside of the cache lock. A value loaded while its region was
+ * invalidated is returned to the caller but not cached, so writes through
+ * {@link JToggl} are never hidden by a concurrent read.
+ */
+public class MetadataCache {
+
+    public enum Region {
+        WORKSPACES, PROJECTS, CLIENTS, TASKS, TAGS
+    }
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+    public static final long DEFAULT_TIME_TO_LIVE = TimeUnit.MINUTES.toNanos(5);
+
+    private final int maximumSize;
+    private final Map<Region, Long> timeToLive = new EnumMap<>(Region.class);
+    private final Map<Region, Long> versions = new EnumMap<>(Region.class);
+    private final LinkedHashMap<Key, Value> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public MetadataCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * @param maximumSize maximum number of cached responses
+     */
+    public MetadataCache(int maximumSize) {
+        this.maximumSize = maximumSize;
+        for (Region region : Region.values()) {
+            timeToLive.put(region, DEFAULT_TIME_TO_LIVE);
+            versions.put(region, 0L);
+        }
+        this.entries = new LinkedHashMap<Key, Value>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Value> eldest) {
+                if (size() > MetadataCache.this.maximumSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param region region to configure
+     * @param duration time to live of the entries of the region, 0 disables caching for it
+     * @param unit unit of the duration
+     * @return this cache
+     */
+    public synchronized MetadataCache setTimeToLive(Region region, long duration, TimeUnit unit) {
+        timeToLive.put(region, unit.toNanos(duration));
+        return this;
+    }
+
+    public synchronized long getTimeToLive(Region region, TimeUnit unit) {
+        return unit.convert(timeToLive.get(region), TimeUnit.NANOSECONDS);
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Return the cached value or load and cache it.
+     *
+     * @param region region of the value
+     * @param key key within the region, e.g. the workspace id
+     * @param loader loads the value on a miss
+     * @return cached or loaded value
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(Region region, Object key, Supplier<T> loader) {
+        Key cacheKey = new Key(region, key);
+        long version;
+        synchronized (this) {
+            Value value = entries.get(cacheKey);
+            if (value != null && value.expires - System.nanoTime() > 0) {
+                hits++;
+                return (T) value.value;
+            }
+            if (value != null) {
+                entries.remove(cacheKey);
+            }
+            misses++;
+            version = versions.get(region);
+        }
+
+        T loaded = loader.get();
+
+        synchronized (this) {
+            long ttl = timeToLive.get(region);
+            if (ttl > 0 && versions.get(region) == version) {
+                entries.put(cacheKey, new Value(loaded, System.nanoTime() + ttl));
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Remove all entries of a region.
+     *
+     * @param region region to invalidate
+     */
+    public synchronized void invalidate(Region region) {
+        versions.put(region, versions.get(region) + 1);
+        for (Iterator<Key> iterator = entries.keySet().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().region == region) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public synchronized void invalidateAll() {
+        for (Region region : Region.values()) {
+            versions.put(region, versions.get(region) + 1);
+        }
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return snapshot of the hit, miss and eviction counters
+     */
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions);
+    }
+
+    /**
+     * Hit, miss and eviction counters of a {@link MetadataCache}.
+     */
+    public static class Stats {
+
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+
+        Stats(long hits, long misses, long evictions) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * @return hits divided by all requests, 0 if there were none
+         */
+        public double getHitRatio() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" + "hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + '}';
+        }
+    }
+
+    private static class Key {
+
+        private final Region region;
+        private final Object key;
+
+        Key(Region region, Object key) {
+            this.region = region;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return region == other.region && Objects.equals(key, other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * region.hashCode() + Objects.hashCode(key);
+        }
+    }
+
+    private static class Value {
+
+        private final Object value;
+        private final long expires;
+
+        Value(Object value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ch.simas.jtoggl;
+
+/**
+ * Receives measurements of the requests sent by {@link JToggl}.
+ * <p>
+ * Implement it to feed an external metrics system, or use {@link InMemoryMetrics}.
+ * Methods are called on the requesting threads and must be thread safe and cheap.
+ * All methods do nothing by default.
+ */
+public interface MetricsRecorder {
+
+    /**
+     * Records nothing.
+     */
+    MetricsRecorder NOOP = new MetricsRecorder() {
+    };
+
+    /**
+     * A request was answered or failed without response.
+     *
+     * @param method HTTP method
+     * @param endpoint path below the API or reports root with ids replaced by {id}, e.g. "workspaces/{id}/projects"
+     * @param status HTTP status, 0 if there was no response
+     * @param nanos duration of the request without throttling
+     * @param bytesSent size of the request body
+     * @param bytesDecoded size of the response body after decompression, more than was
+     *                     transferred if the server compressed it
+     */
+    default void request(String method, String endpoint, int status, long nanos, long bytesSent, long bytesDecoded) {
+    }
+
+    /**
+     * @param nanos time a request waited for the rate limiter
+     */
+    default void throttled(long nanos) {
+    }
+
+    /**
+     * @param entityType simple class name of the decoded entities
+     * @param count number of entities decoded
+     * @param nanos time spent decoding
+     */
+    default void decoded(String entityType, int count, long nanos) {
+    }
+
+    /**
+     * @param region cache region
+     * @param hit true if the value was cached
+     */
+    default void cacheAccess(MetadataCache.Region region, boolean hit) {
+    }
+
+    /**
+     * A request is sent again after a transient failure.
+     *
+     * @param method HTTP method
+     * @param endpoint normalized endpoint, see {@link #request}
+     * @param status status of the failed attempt, 0 if there was no response
+     */
+    default void retry(String method, String endpoint, int status) {
+    }
+}
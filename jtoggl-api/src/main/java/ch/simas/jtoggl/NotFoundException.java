@@ -0,0 +1,13 @@
+package ch.simas.jtoggl;
+
+/**
+ * Thrown when Toggl does not know the requested entity (status 404).
+ */
+public class NotFoundException extends TogglException {
+
+    private static final long serialVersionUID = 1L;
+
+    public NotFoundException(String message) {
+        super(message, 404, -1);
+    }
+}
@@ -21,6 +21,14 @@ public class PagedReportsParameter extends ReportsParameter {
 
     @Override
     public String toParamList() {
+        return toParamList(page);
+    }
+
+    /**
+     * @param page the page to request instead of {@link #getPage()}
+     * @return the query string for the given page
+     */
+    public String toParamList(int page) {
         return super.toParamList() + "&page=" + page;
     }
 }
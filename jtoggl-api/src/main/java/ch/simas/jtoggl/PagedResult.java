@@ -1,11 +1,12 @@
 package ch.simas.jtoggl;
 
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.JSONValue;
+import ch.simas.jtoggl.util.JsonStreamDecoder;
 
 public class PagedResult {
 
@@ -16,18 +17,20 @@ public class PagedResult {
     private List<TimeEntry> entries;
 
     public PagedResult(String jsonString) {
-        JSONObject object = (JSONObject) JSONValue.parse(jsonString);
-
-        totalCount = (Long) object.get("total_count");
-        pageSize = (Long) object.get("per_page");
+        this(new StringReader(jsonString));
+    }
 
-        JSONArray data = (JSONArray) object.get("data");
+    /**
+     * Decode a page of the detailed report in a single pass.
+     *
+     * @param reader the JSON response of the details endpoint
+     */
+    public PagedResult(Reader reader) {
         entries = new ArrayList<>();
-        if (data != null) {
-            for (Object entry : data) {
-                entries.add(new TimeEntry(((JSONObject)entry).toJSONString()));
-            }
-        }
+        Map<String, Object> fields = JsonStreamDecoder.decode(reader, "data", TimeEntry::new, entries::add);
+
+        totalCount = (Long) fields.get("total_count");
+        pageSize = (Long) fields.get("per_page");
     }
 
     public Long getTotalCount() {
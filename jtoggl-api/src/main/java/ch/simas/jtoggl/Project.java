@@ -41,7 +41,10 @@ public class Project {
     }
 
     public Project(String jsonString) {
-        JSONObject object = (JSONObject) JSONValue.parse(jsonString);
+        this((JSONObject) JSONValue.parse(jsonString));
+    }
+
+    public Project(JSONObject object) {
         this.id = (Long) object.get("id");
         this.name = (String) object.get("name");
         this.billable = (Boolean) object.get("billable");
@@ -53,7 +56,7 @@ public class Project {
 
         JSONObject workspaceObject = (JSONObject) object.get("workspace");
         if (workspaceObject != null) {
-            this.workspace = new Workspace(workspaceObject.toJSONString());
+            this.workspace = new Workspace(workspaceObject);
         }
 
     }
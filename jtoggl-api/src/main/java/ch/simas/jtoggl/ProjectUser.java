@@ -37,18 +37,21 @@ public class ProjectUser {
     }
 
     public ProjectUser(String jsonString) {
-        JSONObject object = (JSONObject) JSONValue.parse(jsonString);
+        this((JSONObject) JSONValue.parse(jsonString));
+    }
+
+    public ProjectUser(JSONObject object) {
         this.id = (Long) object.get("id");
         this.hourly_rate = (Double) object.get("rate");
         this.manager = (Boolean) object.get("manager");
 
         JSONObject projectObject = (JSONObject) object.get("project");
         if (projectObject != null) {
-            this.project = new Project(projectObject.toJSONString());
+            this.project = new Project(projectObject);
         }
         JSONObject userObject = (JSONObject) object.get("user");
         if (userObject != null) {
-            this.user = new User(userObject.toJSONString());
+            this.user = new User(userObject);
         }
     }
 
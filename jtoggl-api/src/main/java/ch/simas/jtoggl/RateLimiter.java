@@ -0,0 +1,34 @@
+package ch.simas.jtoggl;
+
+/**
+ * Limits the rate at which {@link JToggl} sends requests to Toggl.
+ * Implementations must be thread safe, since one limiter is usually shared
+ * by every thread and every {@link JToggl} instance using the same api token.
+ */
+public interface RateLimiter {
+
+    /**
+     * Blocks until the caller is allowed to send the next request.
+     *
+     * @return nanoseconds spent waiting, 0 if a permit was available immediately
+     */
+    long acquire();
+
+    /**
+     * Takes a permit if one is available right now.
+     *
+     * @return true if a permit was taken
+     */
+    boolean tryAcquire();
+
+    /**
+     * Takes a permit without blocking, for callers that schedule the request instead of
+     * waiting. The default implementation blocks in {@link #acquire()}.
+     *
+     * @return nanoseconds the caller has to wait before using the permit
+     */
+    default long reserve() {
+        acquire();
+        return 0;
+    }
+}
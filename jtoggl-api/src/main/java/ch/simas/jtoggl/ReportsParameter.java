@@ -1,8 +1,14 @@
 package ch.simas.jtoggl;
 
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+/**
+ * Query parameters of the reports API. Filters left null are not sent, so the server
+ * applies its defaults, e.g. all users and billable and non-billable entries.
+ */
 public class ReportsParameter {
 
     private final long workspaceId;
@@ -10,6 +16,17 @@ public class ReportsParameter {
     private String since;
     private String until;
     private Set<Long> projectIds;
+    private Set<Long> userIds;
+    private Set<Long> clientIds;
+    private Set<Long> tagIds;
+    private Set<Long> taskIds;
+    private Boolean billable;
+    private String description;
+    private String grouping;
+    private String subgrouping;
+    private String orderField;
+    private Boolean orderDesc;
+    private Boolean rounding;
 
     public ReportsParameter(long workspaceId, String userAgentName) {
         this.workspaceId = workspaceId;
@@ -51,18 +68,183 @@ public class ReportsParameter {
         return this;
     }
 
+    public Set<Long> getUserIds() {
+        return userIds;
+    }
+
+    public ReportsParameter setUserIds(Set<Long> userIds) {
+        this.userIds = userIds;
+        return this;
+    }
+
+    public Set<Long> getClientIds() {
+        return clientIds;
+    }
+
+    /**
+     * @param clientIds client ids, 0 for entries without client
+     * @return this parameter
+     */
+    public ReportsParameter setClientIds(Set<Long> clientIds) {
+        this.clientIds = clientIds;
+        return this;
+    }
+
+    public Set<Long> getTagIds() {
+        return tagIds;
+    }
+
+    /**
+     * @param tagIds tag ids, 0 for entries without tag
+     * @return this parameter
+     */
+    public ReportsParameter setTagIds(Set<Long> tagIds) {
+        this.tagIds = tagIds;
+        return this;
+    }
+
+    public Set<Long> getTaskIds() {
+        return taskIds;
+    }
+
+    /**
+     * @param taskIds task ids, 0 for entries without task
+     * @return this parameter
+     */
+    public ReportsParameter setTaskIds(Set<Long> taskIds) {
+        this.taskIds = taskIds;
+        return this;
+    }
+
+    public Boolean getBillable() {
+        return billable;
+    }
+
+    /**
+     * @param billable true for billable entries only, false for non-billable entries only, null for both
+     * @return this parameter
+     */
+    public ReportsParameter setBillable(Boolean billable) {
+        this.billable = billable;
+        return this;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * @param description text the entry descriptions must contain
+     * @return this parameter
+     */
+    public ReportsParameter setDescription(String description) {
+        this.description = description;
+        return this;
+    }
+
+    public String getGrouping() {
+        return grouping;
+    }
+
+    /**
+     * @param grouping e.g. "projects", "clients" or "users" for the summary report,
+     *                 "projects" or "users" for the weekly report
+     * @return this parameter
+     */
+    public ReportsParameter setGrouping(String grouping) {
+        this.grouping = grouping;
+        return this;
+    }
+
+    public String getSubgrouping() {
+        return subgrouping;
+    }
+
+    /**
+     * @param subgrouping e.g. "time_entries", "tasks" or "users" for the summary report
+     * @return this parameter
+     */
+    public ReportsParameter setSubgrouping(String subgrouping) {
+        this.subgrouping = subgrouping;
+        return this;
+    }
+
+    public String getOrderField() {
+        return orderField;
+    }
+
+    /**
+     * @param orderField e.g. "date", "description" or "duration" for the detailed report
+     * @return this parameter
+     */
+    public ReportsParameter setOrderField(String orderField) {
+        this.orderField = orderField;
+        return this;
+    }
+
+    public Boolean getOrderDesc() {
+        return orderDesc;
+    }
+
+    public ReportsParameter setOrderDesc(Boolean orderDesc) {
+        this.orderDesc = orderDesc;
+        return this;
+    }
+
+    public Boolean getRounding() {
+        return rounding;
+    }
+
+    /**
+     * @param rounding whether durations are rounded according to the workspace settings
+     * @return this parameter
+     */
+    public ReportsParameter setRounding(Boolean rounding) {
+        this.rounding = rounding;
+        return this;
+    }
+
     public String toParamList() {
         StringBuilder result = new StringBuilder();
 
         result.append("workspace_id=").append(workspaceId);
-        result.append("&user_agent=").append(userAgentName);
-        if (since != null)
-            result.append("&since=").append(since);
-        if (until != null)
-            result.append("&until=").append(until);
-        if (projectIds != null)
-            result.append("&project_ids=").append(projectIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        append(result, "user_agent", userAgentName);
+        append(result, "since", since);
+        append(result, "until", until);
+        append(result, "project_ids", projectIds);
+        append(result, "user_ids", userIds);
+        append(result, "client_ids", clientIds);
+        append(result, "tag_ids", tagIds);
+        append(result, "task_ids", taskIds);
+        if (billable != null)
+            append(result, "billable", billable ? "yes" : "no");
+        append(result, "description", description);
+        append(result, "grouping", grouping);
+        append(result, "subgrouping", subgrouping);
+        append(result, "order_field", orderField);
+        if (orderDesc != null)
+            append(result, "order_desc", orderDesc ? "on" : "off");
+        if (rounding != null)
+            append(result, "rounding", rounding ? "on" : "off");
 
         return result.toString();
     }
+
+    private static void append(StringBuilder result, String name, Set<Long> ids) {
+        if (ids != null)
+            append(result, name, ids.stream().map(String::valueOf).collect(Collectors.joining(",")));
+    }
+
+    private static void append(StringBuilder result, String name, String value) {
+        if (value != null)
+            result.append('&').append(name).append('=').append(encode(value));
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8").replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
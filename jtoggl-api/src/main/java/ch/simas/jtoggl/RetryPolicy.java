@@ -0,0 +1,184 @@
+package ch.simas.jtoggl;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether and when {@link JToggl} sends a failed request again.
+ * <p>
+ * Rate limited requests (429) are always retried since Toggl did not process them.
+ * Server errors (5xx) and requests without response are only retried for GET, PUT
+ * and DELETE; a POST may have created the entity already and is not repeated.
+ * The delay grows exponentially with random jitter, but is at least as long as a
+ * Retry-After header asks for, up to the maximum backoff.
+ */
+public class RetryPolicy {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_INITIAL_BACKOFF = TimeUnit.MILLISECONDS.toNanos(500);
+    public static final long DEFAULT_MAX_BACKOFF = TimeUnit.SECONDS.toNanos(30);
+
+    private volatile int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private volatile long initialBackoff = DEFAULT_INITIAL_BACKOFF;
+    private volatile long maxBackoff = DEFAULT_MAX_BACKOFF;
+
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong recovered = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+
+    /**
+     * @return a policy sending every request only once
+     */
+    public static RetryPolicy none() {
+        return new RetryPolicy().setMaxAttempts(1);
+    }
+
+    /**
+     * @param maxAttempts how often a request is sent at most, including the first attempt
+     * @return this policy
+     */
+    public RetryPolicy setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        return this;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @param initial delay before the first retry, doubled for every further retry
+     * @param max upper bound of the delay, also for delays asked for by Retry-After
+     * @param unit unit of the delays
+     * @return this policy
+     */
+    public RetryPolicy setBackoff(long initial, long max, TimeUnit unit) {
+        this.initialBackoff = unit.toNanos(initial);
+        this.maxBackoff = unit.toNanos(max);
+        return this;
+    }
+
+    public long getInitialBackoff(TimeUnit unit) {
+        return unit.convert(initialBackoff, TimeUnit.NANOSECONDS);
+    }
+
+    public long getMaxBackoff(TimeUnit unit) {
+        return unit.convert(maxBackoff, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param failure the error of the last attempt
+     * @param idempotent true if sending the request twice has the same effect as sending it once
+     * @return true if the error is transient and repeating the request is safe
+     */
+    public boolean isRetryable(TogglException failure, boolean idempotent) {
+        if (failure instanceof TooManyRequestsException) {
+            return true;
+        }
+        return idempotent && (failure instanceof ServerErrorException || failure.getCause() instanceof IOException);
+    }
+
+    /**
+     * @param attempt number of the failed attempt, starting at 1
+     * @param retryAfter milliseconds requested by a Retry-After header, -1 if there was none
+     * @return nanoseconds to wait before the next attempt
+     */
+    public long getDelay(int attempt, long retryAfter) {
+        long backoff = initialBackoff;
+        for (int i = 1; i < attempt && backoff < maxBackoff; i++) {
+            backoff *= 2;
+        }
+        backoff = Math.min(backoff, maxBackoff);
+        // equal jitter: half of the backoff is fixed, the other half random
+        long delay = backoff / 2 + (backoff > 1 ? ThreadLocalRandom.current().nextLong(backoff / 2 + 1) : 0);
+        return Math.min(Math.max(delay, TimeUnit.MILLISECONDS.toNanos(retryAfter)), maxBackoff);
+    }
+
+    /**
+     * @param value value of a Retry-After header, either seconds or an HTTP date
+     * @return milliseconds to wait, -1 if the value is missing or invalid
+     */
+    static long parseRetryAfter(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return -1;
+        }
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, Duration.between(Instant.now(), date).toMillis());
+            } catch (DateTimeParseException ignored) {
+                return -1;
+            }
+        }
+    }
+
+    void retried() {
+        retries.incrementAndGet();
+    }
+
+    void recovered() {
+        recovered.incrementAndGet();
+    }
+
+    void exhausted() {
+        exhausted.incrementAndGet();
+    }
+
+    /**
+     * @return snapshot of the retry counters
+     */
+    public Stats getStats() {
+        return new Stats(retries.get(), recovered.get(), exhausted.get());
+    }
+
+    /**
+     * Retry counters of a {@link RetryPolicy}.
+     */
+    public static class Stats {
+
+        private final long retries;
+        private final long recovered;
+        private final long exhausted;
+
+        Stats(long retries, long recovered, long exhausted) {
+            this.retries = retries;
+            this.recovered = recovered;
+            this.exhausted = exhausted;
+        }
+
+        /**
+         * @return number of requests sent again
+         */
+        public long getRetries() {
+            return retries;
+        }
+
+        /**
+         * @return number of requests that succeeded after at least one retry
+         */
+        public long getRecovered() {
+            return recovered;
+        }
+
+        /**
+         * @return number of requests that still failed on their last allowed attempt
+         */
+        public long getExhausted() {
+            return exhausted;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" + "retries=" + retries + ", recovered=" + recovered + ", exhausted=" + exhausted + '}';
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package ch.simas.jtoggl;
+
+/**
+ * Thrown when Toggl fails to process a request (status 5xx).
+ */
+public class ServerErrorException extends TogglException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ServerErrorException(String message, int statusCode, long retryAfter) {
+        super(message, statusCode, retryAfter);
+    }
+}
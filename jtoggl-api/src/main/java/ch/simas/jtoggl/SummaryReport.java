@@ -0,0 +1,182 @@
+package ch.simas.jtoggl;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import ch.simas.jtoggl.util.JsonStreamDecoder;
+
+/**
+ * Result of the summary report: the tracked time per group (projects by default),
+ * each broken down into sub groups (time entries by default). Times are in milliseconds.
+ */
+public class SummaryReport {
+
+    private final Long totalGrand;
+    private final Long totalBillable;
+    private final Map<String, Double> totalCurrencies;
+    private final List<Group> groups = new ArrayList<>();
+
+    public SummaryReport(String jsonString) {
+        this(new StringReader(jsonString));
+    }
+
+    /**
+     * Decode the summary report in a single pass, one group at a time.
+     *
+     * @param reader the JSON response of the summary endpoint
+     */
+    public SummaryReport(Reader reader) {
+        Map<String, Object> fields = JsonStreamDecoder.decode(reader, "data", Group::new, groups::add);
+
+        totalGrand = (Long) fields.get("total_grand");
+        totalBillable = (Long) fields.get("total_billable");
+        totalCurrencies = currencies((JSONArray) fields.get("total_currencies"));
+    }
+
+    public Long getTotalGrand() {
+        return totalGrand;
+    }
+
+    public Long getTotalBillable() {
+        return totalBillable;
+    }
+
+    /**
+     * @return earnings by currency, the currency is null for entries without rate
+     */
+    public Map<String, Double> getTotalCurrencies() {
+        return totalCurrencies;
+    }
+
+    public List<Group> getGroups() {
+        return groups;
+    }
+
+    /**
+     * @return the fields of a title object, e.g. "project", "client" and "hex_color"
+     */
+    static Map<String, String> title(JSONObject object) {
+        JSONObject title = (JSONObject) object.get("title");
+        if (title == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> result = new LinkedHashMap<>();
+        for (Object entry : title.entrySet()) {
+            Map.Entry<?, ?> field = (Map.Entry<?, ?>) entry;
+            result.put((String) field.getKey(), field.getValue() == null ? null : field.getValue().toString());
+        }
+        return result;
+    }
+
+    static Map<String, Double> currencies(JSONArray array) {
+        if (array == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (Object element : array) {
+            JSONObject currency = (JSONObject) element;
+            result.put((String) currency.get("currency"), toDouble(currency.get("amount")));
+        }
+        return result;
+    }
+
+    static Double toDouble(Object number) {
+        return number == null ? null : ((Number) number).doubleValue();
+    }
+
+    /**
+     * Time of a group, e.g. a project.
+     */
+    public static class Group {
+
+        private final Long id;
+        private final Map<String, String> title;
+        private final Long time;
+        private final Map<String, Double> totalCurrencies;
+        private final List<Item> items = new ArrayList<>();
+
+        public Group(JSONObject object) {
+            this.id = (Long) object.get("id");
+            this.title = title(object);
+            this.time = (Long) object.get("time");
+            this.totalCurrencies = currencies((JSONArray) object.get("total_currencies"));
+            JSONArray itemArray = (JSONArray) object.get("items");
+            if (itemArray != null) {
+                for (Object item : itemArray) {
+                    items.add(new Item((JSONObject) item));
+                }
+            }
+        }
+
+        /**
+         * @return id of the project, user or client, null for entries without one
+         */
+        public Long getId() {
+            return id;
+        }
+
+        public Map<String, String> getTitle() {
+            return title;
+        }
+
+        public Long getTime() {
+            return time;
+        }
+
+        public Map<String, Double> getTotalCurrencies() {
+            return totalCurrencies;
+        }
+
+        public List<Item> getItems() {
+            return items;
+        }
+    }
+
+    /**
+     * Time and earnings of a sub group, e.g. time entries with the same description.
+     */
+    public static class Item {
+
+        private final Map<String, String> title;
+        private final Long time;
+        private final String currency;
+        private final Double sum;
+        private final Double rate;
+
+        public Item(JSONObject object) {
+            this.title = title(object);
+            this.time = (Long) object.get("time");
+            this.currency = (String) object.get("cur");
+            this.sum = toDouble(object.get("sum"));
+            this.rate = toDouble(object.get("rate"));
+        }
+
+        public Map<String, String> getTitle() {
+            return title;
+        }
+
+        public Long getTime() {
+            return time;
+        }
+
+        public String getCurrency() {
+            return currency;
+        }
+
+        public Double getSum() {
+            return sum;
+        }
+
+        public Double getRate() {
+            return rate;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package ch.simas.jtoggl;
+
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Position of a {@link TimeEntrySync} for one workspace and user: the time up to
+ * which entries have been pulled, the time of the last reconciliation and a
+ * fingerprint of every known entry to tell updated entries from unchanged ones.
+ */
+public class SyncState {
+
+    private OffsetDateTime highWaterMark;
+    private OffsetDateTime lastReconciliation;
+    private final Map<Long, Known> entries = new HashMap<>();
+
+    /**
+     * @return time up to which entries have been pulled, null before the first sync
+     */
+    public OffsetDateTime getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    public void setHighWaterMark(OffsetDateTime highWaterMark) {
+        this.highWaterMark = highWaterMark;
+    }
+
+    /**
+     * @return time of the last reconciliation, null if there was none yet
+     */
+    public OffsetDateTime getLastReconciliation() {
+        return lastReconciliation;
+    }
+
+    public void setLastReconciliation(OffsetDateTime lastReconciliation) {
+        this.lastReconciliation = lastReconciliation;
+    }
+
+    /**
+     * @return ids of the known entries
+     */
+    public Set<Long> getIds() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    /**
+     * @param id time entry id
+     * @param start start of the entry in epoch seconds
+     * @param fingerprint hash of the synced fields
+     * @param running true if the entry has not been stopped yet
+     */
+    public void put(long id, long start, long fingerprint, boolean running) {
+        entries.put(id, new Known(start, fingerprint, running));
+    }
+
+    public boolean contains(long id) {
+        return entries.containsKey(id);
+    }
+
+    /**
+     * @param id time entry id
+     * @return start of the entry in epoch seconds
+     * @throws IllegalArgumentException if the entry is not known
+     */
+    public long getStart(long id) {
+        return known(id).start;
+    }
+
+    /**
+     * @param id time entry id
+     * @return hash of the synced fields
+     * @throws IllegalArgumentException if the entry is not known
+     */
+    public long getFingerprint(long id) {
+        return known(id).fingerprint;
+    }
+
+    /**
+     * @param id time entry id
+     * @return true if the entry was running when it was last seen
+     * @throws IllegalArgumentException if the entry is not known
+     */
+    public boolean isRunning(long id) {
+        return known(id).running;
+    }
+
+    public void remove(long id) {
+        entries.remove(id);
+    }
+
+    private Known known(long id) {
+        Known known = entries.get(id);
+        if (known == null) {
+            throw new IllegalArgumentException("unknown time entry " + id);
+        }
+        return known;
+    }
+
+    private static class Known {
+
+        private final long start;
+        private final long fingerprint;
+        private final boolean running;
+
+        Known(long start, long fingerprint, boolean running) {
+            this.start = start;
+            this.fingerprint = fingerprint;
+            this.running = running;
+        }
+    }
+}
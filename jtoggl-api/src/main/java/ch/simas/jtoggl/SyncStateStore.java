@@ -0,0 +1,24 @@
+package ch.simas.jtoggl;
+
+/**
+ * Persists the {@link SyncState} of a {@link TimeEntrySync} between runs.
+ * Use {@link FileSyncStateStore} or implement it to keep the state next to the synced data.
+ */
+public interface SyncStateStore {
+
+    /**
+     * @param workspaceId workspace id
+     * @param userId user id
+     * @return the saved state, an empty state if none was saved yet
+     */
+    SyncState load(long workspaceId, long userId);
+
+    /**
+     * Replace the saved state.
+     *
+     * @param workspaceId workspace id
+     * @param userId user id
+     * @param state state to save
+     */
+    void save(long workspaceId, long userId, SyncState state);
+}
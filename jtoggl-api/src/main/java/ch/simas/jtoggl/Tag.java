@@ -36,13 +36,16 @@ public class Tag {
     }
 
     public Tag(String jsonString) {
-        JSONObject object = (JSONObject) JSONValue.parse(jsonString);
+        this((JSONObject) JSONValue.parse(jsonString));
+    }
+
+    public Tag(JSONObject object) {
         this.id = (Long) object.get("id");
         this.name = (String) object.get("name");
 
         JSONObject workspaceObject = (JSONObject) object.get("workspace");
         if (workspaceObject != null) {
-            this.workspace = new Workspace(workspaceObject.toJSONString());
+            this.workspace = new Workspace(workspaceObject);
         }
     }
 
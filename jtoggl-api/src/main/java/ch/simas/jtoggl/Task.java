@@ -38,7 +38,10 @@ public class Task {
     }
 
     public Task(String jsonString) {
-        JSONObject object = (JSONObject) JSONValue.parse(jsonString);
+        this((JSONObject) JSONValue.parse(jsonString));
+    }
+
+    public Task(JSONObject object) {
         this.id = (Long) object.get("id");
         this.name = (String) object.get("name");
         this.estimated_seconds = (Long) object.get("estimated_seconds");
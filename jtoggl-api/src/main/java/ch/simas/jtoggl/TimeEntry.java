@@ -48,12 +48,17 @@ public class TimeEntry {
 	private Long wid;
 	private Long tid;
     private Long uid;
+    private Task task;
+    private User user;
 
     public TimeEntry() {
     }
 
     public TimeEntry(String jsonString) {
-        JSONObject object = (JSONObject) JSONValue.parse(jsonString);
+        this((JSONObject) JSONValue.parse(jsonString));
+    }
+
+    public TimeEntry(JSONObject object) {
         this.id = (Long) object.get("id");
         this.description = (String) object.get("description");
         this.start = DateUtil.convertStringToOffsetDate((String) object.get("start"));
@@ -81,13 +86,13 @@ public class TimeEntry {
 
         JSONObject workspaceObject = (JSONObject) object.get("workspace");
         if (workspaceObject != null) {
-            this.workspace = new Workspace(workspaceObject.toJSONString());
+            this.workspace = new Workspace(workspaceObject);
         }
 
         Object project = object.get("project");
         if (project instanceof JSONObject) {
             JSONObject projectObject = (JSONObject) project;
-            this.project = new Project(projectObject.toJSONString());
+            this.project = new Project(projectObject);
         } else if (project instanceof String) {
             this.project = new Project();
             this.project.setName((String) project);
@@ -229,6 +234,24 @@ public class TimeEntry {
         return this;
     }
 
+    public Task getTask() {
+        return task;
+    }
+
+    public void setTask(Task task) {
+        this.task = task;
+        this.tid = task.getId();
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+        this.uid = user.getId();
+    }
+
     public JSONObject toJSONObject() {
         JSONObject object = new JSONObject();
         if (billable != null) {
@@ -0,0 +1,211 @@
+package ch.simas.jtoggl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link TimeEntryStats} per group of a {@link TimeEntryAggregator}, and of all entries.
+ * Entries are added one by one and not kept. An aggregation is not thread safe: use one
+ * per thread and {@link #merge(TimeEntryAggregation)} them.
+ */
+public class TimeEntryAggregation {
+
+    private final TimeEntryAggregator aggregator;
+    private final TimeEntryAggregator.GroupBy[] dimensions;
+    private final int tagIndex;
+    private final Map<Key, TimeEntryStats> groups = new HashMap<>();
+    private final TimeEntryStats total = new TimeEntryStats();
+    private long skipped;
+
+    TimeEntryAggregation(TimeEntryAggregator aggregator) {
+        this.aggregator = aggregator;
+        this.dimensions = aggregator.getDimensions();
+        this.tagIndex = Arrays.asList(dimensions).indexOf(TimeEntryAggregator.GroupBy.TAG);
+    }
+
+    /**
+     * @param entry entry to add to its groups
+     * @return this aggregation
+     */
+    public TimeEntryAggregation add(TimeEntry entry) {
+        Long duration = entry.getDuration();
+        if (duration == null || duration < 0) {
+            skipped++;
+            return this;
+        }
+        boolean billable = Boolean.TRUE.equals(entry.isBillable());
+        total.add(duration, billable);
+        if (dimensions.length == 0) {
+            return this;
+        }
+        Object[] values = new Object[dimensions.length];
+        for (int i = 0; i < dimensions.length; i++) {
+            if (i != tagIndex) {
+                values[i] = aggregator.value(dimensions[i], entry);
+            }
+        }
+        if (tagIndex < 0 || entry.getTag_names() == null || entry.getTag_names().isEmpty()) {
+            group(values).add(duration, billable);
+        } else {
+            List<String> tags = entry.getTag_names();
+            for (int i = 0; i < tags.size(); i++) {
+                if (tags.indexOf(tags.get(i)) == i) {
+                    Object[] tagged = values.clone();
+                    tagged[tagIndex] = tags.get(i);
+                    group(tagged).add(duration, billable);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @param columns rows, e.g. a {@link TimeEntryBlock}
+     * @param row row to add to its groups
+     * @return this aggregation
+     */
+    public TimeEntryAggregation add(TimeEntryColumns columns, int row) {
+        long duration = columns.getDuration(row);
+        if (duration == TimeEntryColumns.NULL || duration < 0) {
+            skipped++;
+            return this;
+        }
+        boolean billable = columns.isBillable(row);
+        total.add(duration, billable);
+        if (dimensions.length == 0) {
+            return this;
+        }
+        Object[] values = new Object[dimensions.length];
+        for (int i = 0; i < dimensions.length; i++) {
+            if (i != tagIndex) {
+                values[i] = aggregator.value(dimensions[i], columns, row);
+            }
+        }
+        int tags = tagIndex < 0 ? 0 : columns.getTagCount(row);
+        if (tags == 0) {
+            group(values).add(duration, billable);
+        } else {
+            for (int i = 0; i < tags; i++) {
+                if (!isRepeatedTag(columns, row, i)) {
+                    Object[] tagged = values.clone();
+                    tagged[tagIndex] = columns.getTag(row, i);
+                    group(tagged).add(duration, billable);
+                }
+            }
+        }
+        return this;
+    }
+
+    private static boolean isRepeatedTag(TimeEntryColumns columns, int row, int index) {
+        int code = columns.getTagCode(row, index);
+        for (int i = 0; i < index; i++) {
+            if (columns.getTagCode(row, i) == code) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private TimeEntryStats group(Object[] values) {
+        return groups.computeIfAbsent(new Key(values), key -> new TimeEntryStats());
+    }
+
+    /**
+     * @param other aggregation of the same aggregator to add to this one
+     * @return this aggregation
+     */
+    public TimeEntryAggregation merge(TimeEntryAggregation other) {
+        for (Map.Entry<Key, TimeEntryStats> group : other.groups.entrySet()) {
+            groups.computeIfAbsent(group.getKey(), key -> new TimeEntryStats()).merge(group.getValue());
+        }
+        total.merge(other.total);
+        skipped += other.skipped;
+        return this;
+    }
+
+    /**
+     * @return dimensions of the key values
+     */
+    public List<TimeEntryAggregator.GroupBy> getDimensions() {
+        return Collections.unmodifiableList(Arrays.asList(dimensions));
+    }
+
+    /**
+     * @return stats by group key
+     */
+    public Map<Key, TimeEntryStats> getGroups() {
+        return Collections.unmodifiableMap(groups);
+    }
+
+    /**
+     * @param values key values in the order of the dimensions: ids as Long, tags as String,
+     *               days and first days of weeks as LocalDate, null for missing values
+     * @return stats of the group, null if no entry fell into it
+     */
+    public TimeEntryStats get(Object... values) {
+        return groups.get(new Key(values));
+    }
+
+    /**
+     * @return stats of all added entries, counting entries with several tags once
+     */
+    public TimeEntryStats getTotal() {
+        return total;
+    }
+
+    /**
+     * @return number of running entries and entries without duration
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder().append(getDimensions()).append(": ").append(total);
+        for (Map.Entry<Key, TimeEntryStats> group : groups.entrySet()) {
+            result.append('\n').append(group.getKey()).append(": ").append(group.getValue());
+        }
+        return result.toString();
+    }
+
+    /**
+     * Values of a group in the order of the dimensions.
+     */
+    public static final class Key {
+
+        private final Object[] values;
+        private final int hash;
+
+        Key(Object[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        public Object get(int index) {
+            return values[index];
+        }
+
+        public List<Object> getValues() {
+            return Collections.unmodifiableList(Arrays.asList(values));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && Arrays.equals(values, ((Key) obj).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(values);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package ch.simas.jtoggl;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+
+/**
+ * Groups time entries by project, client, workspace, user, task, tag, day or week and
+ * sums up their durations per group.
+ * <p>
+ * Large collections are aggregated on parallel streams, each thread filling its own
+ * {@link TimeEntryAggregation} which are merged at the end. To aggregate report pages
+ * as they arrive without keeping the entries, add them to a single aggregation:
+ * <pre>
+ * TimeEntryAggregation aggregation = aggregator.newAggregation();
+ * jToggl.iterateDetailedReport(parameters).forEachRemaining(aggregation::add);
+ * </pre>
+ * An entry with several tags is counted in the group of every tag, untagged entries in
+ * the group of the null tag. Running entries and entries without duration are skipped.
+ */
+public class TimeEntryAggregator {
+
+    public enum GroupBy {
+        PROJECT, CLIENT, WORKSPACE, USER, TASK, TAG, DAY, WEEK
+    }
+
+    private final GroupBy[] dimensions;
+    private ZoneId zone = ZoneOffset.UTC;
+    private DayOfWeek firstDayOfWeek = DayOfWeek.MONDAY;
+    private Map<Long, Long> projectClients = Collections.emptyMap();
+
+    /**
+     * @param dimensions dimensions of the group keys, in the order of the key values;
+     *                   none to compute the total only
+     */
+    public TimeEntryAggregator(GroupBy... dimensions) {
+        if (Arrays.stream(dimensions).distinct().count() != dimensions.length) {
+            throw new IllegalArgumentException("duplicate dimension in " + Arrays.toString(dimensions));
+        }
+        this.dimensions = dimensions.clone();
+    }
+
+    /**
+     * @param zone time zone days and weeks are computed in, UTC by default
+     * @return this aggregator
+     */
+    public TimeEntryAggregator setZone(ZoneId zone) {
+        this.zone = zone;
+        return this;
+    }
+
+    /**
+     * @param firstDayOfWeek day weeks start on, Monday by default
+     * @return this aggregator
+     */
+    public TimeEntryAggregator setFirstDayOfWeek(DayOfWeek firstDayOfWeek) {
+        this.firstDayOfWeek = firstDayOfWeek;
+        return this;
+    }
+
+    /**
+     * Client ids of entries whose project has no client set, e.g. report entries
+     * or {@link TimeEntryColumns}, which only carry the project id.
+     *
+     * @param projectClients client id by project id
+     * @return this aggregator
+     */
+    public TimeEntryAggregator setProjectClients(Map<Long, Long> projectClients) {
+        this.projectClients = new HashMap<>(projectClients);
+        return this;
+    }
+
+    GroupBy[] getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * @return empty aggregation to add entries to
+     */
+    public TimeEntryAggregation newAggregation() {
+        return new TimeEntryAggregation(this);
+    }
+
+    /**
+     * @param entries entries to aggregate on a parallel stream
+     * @return the aggregation
+     */
+    public TimeEntryAggregation aggregate(Collection<TimeEntry> entries) {
+        return entries.parallelStream().collect(collector());
+    }
+
+    /**
+     * @param columns rows to aggregate on a parallel stream
+     * @return the aggregation
+     */
+    public TimeEntryAggregation aggregate(TimeEntryColumns columns) {
+        return IntStream.range(0, columns.size()).parallel().collect(this::newAggregation,
+                (aggregation, row) -> aggregation.add(columns, row), TimeEntryAggregation::merge);
+    }
+
+    /**
+     * @return collector aggregating a stream of entries
+     */
+    public Collector<TimeEntry, TimeEntryAggregation, TimeEntryAggregation> collector() {
+        return Collector.of(this::newAggregation, TimeEntryAggregation::add, TimeEntryAggregation::merge,
+                Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    Object value(GroupBy dimension, TimeEntry entry) {
+        switch (dimension) {
+            case PROJECT:
+                return projectId(entry);
+            case CLIENT:
+                if (entry.getProject() != null && entry.getProject().getCid() != null) {
+                    return entry.getProject().getCid();
+                }
+                return projectClients.get(projectId(entry));
+            case WORKSPACE:
+                return entry.getWid() != null || entry.getWorkspace() == null ? entry.getWid() : entry.getWorkspace().getId();
+            case USER:
+                return entry.getUid() != null || entry.getUser() == null ? entry.getUid() : entry.getUser().getId();
+            case TASK:
+                return entry.getTid() != null || entry.getTask() == null ? entry.getTid() : entry.getTask().getId();
+            case DAY:
+                return day(entry.getStart());
+            case WEEK:
+                return week(day(entry.getStart()));
+            default:
+                throw new IllegalArgumentException("no single value for " + dimension);
+        }
+    }
+
+    Object value(GroupBy dimension, TimeEntryColumns columns, int row) {
+        switch (dimension) {
+            case PROJECT:
+                return TimeEntryBlock.toLong(columns.getProjectId(row));
+            case CLIENT:
+                return projectClients.get(TimeEntryBlock.toLong(columns.getProjectId(row)));
+            case WORKSPACE:
+                return TimeEntryBlock.toLong(columns.getWorkspaceId(row));
+            case USER:
+                return TimeEntryBlock.toLong(columns.getUserId(row));
+            case TASK:
+                return TimeEntryBlock.toLong(columns.getTaskId(row));
+            case DAY:
+                return day(TimeEntryBlock.toDateTime(columns.getStart(row)));
+            case WEEK:
+                return week(day(TimeEntryBlock.toDateTime(columns.getStart(row))));
+            default:
+                throw new IllegalArgumentException("no single value for " + dimension);
+        }
+    }
+
+    private static Long projectId(TimeEntry entry) {
+        return entry.getPid() != null || entry.getProject() == null ? entry.getPid() : entry.getProject().getId();
+    }
+
+    private LocalDate day(OffsetDateTime start) {
+        return start == null ? null : LocalDate.from(start.atZoneSameInstant(zone));
+    }
+
+    private LocalDate week(LocalDate day) {
+        return day == null ? null : day.with(TemporalAdjusters.previousOrSame(firstDayOfWeek));
+    }
+}
@@ -0,0 +1,271 @@
+package ch.simas.jtoggl;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import ch.simas.jtoggl.util.StringDictionary;
+
+/**
+ * Growable in-memory {@link TimeEntryColumns}, to hold large report pulls for analysis.
+ * <p>
+ * An entry takes about 75 bytes plus 4 per tag: eight longs, a description code, a tag
+ * offset and two bits. Descriptions and tags are interned in the block's dictionary.
+ * Nested projects, workspaces, tasks and users are not kept, only their ids.
+ * A block is not thread safe while entries are added.
+ */
+public class TimeEntryBlock implements TimeEntryColumns {
+
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private final StringDictionary dictionary = new StringDictionary();
+    private int size;
+    private long[] ids;
+    private long[] projectIds;
+    private long[] workspaceIds;
+    private long[] taskIds;
+    private long[] userIds;
+    private long[] starts;
+    private long[] stops;
+    private long[] durations;
+    private long[] billable;
+    private long[] duronly;
+    private int[] descriptions;
+    private int[] tagOffsets;
+    private int[] tagCodes;
+    private int tags;
+
+    public TimeEntryBlock() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity number of entries to allocate space for
+     */
+    public TimeEntryBlock(int capacity) {
+        allocate(Math.max(1, capacity));
+        tagCodes = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * @param entries entries to add
+     * @return block of the entries, in their order
+     */
+    public static TimeEntryBlock of(Collection<TimeEntry> entries) {
+        TimeEntryBlock block = new TimeEntryBlock(entries.size());
+        block.addAll(entries.iterator());
+        return block;
+    }
+
+    private void allocate(int capacity) {
+        ids = grow(ids, capacity);
+        projectIds = grow(projectIds, capacity);
+        workspaceIds = grow(workspaceIds, capacity);
+        taskIds = grow(taskIds, capacity);
+        userIds = grow(userIds, capacity);
+        starts = grow(starts, capacity);
+        stops = grow(stops, capacity);
+        durations = grow(durations, capacity);
+        billable = grow(billable, (capacity + 63) >>> 6);
+        duronly = grow(duronly, (capacity + 63) >>> 6);
+        descriptions = descriptions == null ? new int[capacity] : Arrays.copyOf(descriptions, capacity);
+        tagOffsets = tagOffsets == null ? new int[capacity + 1] : Arrays.copyOf(tagOffsets, capacity + 1);
+    }
+
+    private static long[] grow(long[] array, int length) {
+        return array == null ? new long[length] : Arrays.copyOf(array, length);
+    }
+
+    /**
+     * @param entry entry to add
+     * @return row of the entry
+     */
+    public int add(TimeEntry entry) {
+        if (size == ids.length) {
+            allocate(size * 2);
+        }
+        int row = size;
+        ids[row] = orNull(entry.getId());
+        projectIds[row] = orNull(entry.getPid());
+        workspaceIds[row] = orNull(entry.getWid());
+        taskIds[row] = orNull(entry.getTid());
+        userIds[row] = orNull(entry.getUid());
+        starts[row] = entry.getStart() == null ? NULL : entry.getStart().toEpochSecond();
+        stops[row] = entry.getStop() == null ? NULL : entry.getStop().toEpochSecond();
+        durations[row] = orNull(entry.getDuration());
+        if (Boolean.TRUE.equals(entry.isBillable())) {
+            billable[row >>> 6] |= 1L << row;
+        }
+        if (Boolean.TRUE.equals(entry.getDuronly())) {
+            duronly[row >>> 6] |= 1L << row;
+        }
+        descriptions[row] = dictionary.add(entry.getDescription());
+        if (entry.getTag_names() != null) {
+            for (String tag : entry.getTag_names()) {
+                if (tags == tagCodes.length) {
+                    tagCodes = Arrays.copyOf(tagCodes, tags * 2);
+                }
+                tagCodes[tags++] = dictionary.add(tag);
+            }
+        }
+        tagOffsets[row + 1] = tags;
+        size++;
+        return row;
+    }
+
+    /**
+     * @param entries entries to add, e.g. of {@link JToggl#iterateDetailedReport(PagedReportsParameter)}
+     * @return this block
+     */
+    public TimeEntryBlock addAll(Iterator<TimeEntry> entries) {
+        while (entries.hasNext()) {
+            add(entries.next());
+        }
+        return this;
+    }
+
+    /**
+     * Release the space allocated beyond the current size.
+     *
+     * @return this block
+     */
+    public TimeEntryBlock trimToSize() {
+        int capacity = Math.max(1, size);
+        if (capacity < ids.length) {
+            ids = Arrays.copyOf(ids, capacity);
+            projectIds = Arrays.copyOf(projectIds, capacity);
+            workspaceIds = Arrays.copyOf(workspaceIds, capacity);
+            taskIds = Arrays.copyOf(taskIds, capacity);
+            userIds = Arrays.copyOf(userIds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            stops = Arrays.copyOf(stops, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+            billable = Arrays.copyOf(billable, (capacity + 63) >>> 6);
+            duronly = Arrays.copyOf(duronly, (capacity + 63) >>> 6);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+            tagOffsets = Arrays.copyOf(tagOffsets, capacity + 1);
+        }
+        tagCodes = Arrays.copyOf(tagCodes, Math.max(1, tags));
+        return this;
+    }
+
+    /**
+     * @return all rows as time entries
+     */
+    public List<TimeEntry> toTimeEntries() {
+        List<TimeEntry> result = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            result.add(toTimeEntry(row));
+        }
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long getId(int row) {
+        return ids[check(row)];
+    }
+
+    @Override
+    public long getProjectId(int row) {
+        return projectIds[check(row)];
+    }
+
+    @Override
+    public long getWorkspaceId(int row) {
+        return workspaceIds[check(row)];
+    }
+
+    @Override
+    public long getTaskId(int row) {
+        return taskIds[check(row)];
+    }
+
+    @Override
+    public long getUserId(int row) {
+        return userIds[check(row)];
+    }
+
+    @Override
+    public long getStart(int row) {
+        return starts[check(row)];
+    }
+
+    @Override
+    public long getStop(int row) {
+        return stops[check(row)];
+    }
+
+    @Override
+    public long getDuration(int row) {
+        return durations[check(row)];
+    }
+
+    @Override
+    public boolean isBillable(int row) {
+        return (billable[check(row) >>> 6] & 1L << row) != 0;
+    }
+
+    @Override
+    public boolean isDuronly(int row) {
+        return (duronly[check(row) >>> 6] & 1L << row) != 0;
+    }
+
+    @Override
+    public int getDescriptionCode(int row) {
+        return descriptions[check(row)];
+    }
+
+    @Override
+    public int getTagCount(int row) {
+        return tagOffsets[check(row) + 1] - tagOffsets[row];
+    }
+
+    @Override
+    public int getTagCode(int row, int index) {
+        return tagCodes[tagOffsets[check(row)] + index];
+    }
+
+    @Override
+    public boolean hasTag(int row, int code) {
+        for (int i = tagOffsets[check(row)], end = tagOffsets[row + 1]; i < end; i++) {
+            if (tagCodes[i] == code) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    private int check(int row) {
+        if (row >= size) {
+            throw new IndexOutOfBoundsException("row " + row + " of " + size);
+        }
+        return row;
+    }
+
+    private static long orNull(Long value) {
+        return value == null ? NULL : value;
+    }
+
+    static Long toLong(long value) {
+        return value == NULL ? null : value;
+    }
+
+    static OffsetDateTime toDateTime(long epochSecond) {
+        return epochSecond == NULL ? null : OffsetDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,42 @@
+package ch.simas.jtoggl;
+
+/**
+ * A time entry that was created, updated or deleted since the previous
+ * {@link TimeEntrySync#sync()}.
+ */
+public class TimeEntryChange {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+    private final long id;
+    private final TimeEntry entry;
+
+    TimeEntryChange(Type type, long id, TimeEntry entry) {
+        this.type = type;
+        this.id = id;
+        this.entry = entry;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return the time entry as returned by Toggl, null if it was deleted
+     */
+    public TimeEntry getEntry() {
+        return entry;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + id;
+    }
+}
@@ -0,0 +1,124 @@
+package ch.simas.jtoggl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ch.simas.jtoggl.util.StringDictionary;
+
+/**
+ * Time entries stored column by column and read by row index, without a {@link TimeEntry}
+ * object per entry. Ids, times and durations are primitive longs with {@link #NULL} for
+ * missing values, times in epoch seconds; descriptions and tags are codes of
+ * {@link #getDictionary()}.
+ */
+public interface TimeEntryColumns {
+
+    /**
+     * Value of a missing id, time or duration.
+     */
+    long NULL = Long.MIN_VALUE;
+
+    /**
+     * @return number of rows
+     */
+    int size();
+
+    long getId(int row);
+
+    long getProjectId(int row);
+
+    long getWorkspaceId(int row);
+
+    long getTaskId(int row);
+
+    long getUserId(int row);
+
+    /**
+     * @param row row index
+     * @return start in epoch seconds, {@link #NULL} if missing
+     */
+    long getStart(int row);
+
+    /**
+     * @param row row index
+     * @return stop in epoch seconds, {@link #NULL} if missing
+     */
+    long getStop(int row);
+
+    /**
+     * @param row row index
+     * @return duration in seconds, negative for a running entry, {@link #NULL} if missing
+     */
+    long getDuration(int row);
+
+    boolean isBillable(int row);
+
+    boolean isDuronly(int row);
+
+    /**
+     * @param row row index
+     * @return dictionary code of the description, {@link StringDictionary#NULL} if missing
+     */
+    int getDescriptionCode(int row);
+
+    default String getDescription(int row) {
+        return getDictionary().get(getDescriptionCode(row));
+    }
+
+    int getTagCount(int row);
+
+    /**
+     * @param row row index
+     * @param index index of the tag within the row
+     * @return dictionary code of the tag
+     */
+    int getTagCode(int row, int index);
+
+    default String getTag(int row, int index) {
+        return getDictionary().get(getTagCode(row, index));
+    }
+
+    /**
+     * @param row row index
+     * @param code dictionary code of a tag
+     * @return true if the row is tagged with it
+     */
+    default boolean hasTag(int row, int code) {
+        for (int i = 0, count = getTagCount(row); i < count; i++) {
+            if (getTagCode(row, i) == code) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return dictionary of descriptions and tags
+     */
+    StringDictionary getDictionary();
+
+    /**
+     * @param row row index
+     * @return the row as time entry, with start and stop in UTC
+     */
+    default TimeEntry toTimeEntry(int row) {
+        TimeEntry entry = new TimeEntry();
+        entry.setId(TimeEntryBlock.toLong(getId(row)));
+        entry.setPid(TimeEntryBlock.toLong(getProjectId(row)));
+        entry.setWid(TimeEntryBlock.toLong(getWorkspaceId(row)));
+        entry.setTid(TimeEntryBlock.toLong(getTaskId(row)));
+        entry.setUid(TimeEntryBlock.toLong(getUserId(row)));
+        entry.setStart(TimeEntryBlock.toDateTime(getStart(row)));
+        entry.setStop(TimeEntryBlock.toDateTime(getStop(row)));
+        entry.setDuration(TimeEntryBlock.toLong(getDuration(row)));
+        entry.setBillable(isBillable(row));
+        entry.setDuronly(isDuronly(row));
+        entry.setDescription(getDescription(row));
+        List<String> tags = new ArrayList<>(getTagCount(row));
+        for (int i = 0; i < getTagCount(row); i++) {
+            tags.add(getTag(row, i));
+        }
+        entry.setTag_names(tags);
+        return entry;
+    }
+}
@@ -0,0 +1,207 @@
+package ch.simas.jtoggl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Resolves the {@code pid}, {@code wid}, {@code tid} and {@code uid} references of
+ * many time entries with a handful of requests and wires the object graph:
+ * entries get their {@link Project}, {@link Workspace}, {@link Task} and {@link User},
+ * projects get their {@link Workspace} and {@link Client}.
+ * <p>
+ * Projects, clients, tasks and users are fetched per workspace, one request per kind
+ * and workspace. The requests of each kind run concurrently through {@link JToggl}'s
+ * fan-out, which is started from the calling thread, so a small executor cannot end
+ * up with all of its threads waiting for requests queued behind them. Only
+ * projects and tasks missing from these lists, e.g. archived ones, are fetched one by
+ * one. Entries without a workspace id, like those of the detailed report, are matched
+ * against all workspaces of the user.
+ */
+public class TimeEntryHydrator {
+
+    private final JToggl jToggl;
+
+    public TimeEntryHydrator(JToggl jToggl) {
+        this.jToggl = jToggl;
+    }
+
+    /**
+     * @param entries time entries to hydrate in place
+     * @return ids that could not be resolved and failed requests
+     */
+    public Result hydrate(Collection<TimeEntry> entries) {
+        Set<Long> pids = new HashSet<>();
+        Set<Long> tids = new HashSet<>();
+        Set<Long> uids = new HashSet<>();
+        Set<Long> wids = new HashSet<>();
+        boolean unknownWorkspace = false;
+        for (TimeEntry entry : entries) {
+            addIfPresent(pids, entry.getPid());
+            addIfPresent(tids, entry.getTid());
+            addIfPresent(uids, entry.getUid());
+            if (entry.getWid() == null) {
+                unknownWorkspace = true;
+            } else {
+                wids.add(entry.getWid());
+            }
+        }
+
+        Result result = new Result();
+        Map<Long, Workspace> workspaces = jToggl.getWorkspaces();
+        if (unknownWorkspace) {
+            wids.addAll(workspaces.keySet());
+        }
+
+        Map<Long, List<Project>> projectLists = perWorkspace(wids, !pids.isEmpty(), jToggl::getWorkspaceProjects, result);
+        Map<Long, List<Client>> clientLists = perWorkspace(wids, !pids.isEmpty(), jToggl::getWorkspaceClients, result);
+        Map<Long, List<Task>> taskLists = perWorkspace(wids, !tids.isEmpty(), jToggl::getActiveWorkspaceTasks, result);
+        Map<Long, List<User>> userLists = perWorkspace(wids, !uids.isEmpty(), jToggl::getWorkspaceUsers, result);
+
+        Map<Long, Project> projects = new HashMap<>();
+        for (Map.Entry<Long, List<Project>> workspaceProjects : projectLists.entrySet()) {
+            for (Project project : workspaceProjects.getValue()) {
+                if (project.getWorkspace() == null) {
+                    project.setWorkspace(workspaces.get(workspaceProjects.getKey()));
+                }
+                projects.put(project.getId(), project);
+            }
+        }
+        Map<Long, Client> clients = index(clientLists, Client::getId);
+        Map<Long, Task> tasks = index(taskLists, Task::getId);
+        Map<Long, User> users = index(userLists, User::getId);
+
+        fetchMissing(pids, projects, jToggl::getProject, result);
+        fetchMissing(tids, tasks, jToggl::getTask, result);
+
+        for (Project project : projects.values()) {
+            if (project.getCid() != null && project.getClient() == null) {
+                project.setClient(clients.get(project.getCid()));
+            }
+        }
+        for (TimeEntry entry : entries) {
+            Workspace workspace = entry.getWid() == null ? null : workspaces.get(entry.getWid());
+            if (workspace != null) {
+                entry.setWorkspace(workspace);
+            }
+            Project project = entry.getPid() == null ? null : projects.get(entry.getPid());
+            if (project != null) {
+                if (project.getWorkspace() == null) {
+                    project.setWorkspace(workspace);
+                }
+                entry.setProject(project);
+            }
+            Task task = entry.getTid() == null ? null : tasks.get(entry.getTid());
+            if (task != null) {
+                entry.setTask(task);
+            }
+            User user = entry.getUid() == null ? null : users.get(entry.getUid());
+            if (user != null) {
+                entry.setUser(user);
+            }
+        }
+
+        result.unresolvedProjectIds.addAll(missing(pids, projects));
+        result.unresolvedTaskIds.addAll(missing(tids, tasks));
+        result.unresolvedUserIds.addAll(missing(uids, users));
+        return result;
+    }
+
+    private <T> Map<Long, List<T>> perWorkspace(Set<Long> wids, boolean needed, Function<Long, List<T>> request,
+                                                Result result) {
+        if (!needed || wids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        FanOutResult<Map<Long, List<T>>> fanOut = jToggl.fanOut(wids, request);
+        result.addFailures(fanOut.getFailures().values());
+        return fanOut.getResult();
+    }
+
+    private <T> void fetchMissing(Set<Long> ids, Map<Long, T> resolved, Function<Long, T> request, Result result) {
+        Set<Long> missing = missing(ids, resolved);
+        if (missing.isEmpty()) {
+            return;
+        }
+        FanOutResult<Map<Long, T>> fanOut = jToggl.fanOut(missing, request);
+        for (Map.Entry<Long, T> fetched : fanOut.getResult().entrySet()) {
+            if (fetched.getValue() != null) {
+                resolved.put(fetched.getKey(), fetched.getValue());
+            }
+        }
+        result.addFailures(fanOut.getFailures().values());
+    }
+
+    private static <T> Map<Long, T> index(Map<Long, List<T>> lists, Function<T, Long> id) {
+        Map<Long, T> result = new HashMap<>();
+        for (List<T> list : lists.values()) {
+            for (T item : list) {
+                result.put(id.apply(item), item);
+            }
+        }
+        return result;
+    }
+
+    private static Set<Long> missing(Set<Long> ids, Map<Long, ?> resolved) {
+        Set<Long> result = new HashSet<>(ids);
+        result.removeAll(resolved.keySet());
+        return result;
+    }
+
+    private static void addIfPresent(Set<Long> ids, Long id) {
+        if (id != null) {
+            ids.add(id);
+        }
+    }
+
+    /**
+     * Outcome of {@link #hydrate(Collection)}: references that could not be resolved
+     * and the requests that failed.
+     */
+    public static class Result {
+
+        private final Set<Long> unresolvedProjectIds = new HashSet<>();
+        private final Set<Long> unresolvedTaskIds = new HashSet<>();
+        private final Set<Long> unresolvedUserIds = new HashSet<>();
+        private final List<RuntimeException> failures = new ArrayList<>();
+
+        public Set<Long> getUnresolvedProjectIds() {
+            return unresolvedProjectIds;
+        }
+
+        public Set<Long> getUnresolvedTaskIds() {
+            return unresolvedTaskIds;
+        }
+
+        public Set<Long> getUnresolvedUserIds() {
+            return unresolvedUserIds;
+        }
+
+        public synchronized List<RuntimeException> getFailures() {
+            return new ArrayList<>(failures);
+        }
+
+        /**
+         * @return true if every reference was resolved
+         */
+        public boolean isComplete() {
+            return unresolvedProjectIds.isEmpty() && unresolvedTaskIds.isEmpty() && unresolvedUserIds.isEmpty()
+                    && getFailures().isEmpty();
+        }
+
+        private synchronized void addFailures(Collection<RuntimeException> exceptions) {
+            failures.addAll(exceptions);
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" + "unresolvedProjectIds=" + unresolvedProjectIds + ", unresolvedTaskIds=" + unresolvedTaskIds
+                    + ", unresolvedUserIds=" + unresolvedUserIds + ", failures=" + getFailures() + '}';
+        }
+    }
+}
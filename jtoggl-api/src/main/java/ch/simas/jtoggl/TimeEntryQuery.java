@@ -0,0 +1,82 @@
+package ch.simas.jtoggl;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Filter of {@link TimeEntryStore#find(TimeEntryQuery)}. Unset criteria match all entries.
+ */
+public class TimeEntryQuery {
+
+    private OffsetDateTime since;
+    private OffsetDateTime until;
+    private Long projectId;
+    private Long userId;
+    private Long workspaceId;
+    private int limit = Integer.MAX_VALUE;
+
+    public OffsetDateTime getSince() {
+        return since;
+    }
+
+    /**
+     * @param since earliest start, inclusive
+     * @return this query
+     */
+    public TimeEntryQuery setSince(OffsetDateTime since) {
+        this.since = since;
+        return this;
+    }
+
+    public OffsetDateTime getUntil() {
+        return until;
+    }
+
+    /**
+     * @param until latest start, exclusive
+     * @return this query
+     */
+    public TimeEntryQuery setUntil(OffsetDateTime until) {
+        this.until = until;
+        return this;
+    }
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public TimeEntryQuery setProjectId(Long projectId) {
+        this.projectId = projectId;
+        return this;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public TimeEntryQuery setUserId(Long userId) {
+        this.userId = userId;
+        return this;
+    }
+
+    public Long getWorkspaceId() {
+        return workspaceId;
+    }
+
+    public TimeEntryQuery setWorkspaceId(Long workspaceId) {
+        this.workspaceId = workspaceId;
+        return this;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @param limit maximum number of entries returned
+     * @return this query
+     */
+    public TimeEntryQuery setLimit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+}
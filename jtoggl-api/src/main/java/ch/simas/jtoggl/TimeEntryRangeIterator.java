@@ -0,0 +1,72 @@
+package ch.simas.jtoggl;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the time entries of a range by splitting it into windows that
+ * are requested one after another when the previous window has been consumed.
+ * Entries starting exactly at the end of a window belong to the next window.
+ */
+class TimeEntryRangeIterator implements Iterator<TimeEntry> {
+
+    private final JToggl jToggl;
+    private final OffsetDateTime end;
+    private final Duration window;
+    private OffsetDateTime windowStart;
+    private Iterator<TimeEntry> current = Collections.emptyIterator();
+    private TimeEntry next;
+
+    TimeEntryRangeIterator(JToggl jToggl, OffsetDateTime start, OffsetDateTime end, Duration window) {
+        if (window.isZero() || window.isNegative()) {
+            throw new IllegalArgumentException("window must be positive: " + window);
+        }
+        this.jToggl = jToggl;
+        this.end = end;
+        this.window = window;
+        this.windowStart = start;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            if (current.hasNext()) {
+                TimeEntry candidate = current.next();
+                if (isInWindow(candidate)) {
+                    next = candidate;
+                }
+            } else if (windowStart.isBefore(end)) {
+                OffsetDateTime windowEnd = windowEnd();
+                current = jToggl.getTimeEntries(windowStart, windowEnd).iterator();
+                windowStart = windowEnd;
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public TimeEntry next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        TimeEntry result = next;
+        next = null;
+        return result;
+    }
+
+    private OffsetDateTime windowEnd() {
+        OffsetDateTime windowEnd = windowStart.plus(window);
+        return windowEnd.isAfter(end) ? end : windowEnd;
+    }
+
+    private boolean isInWindow(TimeEntry entry) {
+        // windowStart already points at the end of the window being consumed
+        OffsetDateTime start = entry.getStart();
+        return start == null || windowStart.equals(end) || start.isBefore(windowStart);
+    }
+}
@@ -0,0 +1,301 @@
+package ch.simas.jtoggl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+import ch.simas.jtoggl.util.StringDictionary;
+
+/**
+ * Memory mapped, columnar file of time entries, to keep archives compact and scan them
+ * without creating {@link TimeEntry} objects. It stores a {@link TimeEntryBlock} as is.
+ * <p>
+ * Ids, start, stop and duration are stored as long columns with {@link #NULL} for missing
+ * values; start and stop in epoch seconds, so the offset of the original times is not
+ * kept. Descriptions and tags are codes of a shared {@link StringDictionary}, billable
+ * and duronly are bitsets in which null is stored as false.
+ * <p>
+ * Rows are read by index, e.g.
+ * <pre>
+ * int code = snapshot.getDictionary().indexOf("billed");
+ * for (int row = 0; row &lt; snapshot.size(); row++) {
+ *     if (snapshot.getProjectId(row) == pid &amp;&amp; snapshot.hasTag(row, code)) {
+ *         total += snapshot.getDuration(row);
+ *     }
+ * }
+ * </pre>
+ * The file is limited to 2GB, which holds about 20 million entries.
+ */
+public class TimeEntrySnapshot implements TimeEntryColumns {
+
+    private static final int MAGIC = 0x4a54534e;
+    private static final int VERSION = 1;
+    private static final int HEADER = 16;
+    private static final int LONG_COLUMNS = 8;
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private final int size;
+    private final LongBuffer[] columns = new LongBuffer[LONG_COLUMNS];
+    private final LongBuffer billable;
+    private final LongBuffer duronly;
+    private final IntBuffer descriptions;
+    private final IntBuffer tagOffsets;
+    private final IntBuffer tagCodes;
+    private final StringDictionary dictionary;
+
+    private TimeEntrySnapshot(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER || buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a time entry snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("unsupported snapshot version " + buffer.getInt(4));
+        }
+        size = buffer.getInt(8);
+        Layout layout = new Layout(size, buffer.getInt(12));
+        for (int column = 0; column < LONG_COLUMNS; column++) {
+            columns[column] = slice(buffer, layout.column(column)).asLongBuffer();
+        }
+        billable = slice(buffer, layout.billable).asLongBuffer();
+        duronly = slice(buffer, layout.duronly).asLongBuffer();
+        descriptions = slice(buffer, layout.descriptions).asIntBuffer();
+        tagOffsets = slice(buffer, layout.tagOffsets).asIntBuffer();
+        tagCodes = slice(buffer, layout.tagCodes).asIntBuffer();
+        dictionary = StringDictionary.readFrom(slice(buffer, layout.dictionary));
+    }
+
+    /**
+     * Map a snapshot file. The mapping is released when the snapshot is garbage collected.
+     *
+     * @param file snapshot file
+     * @return the snapshot
+     */
+    public static TimeEntrySnapshot open(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new TimeEntrySnapshot(buffer.order(ORDER));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write time entries to a snapshot file, replacing it atomically if it exists.
+     *
+     * @param file snapshot file
+     * @param entries entries in the order of the rows
+     */
+    public static void write(Path file, Collection<TimeEntry> entries) {
+        write(file, TimeEntryBlock.of(entries));
+    }
+
+    /**
+     * Write a block to a snapshot file, replacing it atomically if it exists.
+     *
+     * @param file snapshot file
+     * @param block entries in the order of the rows
+     */
+    public static void write(Path file, TimeEntryBlock block) {
+        int count = block.size();
+        int tags = 0;
+        for (int row = 0; row < count; row++) {
+            tags += block.getTagCount(row);
+        }
+        Layout layout = new Layout(count, tags);
+        long length = layout.dictionary + block.getDictionary().getEncodedSize();
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("snapshot of " + count + " entries exceeds 2GB");
+        }
+        try {
+            Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+                    buffer.order(ORDER);
+                    buffer.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(tags);
+                    LongBuffer[] columns = new LongBuffer[LONG_COLUMNS];
+                    for (int column = 0; column < LONG_COLUMNS; column++) {
+                        columns[column] = slice(buffer, layout.column(column)).asLongBuffer();
+                    }
+                    LongBuffer billable = slice(buffer, layout.billable).asLongBuffer();
+                    LongBuffer duronly = slice(buffer, layout.duronly).asLongBuffer();
+                    IntBuffer descriptions = slice(buffer, layout.descriptions).asIntBuffer();
+                    IntBuffer tagOffsets = slice(buffer, layout.tagOffsets).asIntBuffer();
+                    IntBuffer tagCodes = slice(buffer, layout.tagCodes).asIntBuffer();
+                    for (int row = 0; row < count; row++) {
+                        columns[0].put(block.getId(row));
+                        columns[1].put(block.getProjectId(row));
+                        columns[2].put(block.getWorkspaceId(row));
+                        columns[3].put(block.getTaskId(row));
+                        columns[4].put(block.getUserId(row));
+                        columns[5].put(block.getStart(row));
+                        columns[6].put(block.getStop(row));
+                        columns[7].put(block.getDuration(row));
+                        setBit(billable, row, block.isBillable(row));
+                        setBit(duronly, row, block.isDuronly(row));
+                        descriptions.put(block.getDescriptionCode(row));
+                        tagOffsets.put(tagCodes.position());
+                        for (int i = 0; i < block.getTagCount(row); i++) {
+                            tagCodes.put(block.getTagCode(row, i));
+                        }
+                    }
+                    tagOffsets.put(tagCodes.position());
+                    block.getDictionary().writeTo(slice(buffer, layout.dictionary));
+                    buffer.force();
+                }
+                try {
+                    Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long getId(int row) {
+        return columns[0].get(row);
+    }
+
+    @Override
+    public long getProjectId(int row) {
+        return columns[1].get(row);
+    }
+
+    @Override
+    public long getWorkspaceId(int row) {
+        return columns[2].get(row);
+    }
+
+    @Override
+    public long getTaskId(int row) {
+        return columns[3].get(row);
+    }
+
+    @Override
+    public long getUserId(int row) {
+        return columns[4].get(row);
+    }
+
+    @Override
+    public long getStart(int row) {
+        return columns[5].get(row);
+    }
+
+    @Override
+    public long getStop(int row) {
+        return columns[6].get(row);
+    }
+
+    @Override
+    public long getDuration(int row) {
+        return columns[7].get(row);
+    }
+
+    @Override
+    public boolean isBillable(int row) {
+        return getBit(billable, row);
+    }
+
+    @Override
+    public boolean isDuronly(int row) {
+        return getBit(duronly, row);
+    }
+
+    @Override
+    public int getDescriptionCode(int row) {
+        return descriptions.get(row);
+    }
+
+    @Override
+    public int getTagCount(int row) {
+        return tagOffsets.get(row + 1) - tagOffsets.get(row);
+    }
+
+    @Override
+    public int getTagCode(int row, int index) {
+        return tagCodes.get(tagOffsets.get(row) + index);
+    }
+
+    @Override
+    public boolean hasTag(int row, int code) {
+        for (int i = tagOffsets.get(row), end = tagOffsets.get(row + 1); i < end; i++) {
+            if (tagCodes.get(i) == code) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, long offset) {
+        ByteBuffer view = buffer.duplicate();
+        ((Buffer) view).position((int) offset);
+        return view.slice().order(ORDER);
+    }
+
+    private static void setBit(LongBuffer bits, int row, boolean value) {
+        if (value) {
+            bits.put(row >>> 6, bits.get(row >>> 6) | 1L << row);
+        }
+    }
+
+    private static boolean getBit(LongBuffer bits, int row) {
+        return (bits.get(row >>> 6) & 1L << row) != 0;
+    }
+
+    /**
+     * Offsets of the sections, in the order they are stored.
+     */
+    private static class Layout {
+
+        private final long columns;
+        private final int rows;
+        private final long billable;
+        private final long duronly;
+        private final long descriptions;
+        private final long tagOffsets;
+        private final long tagCodes;
+        private final long dictionary;
+
+        Layout(int rows, int tags) {
+            int words = (rows + 63) >>> 6;
+            this.rows = rows;
+            this.columns = HEADER;
+            this.billable = columns + 8L * LONG_COLUMNS * rows;
+            this.duronly = billable + 8L * words;
+            this.descriptions = duronly + 8L * words;
+            this.tagOffsets = descriptions + 4L * rows;
+            this.tagCodes = tagOffsets + 4L * (rows + 1);
+            this.dictionary = tagCodes + 4L * tags;
+        }
+
+        long column(int column) {
+            return columns + 8L * rows * column;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package ch.simas.jtoggl;
+
+/**
+ * Count and durations of a group of time entries, split into billable and non-billable.
+ * Durations are in seconds. Stats of two groups can be merged, so they are built per
+ * thread or per report page and combined afterwards.
+ */
+public class TimeEntryStats {
+
+    private long count;
+    private long duration;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    private long billableCount;
+    private long billableDuration;
+
+    void add(long entryDuration, boolean billable) {
+        count++;
+        duration += entryDuration;
+        min = Math.min(min, entryDuration);
+        max = Math.max(max, entryDuration);
+        if (billable) {
+            billableCount++;
+            billableDuration += entryDuration;
+        }
+    }
+
+    /**
+     * @param other stats to add to these
+     * @return these stats
+     */
+    public TimeEntryStats merge(TimeEntryStats other) {
+        count += other.count;
+        duration += other.duration;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        billableCount += other.billableCount;
+        billableDuration += other.billableDuration;
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return total duration in seconds
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return shortest duration in seconds, 0 if there are no entries
+     */
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * @return longest duration in seconds, 0 if there are no entries
+     */
+    public long getMax() {
+        return count == 0 ? 0 : max;
+    }
+
+    /**
+     * @return average duration in seconds, 0 if there are no entries
+     */
+    public double getAverage() {
+        return count == 0 ? 0 : (double) duration / count;
+    }
+
+    public long getBillableCount() {
+        return billableCount;
+    }
+
+    public long getBillableDuration() {
+        return billableDuration;
+    }
+
+    public long getNonBillableCount() {
+        return count - billableCount;
+    }
+
+    public long getNonBillableDuration() {
+        return duration - billableDuration;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + ", duration=" + duration + "s, min=" + getMin() + "s, max=" + getMax()
+                + "s, billable=" + billableDuration + "s";
+    }
+}
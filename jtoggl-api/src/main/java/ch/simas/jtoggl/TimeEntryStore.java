@@ -0,0 +1,631 @@
+package ch.simas.jtoggl;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import org.json.simple.JSONObject;
+
+/**
+ * File backed store of time entries, to query entries synced from Toggl without a request.
+ * <p>
+ * Every change is appended to the active segment file as a record with length and CRC32,
+ * and the active segment is rolled over once it reaches the segment size. The indexes by
+ * id, start, project and user are kept in memory and rebuilt from the segments on open.
+ * A record torn by a crash at the end of the last segment is truncated on open. Writes
+ * are forced to disk before they return unless sync on write is switched off.
+ * <p>
+ * Updated and deleted entries leave garbage in the segments; {@link #compact()} rewrites
+ * the live entries into a new segment and removes the old ones.
+ * <p>
+ * Populate it from {@link JToggl#getTimeEntries(java.time.OffsetDateTime, java.time.OffsetDateTime)},
+ * {@link JToggl#iterateDetailedReport(PagedReportsParameter)} or a {@link TimeEntrySync} listener.
+ */
+public class TimeEntryStore implements Closeable {
+
+    public static final long DEFAULT_SEGMENT_SIZE = 64L << 20;
+
+    private static final Pattern SEGMENT = Pattern.compile("segment-(\\d+)\\.log");
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final byte BASE = 3;
+    private static final int HEADER = 8;
+    private static final int FIXED = 1 + 5 * 8;
+    private static final long NONE = Long.MIN_VALUE;
+    private static final Comparator<Location> BY_START = Comparator.<Location>comparingLong(l -> l.start)
+            .thenComparingLong(l -> l.id);
+    private static final Comparator<Location> BY_POSITION = Comparator.<Location>comparingInt(l -> l.segment)
+            .thenComparingLong(l -> l.offset);
+
+    private final Path directory;
+    private final long segmentSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private final Map<Long, Location> byId = new HashMap<>();
+    private final TreeMap<Long, Set<Long>> byStart = new TreeMap<>();
+    private final Map<Long, Set<Long>> byProject = new HashMap<>();
+    private final Map<Long, Set<Long>> byUser = new HashMap<>();
+    private Segment active;
+    private long liveBytes;
+    private boolean syncOnWrite = true;
+    private boolean closed;
+
+    /**
+     * Open the store in a directory, creating it if necessary.
+     *
+     * @param directory directory of the segment files
+     */
+    public TimeEntryStore(Path directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param directory directory of the segment files
+     * @param segmentSize size in bytes from which on a new segment is started
+     */
+    public TimeEntryStore(Path directory, long segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        try {
+            open();
+        } catch (IOException e) {
+            closeSegments();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param syncOnWrite false to leave flushing written records to the operating system
+     * @return this store
+     */
+    public TimeEntryStore setSyncOnWrite(boolean syncOnWrite) {
+        this.syncOnWrite = syncOnWrite;
+        return this;
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Integer> numbers = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Matcher matcher = SEGMENT.matcher(name);
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    // compaction that did not complete
+                    Files.delete(file);
+                } else if (matcher.matches()) {
+                    numbers.add(Integer.parseInt(matcher.group(1)));
+                }
+            }
+        }
+        Collections.sort(numbers);
+
+        // segments before the latest compacted one were superseded by it
+        int base = 0;
+        for (int i = numbers.size() - 1; i >= 0 && base == 0; i--) {
+            try (FileChannel channel = FileChannel.open(path(numbers.get(i)), StandardOpenOption.READ)) {
+                ByteBuffer first = ByteBuffer.allocate(HEADER + 1);
+                if (channel.size() >= first.capacity() && read(channel, first, 0) && first.get(HEADER) == BASE) {
+                    base = numbers.get(i);
+                }
+            }
+        }
+        for (int number : numbers) {
+            if (number < base) {
+                Files.delete(path(number));
+            } else {
+                Segment segment = new Segment(number, FileChannel.open(path(number),
+                        StandardOpenOption.READ, StandardOpenOption.WRITE));
+                segments.put(number, segment);
+                replay(segment, number == numbers.get(numbers.size() - 1));
+            }
+        }
+        active = segments.isEmpty() ? createSegment(1) : segments.lastEntry().getValue();
+    }
+
+    private void replay(Segment segment, boolean last) throws IOException {
+        FileChannel channel = segment.channel;
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        while (position < size) {
+            // through Buffer, ByteBuffer.clear() and flip() only exist since Java 9
+            ((Buffer) header).clear();
+            if (size - position < HEADER || !read(channel, header, position)) {
+                break;
+            }
+            int length = header.getInt(0);
+            if (length < FIXED || length > size - position - HEADER) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(length);
+            if (!read(channel, body, position + HEADER) || checksum(body.array(), length) != header.getInt(4)) {
+                break;
+            }
+            apply(segment.number, position, body);
+            position += HEADER + length;
+        }
+        if (position < size) {
+            if (!last) {
+                throw new IOException("corrupt record in " + path(segment.number) + " at " + position);
+            }
+            // torn write at the tail
+            channel.truncate(position);
+            channel.force(true);
+        }
+        segment.size = position;
+    }
+
+    private void apply(int segment, long offset, ByteBuffer body) {
+        byte type = body.get(0);
+        long id = body.getLong(1);
+        if (type == PUT) {
+            index(new Location(id, segment, offset, HEADER + body.capacity(), body.getLong(9), body.getLong(17),
+                    body.getLong(25), body.getLong(33)));
+        } else if (type == DELETE) {
+            unindex(id);
+        }
+    }
+
+    private void index(Location location) {
+        unindex(location.id);
+        byId.put(location.id, location);
+        byStart.computeIfAbsent(location.start, k -> new HashSet<>()).add(location.id);
+        if (location.project != NONE) {
+            byProject.computeIfAbsent(location.project, k -> new HashSet<>()).add(location.id);
+        }
+        if (location.user != NONE) {
+            byUser.computeIfAbsent(location.user, k -> new HashSet<>()).add(location.id);
+        }
+        liveBytes += location.length;
+    }
+
+    private boolean unindex(long id) {
+        Location location = byId.remove(id);
+        if (location == null) {
+            return false;
+        }
+        remove(byStart, location.start, id);
+        remove(byProject, location.project, id);
+        remove(byUser, location.user, id);
+        liveBytes -= location.length;
+        return true;
+    }
+
+    private static void remove(Map<Long, Set<Long>> index, long key, long id) {
+        Set<Long> ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    /**
+     * Insert or replace a time entry.
+     *
+     * @param entry entry with id
+     */
+    public void put(TimeEntry entry) {
+        putAll(Collections.singletonList(entry));
+    }
+
+    /**
+     * Insert or replace time entries, forcing them to disk once at the end.
+     *
+     * @param entries entries with id
+     * @return number of entries written
+     */
+    public int putAll(Iterable<TimeEntry> entries) {
+        return putAll(entries.iterator());
+    }
+
+    /**
+     * Insert or replace time entries, forcing them to disk once at the end.
+     *
+     * @param entries entries with id, e.g. of {@link JToggl#iterateDetailedReport(PagedReportsParameter)}
+     * @return number of entries written
+     */
+    public int putAll(Iterator<TimeEntry> entries) {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            int count = 0;
+            while (entries.hasNext()) {
+                TimeEntry entry = entries.next();
+                if (entry.getId() == null) {
+                    throw new IllegalArgumentException("time entry without id: " + entry);
+                }
+                byte[] json = toJSON(entry).getBytes(StandardCharsets.UTF_8);
+                ByteBuffer body = fixed(PUT, entry.getId(), FIXED + json.length);
+                body.putLong(entry.getStart() == null ? NONE : entry.getStart().toEpochSecond());
+                body.putLong(orNone(entry.getPid()));
+                body.putLong(orNone(entry.getUid()));
+                body.putLong(orNone(entry.getWid()));
+                body.put(json);
+                Location location = append(body);
+                index(new Location(entry.getId(), location.segment, location.offset, location.length,
+                        body.getLong(9), body.getLong(17), body.getLong(25), body.getLong(33)));
+                count++;
+            }
+            sync();
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param id time entry id
+     * @return false if the entry was not stored
+     */
+    public boolean delete(long id) {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            if (!byId.containsKey(id)) {
+                return false;
+            }
+            append(fixed(DELETE, id, FIXED));
+            unindex(id);
+            sync();
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply a change found by a {@link TimeEntrySync}, e.g. {@code sync.addListener(store::apply)}.
+     *
+     * @param change created, updated or deleted entry
+     */
+    public void apply(TimeEntryChange change) {
+        if (change.getType() == TimeEntryChange.Type.DELETED) {
+            delete(change.getId());
+        } else {
+            put(change.getEntry());
+        }
+    }
+
+    /**
+     * @param id time entry id
+     * @return the entry, null if it is not stored
+     */
+    public TimeEntry get(long id) {
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            Location location = byId.get(id);
+            return location == null ? null : read(location);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param query criteria the entries must match
+     * @return the matching entries ordered by start
+     */
+    public List<TimeEntry> find(TimeEntryQuery query) {
+        long since = query.getSince() == null ? NONE : query.getSince().toEpochSecond();
+        long until = query.getUntil() == null ? Long.MAX_VALUE : query.getUntil().toEpochSecond();
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            Collection<Long> candidates;
+            if (query.getProjectId() != null) {
+                candidates = byProject.getOrDefault(query.getProjectId(), Collections.emptySet());
+            } else if (query.getUserId() != null) {
+                candidates = byUser.getOrDefault(query.getUserId(), Collections.emptySet());
+            } else {
+                candidates = new ArrayList<>();
+                for (Set<Long> ids : byStart.subMap(since, true, until, false).values()) {
+                    candidates.addAll(ids);
+                }
+            }
+
+            List<Location> matches = new ArrayList<>();
+            for (Long id : candidates) {
+                Location location = byId.get(id);
+                if (location.start >= since && location.start < until
+                        && matches(query.getProjectId(), location.project)
+                        && matches(query.getUserId(), location.user)
+                        && matches(query.getWorkspaceId(), location.workspace)) {
+                    matches.add(location);
+                }
+            }
+            matches.sort(BY_START);
+            List<TimeEntry> result = new ArrayList<>(Math.min(matches.size(), query.getLimit()));
+            for (Location location : matches) {
+                if (result.size() == query.getLimit()) {
+                    break;
+                }
+                result.add(read(location));
+            }
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean matches(Long expected, long actual) {
+        return expected == null || expected == actual;
+    }
+
+    /**
+     * @return number of stored entries
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return share of the segment bytes taken by replaced and deleted entries
+     */
+    public double getGarbageRatio() {
+        lock.readLock().lock();
+        try {
+            long total = 0;
+            for (Segment segment : segments.values()) {
+                total += segment.size;
+            }
+            return total == 0 ? 0 : 1 - (double) liveBytes / total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrite the stored entries into a new segment and delete the old segments.
+     * Reads and writes wait until the compaction is done.
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            int number = active.number + 1;
+            Path temp = directory.resolve(path(number).getFileName() + TEMP_SUFFIX);
+            FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            Segment compacted = new Segment(number, channel);
+            try {
+                write(compacted, checksummed(fixed(BASE, 0, FIXED)));
+                List<Location> live = new ArrayList<>(byId.values());
+                live.sort(BY_POSITION);
+                List<Location> moved = new ArrayList<>(live.size());
+                for (Location location : live) {
+                    ByteBuffer record = ByteBuffer.allocate(location.length);
+                    if (!read(segments.get(location.segment).channel, record, location.offset)) {
+                        throw new EOFException("record of " + location.id + " is missing");
+                    }
+                    ((Buffer) record).flip();
+                    long offset = write(compacted, record);
+                    moved.add(location.moveTo(number, offset));
+                }
+                channel.force(true);
+                try {
+                    Files.move(temp, path(number), StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, path(number));
+                }
+                for (Location location : moved) {
+                    byId.put(location.id, location);
+                }
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+
+            for (Segment segment : segments.values()) {
+                segment.channel.close();
+                Files.delete(path(segment.number));
+            }
+            segments.clear();
+            segments.put(number, compacted);
+            active = compacted;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            closed = true;
+            closeSegments();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void closeSegments() {
+        for (Segment segment : segments.values()) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                // nothing left to do with the file
+            }
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("store is closed");
+        }
+    }
+
+    private Location append(ByteBuffer body) throws IOException {
+        if (active.size >= segmentSize) {
+            active.channel.force(true);
+            active = createSegment(active.number + 1);
+        }
+        ByteBuffer record = checksummed(body);
+        int length = record.remaining();
+        long offset = write(active, record);
+        return new Location(body.getLong(1), active.number, offset, length, NONE, NONE, NONE, NONE);
+    }
+
+    private void sync() throws IOException {
+        if (syncOnWrite) {
+            active.channel.force(false);
+        }
+    }
+
+    private Segment createSegment(int number) throws IOException {
+        Segment segment = new Segment(number, FileChannel.open(path(number), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE));
+        segments.put(number, segment);
+        return segment;
+    }
+
+    private TimeEntry read(Location location) throws IOException {
+        ByteBuffer json = ByteBuffer.allocate(location.length - HEADER - FIXED);
+        if (!read(segments.get(location.segment).channel, json, location.offset + HEADER + FIXED)) {
+            throw new EOFException("record of " + location.id + " is missing");
+        }
+        return new TimeEntry(new String(json.array(), StandardCharsets.UTF_8));
+    }
+
+    private Path path(int number) {
+        return directory.resolve(String.format("segment-%08d.log", number));
+    }
+
+    private static String toJSON(TimeEntry entry) {
+        JSONObject object = entry.toJSONObject();
+        if (entry.getUid() != null) {
+            object.put("uid", entry.getUid());
+        }
+        return object.toJSONString();
+    }
+
+    private static long orNone(Long value) {
+        return value == null ? NONE : value;
+    }
+
+    private static ByteBuffer fixed(byte type, long id, int length) {
+        ByteBuffer body = ByteBuffer.allocate(length);
+        body.put(type).putLong(id);
+        if (length == FIXED) {
+            body.putLong(NONE).putLong(NONE).putLong(NONE).putLong(NONE);
+        }
+        return body;
+    }
+
+    private static ByteBuffer checksummed(ByteBuffer body) {
+        int length = body.capacity();
+        ByteBuffer record = ByteBuffer.allocate(HEADER + length);
+        record.putInt(length).putInt(checksum(body.array(), length)).put(body.array(), 0, length);
+        ((Buffer) record).flip();
+        return record;
+    }
+
+    private static int checksum(byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+
+    private static long write(Segment segment, ByteBuffer record) throws IOException {
+        long offset = segment.size;
+        long position = offset;
+        while (record.hasRemaining()) {
+            position += segment.channel.write(record, position);
+        }
+        segment.size = position;
+        return offset;
+    }
+
+    private static boolean read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return false;
+            }
+            position += read;
+        }
+        return true;
+    }
+
+    private static class Segment {
+
+        private final int number;
+        private final FileChannel channel;
+        private long size;
+
+        Segment(int number, FileChannel channel) {
+            this.number = number;
+            this.channel = channel;
+        }
+    }
+
+    private static class Location {
+
+        private final long id;
+        private final int segment;
+        private final long offset;
+        private final int length;
+        private final long start;
+        private final long project;
+        private final long user;
+        private final long workspace;
+
+        Location(long id, int segment, long offset, int length, long start, long project, long user, long workspace) {
+            this.id = id;
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.start = start;
+            this.project = project;
+            this.user = user;
+            this.workspace = workspace;
+        }
+
+        Location moveTo(int segment, long offset) {
+            return new Location(id, segment, offset, length, start, project, user, workspace);
+        }
+    }
+}
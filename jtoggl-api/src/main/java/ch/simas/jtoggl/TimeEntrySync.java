@@ -0,0 +1,216 @@
+package ch.simas.jtoggl;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Pulls the time entries of a workspace and user incrementally and reports what changed
+ * since the previous run.
+ * <p>
+ * A sync only requests entries started since the saved high-water mark minus an overlap,
+ * which catches entries added or edited shortly after the previous run, and since the
+ * start of entries that were still running. Entries are de-duplicated by id and compared
+ * with the fingerprint saved for them. Known entries missing from a requested range are
+ * reported as deleted. Every reconciliation interval, and on the first run, the whole
+ * reconciliation horizon is requested instead, which also finds entries that were edited
+ * or deleted long after they started.
+ * <p>
+ * Listeners are notified before the new state is saved: if saving fails the changes are
+ * reported again by the next sync.
+ */
+public class TimeEntrySync {
+
+    public static final Duration DEFAULT_OVERLAP = Duration.ofHours(1);
+    public static final Duration DEFAULT_RECONCILIATION_INTERVAL = Duration.ofDays(1);
+    public static final Duration DEFAULT_RECONCILIATION_HORIZON = Duration.ofDays(90);
+    public static final Duration DEFAULT_REQUEST_WINDOW = Duration.ofDays(7);
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final JToggl jToggl;
+    private final SyncStateStore store;
+    private final long workspaceId;
+    private final long userId;
+    private final List<Consumer<TimeEntryChange>> listeners = new CopyOnWriteArrayList<>();
+    private Duration overlap = DEFAULT_OVERLAP;
+    private Duration reconciliationInterval = DEFAULT_RECONCILIATION_INTERVAL;
+    private Duration reconciliationHorizon = DEFAULT_RECONCILIATION_HORIZON;
+    private Duration requestWindow = DEFAULT_REQUEST_WINDOW;
+    private Clock clock = Clock.systemUTC();
+
+    /**
+     * @param jToggl client of the user whose entries are synced
+     * @param store store of the sync position
+     * @param workspaceId workspace to sync
+     * @param userId user to sync, usually the id of {@link JToggl#getCurrentUser()}
+     */
+    public TimeEntrySync(JToggl jToggl, SyncStateStore store, long workspaceId, long userId) {
+        this.jToggl = jToggl;
+        this.store = store;
+        this.workspaceId = workspaceId;
+        this.userId = userId;
+    }
+
+    /**
+     * @param overlap how far before the high-water mark a sync starts
+     * @return this sync
+     */
+    public TimeEntrySync setOverlap(Duration overlap) {
+        this.overlap = overlap;
+        return this;
+    }
+
+    /**
+     * @param interval time between two reconciliations
+     * @param horizon how far back a reconciliation requests entries; older entries are forgotten
+     * @return this sync
+     */
+    public TimeEntrySync setReconciliation(Duration interval, Duration horizon) {
+        this.reconciliationInterval = interval;
+        this.reconciliationHorizon = horizon;
+        return this;
+    }
+
+    /**
+     * @param window range of a single time entries request
+     * @return this sync
+     */
+    public TimeEntrySync setRequestWindow(Duration window) {
+        this.requestWindow = window;
+        return this;
+    }
+
+    TimeEntrySync setClock(Clock clock) {
+        this.clock = clock;
+        return this;
+    }
+
+    /**
+     * @param listener called for every change found by a sync, on the syncing thread
+     * @return this sync
+     */
+    public TimeEntrySync addListener(Consumer<TimeEntryChange> listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Pull the entries changed since the previous sync, reconciling if it is due.
+     *
+     * @return the changes in the order they were found
+     */
+    public synchronized List<TimeEntryChange> sync() {
+        return sync(false);
+    }
+
+    /**
+     * Pull all entries of the reconciliation horizon, regardless of when the last
+     * reconciliation took place.
+     *
+     * @return the changes in the order they were found
+     */
+    public synchronized List<TimeEntryChange> reconcile() {
+        return sync(true);
+    }
+
+    private List<TimeEntryChange> sync(boolean forceReconciliation) {
+        OffsetDateTime now = OffsetDateTime.now(clock);
+        SyncState state = store.load(workspaceId, userId);
+        OffsetDateTime horizon = now.minus(reconciliationHorizon);
+        boolean reconcile = forceReconciliation || state.getHighWaterMark() == null
+                || state.getLastReconciliation() == null
+                || !state.getLastReconciliation().plus(reconciliationInterval).isAfter(now);
+        OffsetDateTime from = reconcile ? horizon : deltaStart(state, horizon);
+
+        Map<Long, TimeEntry> seen = new LinkedHashMap<>();
+        Iterator<TimeEntry> entries = new TimeEntryRangeIterator(jToggl, from, now, requestWindow);
+        while (entries.hasNext()) {
+            TimeEntry entry = entries.next();
+            if (entry.getId() != null && isInScope(entry)) {
+                seen.put(entry.getId(), entry);
+            }
+        }
+
+        List<TimeEntryChange> changes = new ArrayList<>();
+        for (TimeEntry entry : seen.values()) {
+            long id = entry.getId();
+            long fingerprint = fingerprint(entry);
+            if (!state.contains(id)) {
+                changes.add(new TimeEntryChange(TimeEntryChange.Type.CREATED, id, entry));
+            } else if (state.getFingerprint(id) != fingerprint) {
+                changes.add(new TimeEntryChange(TimeEntryChange.Type.UPDATED, id, entry));
+            }
+            state.put(id, entry.getStart() == null ? 0 : entry.getStart().toEpochSecond(), fingerprint,
+                    entry.getDuration() != null && entry.getDuration() < 0);
+        }
+        long fromSecond = from.toEpochSecond();
+        long nowSecond = now.toEpochSecond();
+        for (Long id : new ArrayList<>(state.getIds())) {
+            if (seen.containsKey(id)) {
+                continue;
+            }
+            long start = state.getStart(id);
+            if (start >= fromSecond && start < nowSecond) {
+                changes.add(new TimeEntryChange(TimeEntryChange.Type.DELETED, id, null));
+                state.remove(id);
+            } else if (reconcile && start < fromSecond) {
+                state.remove(id);
+            }
+        }
+
+        state.setHighWaterMark(now);
+        if (reconcile) {
+            state.setLastReconciliation(now);
+        }
+        for (Consumer<TimeEntryChange> listener : listeners) {
+            changes.forEach(listener);
+        }
+        store.save(workspaceId, userId, state);
+        return changes;
+    }
+
+    private OffsetDateTime deltaStart(SyncState state, OffsetDateTime horizon) {
+        long from = state.getHighWaterMark().minus(overlap).toEpochSecond();
+        for (Long id : state.getIds()) {
+            if (state.isRunning(id)) {
+                from = Math.min(from, state.getStart(id));
+            }
+        }
+        from = Math.max(from, horizon.toEpochSecond());
+        return OffsetDateTime.ofInstant(Instant.ofEpochSecond(from), clock.getZone());
+    }
+
+    private boolean isInScope(TimeEntry entry) {
+        return (entry.getWid() == null || entry.getWid() == workspaceId)
+                && (entry.getUid() == null || entry.getUid() == userId);
+    }
+
+    /**
+     * @param entry time entry
+     * @return 64 bit FNV-1a hash of the fields a sync reports changes of
+     */
+    static long fingerprint(TimeEntry entry) {
+        String fields = entry.getDescription() + '\u0001' + entry.getStart() + '\u0001' + entry.getStop()
+                + '\u0001' + entry.getDuration() + '\u0001' + entry.isBillable() + '\u0001' + entry.getDuronly()
+                + '\u0001' + entry.getWid() + '\u0001' + entry.getPid() + '\u0001' + entry.getTid()
+                + '\u0001' + Objects.toString(entry.getTag_names());
+        long hash = FNV_OFFSET;
+        for (byte b : fields.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
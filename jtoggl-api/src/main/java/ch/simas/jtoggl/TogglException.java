@@ -0,0 +1,98 @@
+package ch.simas.jtoggl;
+
+/**
+ * Thrown when Toggl answers with an error status or cannot be reached.
+ * Subclasses identify the common statuses.
+ */
+public class TogglException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+    private final long retryAfter;
+    private int attempts = 1;
+    private boolean retriesExhausted;
+
+    /**
+     * @param message detail message
+     * @param statusCode HTTP status of the response
+     * @param retryAfter milliseconds to wait according to the Retry-After header, -1 if there was none
+     */
+    public TogglException(String message, int statusCode, long retryAfter) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Create an exception for a request that got no response.
+     *
+     * @param message detail message
+     * @param cause the I/O error
+     */
+    public TogglException(String message, Throwable cause) {
+        super(message, cause);
+        this.statusCode = 0;
+        this.retryAfter = -1;
+    }
+
+    /**
+     * Map an error status to an exception.
+     *
+     * @param statusCode HTTP status, at least 400
+     * @param url requested URL
+     * @param body response body
+     * @param retryAfter milliseconds to wait according to the Retry-After header, -1 if there was none
+     * @return exception matching the status
+     */
+    static TogglException forStatus(int statusCode, String url, String body, long retryAfter) {
+        switch (statusCode) {
+            case 400:
+                return new BadRequestException("bad request: " + body);
+            case 403:
+                return new ForbiddenException("forbidden");
+            case 404:
+                return new NotFoundException("not found: " + url);
+            case 429:
+                return new TooManyRequestsException("too many requests: " + url, retryAfter);
+            default:
+                if (statusCode >= 500) {
+                    return new ServerErrorException("server error " + statusCode + ": " + url, statusCode, retryAfter);
+                }
+                return new TogglException("unexpected status " + statusCode + ": " + url, statusCode, retryAfter);
+        }
+    }
+
+    /**
+     * @return HTTP status of the response, 0 if there was no response
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return milliseconds to wait according to the Retry-After header, -1 if there was none
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * @return number of times the request was sent
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * @return true if the request failed with a retryable error on its last allowed attempt
+     */
+    public boolean isRetriesExhausted() {
+        return retriesExhausted;
+    }
+
+    void setAttempts(int attempts, boolean retriesExhausted) {
+        this.attempts = attempts;
+        this.retriesExhausted = retriesExhausted;
+    }
+}
@@ -0,0 +1,166 @@
+package ch.simas.jtoggl;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket {@link RateLimiter}. The bucket holds up to {@code burst} permits
+ * and is refilled continuously with {@code permitsPerSecond}. Callers only block
+ * when the bucket is empty; the lock is never held while sleeping.
+ * <p>
+ * A rate of 0 or less disables limiting.
+ */
+public class TokenBucketRateLimiter implements RateLimiter {
+
+    private static final Map<String, SharedReference> SHARED = new HashMap<>();
+    private static final ReferenceQueue<TokenBucketRateLimiter> RELEASED = new ReferenceQueue<>();
+
+    private double permitsPerSecond;
+    private int burst;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be at least 1: " + burst);
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Returns the limiter registered for the given key, creating it with the given
+     * rate and burst if there is none yet. {@link JToggl} uses the api token as key,
+     * so all instances talking to Toggl with the same token share one budget.
+     * <p>
+     * Only a digest of the key is kept, and a limiter is dropped from the registry
+     * once no one references it anymore.
+     *
+     * @param key api token or user name
+     * @param permitsPerSecond rate used if the limiter does not exist yet
+     * @param burst burst used if the limiter does not exist yet
+     * @return the shared limiter
+     */
+    public static TokenBucketRateLimiter shared(String key, double permitsPerSecond, int burst) {
+        String digest = digest(key);
+        synchronized (SHARED) {
+            for (SharedReference released; (released = (SharedReference) RELEASED.poll()) != null; ) {
+                SHARED.remove(released.digest, released);
+            }
+            SharedReference reference = SHARED.get(digest);
+            TokenBucketRateLimiter limiter = reference == null ? null : reference.get();
+            if (limiter == null) {
+                limiter = new TokenBucketRateLimiter(permitsPerSecond, burst);
+                SHARED.put(digest, new SharedReference(digest, limiter));
+            }
+            return limiter;
+        }
+    }
+
+    private static String digest(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(String.valueOf(key).getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform has to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public long acquire() {
+        long waitNanos = reserve();
+        if (waitNanos <= 0) {
+            return 0;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for rate limiter", e);
+        }
+        return waitNanos;
+    }
+
+    @Override
+    public synchronized boolean tryAcquire() {
+        if (!isLimited()) {
+            return true;
+        }
+        refill(System.nanoTime());
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Takes a permit, going into debt if the bucket is empty.
+     *
+     * @return nanoseconds the caller has to wait before using the permit
+     */
+    @Override
+    public synchronized long reserve() {
+        if (!isLimited()) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        refill(now);
+        tokens -= 1;
+        if (tokens >= 0) {
+            return 0;
+        }
+        return (long) (-tokens * TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    }
+
+    private void refill(long now) {
+        double added = (now - lastRefill) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        tokens = Math.min(burst, tokens + added);
+        lastRefill = now;
+    }
+
+    private boolean isLimited() {
+        return permitsPerSecond > 0 && !Double.isInfinite(permitsPerSecond);
+    }
+
+    public synchronized double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public synchronized void setPermitsPerSecond(double permitsPerSecond) {
+        refill(System.nanoTime());
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    public synchronized int getBurst() {
+        return burst;
+    }
+
+    public synchronized void setBurst(int burst) {
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be at least 1: " + burst);
+        }
+        this.burst = burst;
+        this.tokens = Math.min(tokens, burst);
+    }
+
+    private static class SharedReference extends WeakReference<TokenBucketRateLimiter> {
+
+        private final String digest;
+
+        SharedReference(String digest, TokenBucketRateLimiter limiter) {
+            super(limiter, RELEASED);
+            this.digest = digest;
+        }
+    }
+}
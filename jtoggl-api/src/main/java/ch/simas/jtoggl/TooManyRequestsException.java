@@ -0,0 +1,14 @@
+package ch.simas.jtoggl;
+
+/**
+ * Thrown when Toggl rejects a request because of its rate limit (status 429).
+ * The request was not processed and may be sent again.
+ */
+public class TooManyRequestsException extends TogglException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TooManyRequestsException(String message, long retryAfter) {
+        super(message, 429, retryAfter);
+    }
+}
@@ -46,7 +46,10 @@ public class User {
     }
 
     public User(String jsonString) {
-        JSONObject object = (JSONObject) JSONValue.parse(jsonString);
+        this((JSONObject) JSONValue.parse(jsonString));
+    }
+
+    public User(JSONObject object) {
         this.id = (Long) object.get("id");
         this.jquery_timeofday_format = (String) object.get("jquery_timeofday_format");
         this.api_token = (String) object.get("api_token");
@@ -0,0 +1,121 @@
+package ch.simas.jtoggl;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import ch.simas.jtoggl.util.JsonStreamDecoder;
+
+/**
+ * Result of the weekly report: the tracked time per day of the week starting at
+ * {@code since}, per project and user. Totals hold seven days followed by the week,
+ * in milliseconds, null for days without time.
+ */
+public class WeeklyReport {
+
+    private final Long totalGrand;
+    private final Long totalBillable;
+    private final List<Long> weekTotals;
+    private final List<Row> rows = new ArrayList<>();
+
+    public WeeklyReport(String jsonString) {
+        this(new StringReader(jsonString));
+    }
+
+    /**
+     * Decode the weekly report in a single pass, one row at a time.
+     *
+     * @param reader the JSON response of the weekly endpoint
+     */
+    public WeeklyReport(Reader reader) {
+        Map<String, Object> fields = JsonStreamDecoder.decode(reader, "data", Row::new, rows::add);
+
+        totalGrand = (Long) fields.get("total_grand");
+        totalBillable = (Long) fields.get("total_billable");
+        weekTotals = totals((JSONArray) fields.get("week_totals"));
+    }
+
+    public Long getTotalGrand() {
+        return totalGrand;
+    }
+
+    public Long getTotalBillable() {
+        return totalBillable;
+    }
+
+    public List<Long> getWeekTotals() {
+        return weekTotals;
+    }
+
+    public List<Row> getRows() {
+        return rows;
+    }
+
+    private static List<Long> totals(JSONArray array) {
+        if (array == null) {
+            return Collections.emptyList();
+        }
+        List<Long> result = new ArrayList<>(array.size());
+        for (Object total : array) {
+            result.add(total instanceof Number ? ((Number) total).longValue() : null);
+        }
+        return result;
+    }
+
+    /**
+     * Daily totals of a project or user, with the totals of the users or projects below it.
+     */
+    public static class Row {
+
+        private final Long pid;
+        private final Long uid;
+        private final Map<String, String> title;
+        private final List<Long> totals;
+        private final List<Row> details = new ArrayList<>();
+
+        public Row(JSONObject object) {
+            this.pid = (Long) object.get("pid");
+            this.uid = (Long) object.get("uid");
+            this.title = SummaryReport.title(object);
+            this.totals = totals((JSONArray) object.get("totals"));
+            JSONArray detailArray = (JSONArray) object.get("details");
+            if (detailArray != null) {
+                for (Object detail : detailArray) {
+                    details.add(new Row((JSONObject) detail));
+                }
+            }
+        }
+
+        /**
+         * @return project id of rows grouped by project, null otherwise or without project
+         */
+        public Long getPid() {
+            return pid;
+        }
+
+        /**
+         * @return user id of rows grouped by user, null otherwise
+         */
+        public Long getUid() {
+            return uid;
+        }
+
+        public Map<String, String> getTitle() {
+            return title;
+        }
+
+        public List<Long> getTotals() {
+            return totals;
+        }
+
+        public List<Row> getDetails() {
+            return details;
+        }
+    }
+}
@@ -35,7 +35,10 @@ public class Workspace {
     }
 
     public Workspace(String jsonString) {
-        JSONObject object = (JSONObject) JSONValue.parse(jsonString);
+        this((JSONObject) JSONValue.parse(jsonString));
+    }
+
+    public Workspace(JSONObject object) {
         this.id = (Long) object.get("id");
         this.name = (String) object.get("name");
         this.premium = (Boolean) object.get("premium");
@@ -0,0 +1,195 @@
+package ch.simas.jtoggl.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ContentHandler;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Decodes a JSON array of entities in a single pass over the input.
+ * <p>
+ * The parser's token events are used to build one array element at a time;
+ * each element is handed to the entity factory as soon as it is complete and
+ * is then dropped, so neither the whole array nor a serialized copy of any
+ * element is ever kept in memory.
+ *
+ * @param <T> entity type
+ */
+public class JsonStreamDecoder<T> implements ContentHandler {
+
+    private final String arrayKey;
+    private final Function<JSONObject, T> factory;
+    private final Consumer<? super T> sink;
+    private final Map<String, Object> fields = new HashMap<>();
+
+    private final Deque<Object> containers = new ArrayDeque<>();
+    private final Deque<String> keys = new ArrayDeque<>();
+    private int depth;
+    private String rootKey;
+    private boolean inArray;
+
+    private JsonStreamDecoder(String arrayKey, Function<JSONObject, T> factory, Consumer<? super T> sink) {
+        this.arrayKey = arrayKey;
+        this.factory = factory;
+        this.sink = sink;
+    }
+
+    /**
+     * Decode a top level JSON array, e.g. the response of a list endpoint.
+     *
+     * @param json the JSON array, may be "null"
+     * @param factory creates an entity from an array element
+     * @return decoded entities
+     */
+    public static <T> List<T> decodeList(String json, Function<JSONObject, T> factory) {
+        List<T> result = new ArrayList<>();
+        decode(new StringReader(json), null, factory, result::add);
+        return result;
+    }
+
+    /**
+     * Decode the entities of an array and collect all other top level fields.
+     *
+     * @param reader JSON input
+     * @param arrayKey key of the entity array in the top level object, null if the input is the array itself
+     * @param factory creates an entity from an array element
+     * @param sink receives the entities in array order
+     * @return all top level fields except the entity array
+     */
+    public static <T> Map<String, Object> decode(Reader reader, String arrayKey, Function<JSONObject, T> factory, Consumer<? super T> sink) {
+        JsonStreamDecoder<T> decoder = new JsonStreamDecoder<>(arrayKey, factory, sink);
+        try {
+            new JSONParser().parse(reader, decoder);
+        } catch (IOException | ParseException e) {
+            throw new RuntimeException("invalid JSON response", e);
+        }
+        return decoder.fields;
+    }
+
+    @Override
+    public void startJSON() {
+    }
+
+    @Override
+    public void endJSON() {
+    }
+
+    @Override
+    public boolean startObject() {
+        if (containers.isEmpty() && !inArray && depth == 0 && arrayKey != null) {
+            depth++;
+            return true;
+        }
+        depth++;
+        begin(new JSONObject());
+        return true;
+    }
+
+    @Override
+    public boolean endObject() {
+        depth--;
+        if (!containers.isEmpty()) {
+            end();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean startObjectEntry(String key) {
+        if (containers.isEmpty()) {
+            rootKey = key;
+        } else {
+            keys.push(key);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean endObjectEntry() {
+        if (!containers.isEmpty()) {
+            keys.pop();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean startArray() {
+        if (containers.isEmpty() && !inArray
+                && ((arrayKey == null && depth == 0) || (depth == 1 && arrayKey != null && arrayKey.equals(rootKey)))) {
+            inArray = true;
+            depth++;
+            return true;
+        }
+        depth++;
+        begin(new JSONArray());
+        return true;
+    }
+
+    @Override
+    public boolean endArray() {
+        depth--;
+        if (containers.isEmpty()) {
+            inArray = false;
+        } else {
+            end();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean primitive(Object value) {
+        if (containers.isEmpty()) {
+            complete(value);
+        } else {
+            attach(value);
+        }
+        return true;
+    }
+
+    private void begin(Object container) {
+        if (!containers.isEmpty()) {
+            attach(container);
+        }
+        containers.push(container);
+    }
+
+    private void end() {
+        Object container = containers.pop();
+        if (containers.isEmpty()) {
+            complete(container);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void attach(Object value) {
+        Object parent = containers.peek();
+        if (parent instanceof JSONObject) {
+            ((JSONObject) parent).put(keys.peek(), value);
+        } else {
+            ((JSONArray) parent).add(value);
+        }
+    }
+
+    private void complete(Object value) {
+        if (inArray) {
+            if (value instanceof JSONObject) {
+                sink.accept(factory.apply((JSONObject) value));
+            }
+        } else if (rootKey != null) {
+            fields.put(rootKey, value);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package ch.simas.jtoggl.util;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns dense int codes to distinct strings, so repeated values like descriptions
+ * and tags are stored once and compared by code.
+ * <p>
+ * The encoded form is the number of strings, their offsets into the UTF-8 bytes and
+ * the bytes. A dictionary read from a buffer decodes a string on its first access and
+ * is read only; its first {@link #indexOf(String)} decodes all strings.
+ */
+public class StringDictionary {
+
+    /**
+     * Code of null.
+     */
+    public static final int NULL = -1;
+
+    private final List<String> added;
+    private final ByteBuffer bytes;
+    private final IntBuffer offsets;
+    private final String[] decoded;
+    private Map<String, Integer> codes;
+    private int encodedBytes;
+
+    public StringDictionary() {
+        this.added = new ArrayList<>();
+        this.codes = new HashMap<>();
+        this.bytes = null;
+        this.offsets = null;
+        this.decoded = null;
+    }
+
+    private StringDictionary(IntBuffer offsets, ByteBuffer bytes, int size) {
+        this.added = null;
+        this.codes = null;
+        this.offsets = offsets;
+        this.bytes = bytes;
+        this.decoded = new String[size];
+        this.encodedBytes = offsets.get(size);
+    }
+
+    /**
+     * @param value string to add, may be null
+     * @return code of the string, {@link #NULL} for null
+     */
+    public int add(String value) {
+        if (added == null) {
+            throw new UnsupportedOperationException("dictionary is read only");
+        }
+        if (value == null) {
+            return NULL;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = added.size();
+            added.add(value);
+            codes.put(value, code);
+            encodedBytes += value.getBytes(StandardCharsets.UTF_8).length;
+        }
+        return code;
+    }
+
+    /**
+     * @param value string to look up
+     * @return code of the string, {@link #NULL} if it is null or not in the dictionary
+     */
+    public int indexOf(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        if (codes == null) {
+            Map<String, Integer> index = new HashMap<>();
+            for (int code = 0; code < decoded.length; code++) {
+                index.putIfAbsent(get(code), code);
+            }
+            codes = index;
+        }
+        Integer code = codes.get(value);
+        return code == null ? NULL : code;
+    }
+
+    /**
+     * @param code code of a string
+     * @return the string, null for {@link #NULL}
+     */
+    public String get(int code) {
+        if (code == NULL) {
+            return null;
+        }
+        if (added != null) {
+            return added.get(code);
+        }
+        String value = decoded[code];
+        if (value == null) {
+            int start = offsets.get(code);
+            byte[] utf8 = new byte[offsets.get(code + 1) - start];
+            ByteBuffer source = bytes.duplicate();
+            ((Buffer) source).position(start);
+            source.get(utf8);
+            value = new String(utf8, StandardCharsets.UTF_8);
+            decoded[code] = value;
+        }
+        return value;
+    }
+
+    public int size() {
+        return added == null ? decoded.length : added.size();
+    }
+
+    /**
+     * @return number of bytes {@link #writeTo(ByteBuffer)} writes
+     */
+    public int getEncodedSize() {
+        return 4 + 4 * (size() + 1) + encodedBytes;
+    }
+
+    /**
+     * @param buffer buffer to write the encoded dictionary to at its position
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(added.size());
+        int offsets = buffer.position();
+        // positioned through Buffer, whose ByteBuffer overrides only exist since Java 9
+        ((Buffer) buffer).position(offsets + 4 * (added.size() + 1));
+        int offset = 0;
+        for (int code = 0; code < added.size(); code++) {
+            byte[] utf8 = added.get(code).getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(offsets + 4 * code, offset);
+            buffer.put(utf8);
+            offset += utf8.length;
+        }
+        buffer.putInt(offsets + 4 * added.size(), offset);
+    }
+
+    /**
+     * @param buffer buffer positioned at an encoded dictionary, it is not copied
+     * @return read only dictionary backed by the buffer
+     */
+    public static StringDictionary readFrom(ByteBuffer buffer) {
+        ByteBuffer view = buffer.slice().order(buffer.order());
+        int size = view.getInt(0);
+        ((Buffer) view).position(4);
+        IntBuffer offsets = view.slice().order(buffer.order()).asIntBuffer();
+        ((Buffer) offsets).limit(size + 1);
+        ((Buffer) view).position(4 + 4 * (size + 1));
+        return new StringDictionary(offsets, view.slice(), size);
+    }
+}
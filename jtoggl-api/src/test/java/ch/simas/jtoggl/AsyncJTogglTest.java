@@ -0,0 +1,125 @@
+package ch.simas.jtoggl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncJTogglTest {
+
+    private StubServer server;
+    private AsyncJToggl asyncJToggl;
+
+    @Before
+    public void before() throws Exception {
+        server = new StubServer()
+                .respond("/api/v8/workspaces", exchange -> "[{\"id\":1,\"name\":\"ws\"},{\"id\":2,\"name\":\"ws2\"}]")
+                .respond("/api/v8/time_entries", exchange -> exchange.getRequestURI().getPath().endsWith("/404") ? 404 : 200,
+                        exchange -> "{\"data\":{\"id\":42,\"description\":\"async\"}}");
+        JToggl jToggl = new JToggl("async-test-token");
+        jToggl.setRateLimiter(new TokenBucketRateLimiter(0, 1));
+        jToggl.setApiRoot(server.getUrl() + "/api");
+        asyncJToggl = new AsyncJToggl(jToggl);
+    }
+
+    @After
+    public void after() {
+        server.close();
+    }
+
+    @Test
+    public void completesWithEntities() throws Exception {
+        List<CompletableFuture<TimeEntry>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(asyncJToggl.getTimeEntry(42L));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+
+        for (CompletableFuture<TimeEntry> future : futures) {
+            Assert.assertEquals("async", future.get().getDescription());
+        }
+        Assert.assertEquals(2, asyncJToggl.getWorkspaces().get().size());
+    }
+
+    @Test
+    public void completesExceptionallyLikeBlockingCall() throws Exception {
+        try {
+            asyncJToggl.getTimeEntry(404L).get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof RuntimeException);
+            Assert.assertTrue(e.getCause().getMessage().startsWith("not found"));
+        }
+    }
+
+    @Test
+    public void multiplexesRequestsOnOneIoThread() throws Exception {
+        CountDownLatch arrived = new CountDownLatch(8);
+        AtomicInteger concurrent = new AtomicInteger();
+        try (StubServer slow = new StubServer().respond("/api/v8/time_entries", exchange -> {
+            arrived.countDown();
+            try {
+                // every handler waits until all requests are in flight at the same time
+                if (arrived.await(5, TimeUnit.SECONDS)) {
+                    concurrent.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "{\"data\":{\"id\":42,\"description\":\"async\"}}";
+        }); AsyncHttpTransport transport = new AsyncHttpTransport(8, 8, 1, 30 * 1000L, 15 * 1000)) {
+            JToggl jToggl = asyncJToggl.getJToggl();
+            jToggl.setApiRoot(slow.getUrl() + "/api");
+            AsyncJToggl async = new AsyncJToggl(jToggl, transport);
+
+            List<CompletableFuture<TimeEntry>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(async.getTimeEntry(42L));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+            Assert.assertEquals(8, concurrent.get());
+        }
+    }
+
+    @Test
+    public void retriesServerErrors() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        try (StubServer flaky = new StubServer().respond("/api/v8/time_entries",
+                exchange -> requests.incrementAndGet() <= 2 ? 503 : 200,
+                exchange -> "{\"data\":{\"id\":42,\"description\":\"async\"}}")) {
+            JToggl jToggl = asyncJToggl.getJToggl();
+            jToggl.setApiRoot(flaky.getUrl() + "/api");
+            jToggl.setRetryPolicy(new RetryPolicy().setBackoff(1, 10, TimeUnit.MILLISECONDS));
+
+            Assert.assertEquals("async", asyncJToggl.getTimeEntry(42L).get().getDescription());
+            Assert.assertEquals(3, requests.get());
+            Assert.assertEquals(2, jToggl.getRetryPolicy().getStats().getRetries());
+            Assert.assertEquals(1, jToggl.getRetryPolicy().getStats().getRecovered());
+        }
+    }
+
+    @Test
+    public void openCircuitBreakerRejectsWithoutRequest() throws Exception {
+        JToggl jToggl = asyncJToggl.getJToggl();
+        CircuitBreaker breaker = new CircuitBreaker(2).setMinimumCalls(1);
+        breaker.onResult(0, true);
+        jToggl.setCircuitBreaker(JToggl.Endpoint.API, breaker);
+        int before = server.getRequestCount();
+        try {
+            asyncJToggl.getTimeEntry(42L).get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof CallNotPermittedException);
+        }
+        Assert.assertEquals(before, server.getRequestCount());
+    }
+}
@@ -0,0 +1,152 @@
+package ch.simas.jtoggl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+
+public class BulkTimeEntriesTest {
+
+    private final AtomicLong ids = new AtomicLong(1000);
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    private StubServer server;
+    private JToggl jToggl;
+
+    @Before
+    public void before() throws Exception {
+        server = new StubServer().respond("/api/v8/time_entries",
+                exchange -> (Integer) exchange.getAttribute("status"),
+                exchange -> {
+                    maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(50);
+                        return answer(exchange);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException(e);
+                    } finally {
+                        concurrent.decrementAndGet();
+                    }
+                });
+        jToggl = new JToggl("bulk-test-token");
+        jToggl.setRateLimiter(new TokenBucketRateLimiter(0, 1));
+        jToggl.setApiRoot(server.getUrl() + "/api");
+    }
+
+    @After
+    public void after() {
+        server.close();
+    }
+
+    private String answer(HttpExchange exchange) {
+        if ("DELETE".equals(exchange.getRequestMethod())) {
+            boolean missing = exchange.getRequestURI().getPath().endsWith("/13");
+            exchange.setAttribute("status", missing ? 404 : 200);
+            return "";
+        }
+        JSONObject entry = (JSONObject) ((JSONObject) JSONValue.parse(read(exchange))).get("time_entry");
+        if ("fail".equals(entry.get("description"))) {
+            exchange.setAttribute("status", 400);
+            return "\"description rejected\"";
+        }
+        if ("crash".equals(entry.get("description"))) {
+            exchange.setAttribute("status", 500);
+            return "\"internal error\"";
+        }
+        if (entry.get("id") == null) {
+            entry.put("id", ids.incrementAndGet());
+        }
+        exchange.setAttribute("status", 200);
+        return "{\"data\":" + entry.toJSONString() + "}";
+    }
+
+    private static String read(HttpExchange exchange) {
+        try (InputStream in = exchange.getRequestBody()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read; (read = in.read(buffer)) > 0; ) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Test
+    public void createReportsEveryItemInOrder() {
+        List<TimeEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            TimeEntry entry = new TimeEntry();
+            entry.setDescription(i == 5 ? "fail" : i == 9 ? "crash" : "entry " + i);
+            entry.setDuration(60L);
+            entries.add(entry);
+        }
+
+        List<BulkResult<TimeEntry, TimeEntry>> results = jToggl.createTimeEntries(entries, 4);
+
+        Assert.assertEquals(20, results.size());
+        for (int i = 0; i < 20; i++) {
+            BulkResult<TimeEntry, TimeEntry> result = results.get(i);
+            Assert.assertSame(entries.get(i), result.getItem());
+            if (i == 5) {
+                Assert.assertEquals(BulkResult.Status.FAILED, result.getStatus());
+                Assert.assertNull(result.getResult());
+                Assert.assertNotNull(result.getException());
+            } else if (i == 9) {
+                // a create is never repeated, so a server error is reported as is
+                Assert.assertEquals(BulkResult.Status.SERVER_ERROR, result.getStatus());
+                Assert.assertTrue(result.getException() instanceof ServerErrorException);
+            } else {
+                Assert.assertTrue(result.toString(), result.isSuccess());
+                Assert.assertEquals("entry " + i, result.getResult().getDescription());
+                Assert.assertNotNull(result.getResult().getId());
+            }
+        }
+        Assert.assertTrue("max concurrent " + maxConcurrent.get(), maxConcurrent.get() <= 4);
+        Assert.assertTrue("max concurrent " + maxConcurrent.get(), maxConcurrent.get() > 1);
+    }
+
+    @Test
+    public void updateKeepsIds() {
+        TimeEntry entry = new TimeEntry();
+        entry.setId(7L);
+        entry.setDescription("renamed");
+
+        List<BulkResult<TimeEntry, TimeEntry>> results = jToggl.updateTimeEntries(Arrays.asList(entry));
+
+        Assert.assertTrue(results.get(0).isSuccess());
+        Assert.assertEquals(Long.valueOf(7), results.get(0).getResult().getId());
+        Assert.assertEquals("renamed", results.get(0).getResult().getDescription());
+    }
+
+    @Test
+    public void destroyContinuesAfterFailure() {
+        List<BulkResult<Long, Void>> results = jToggl.destroyTimeEntries(Arrays.asList(11L, 12L, 13L, 14L), 2);
+
+        Assert.assertEquals(4, results.size());
+        Assert.assertEquals(Long.valueOf(13), results.get(2).getItem());
+        Assert.assertTrue(results.get(0).isSuccess());
+        Assert.assertTrue(results.get(1).isSuccess());
+        Assert.assertEquals(BulkResult.Status.FAILED, results.get(2).getStatus());
+        Assert.assertTrue(results.get(2).getException() instanceof NotFoundException);
+        Assert.assertTrue(results.get(3).isSuccess());
+        Assert.assertEquals(4, server.getRequestCount());
+    }
+}
@@ -0,0 +1,196 @@
+package ch.simas.jtoggl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+    private StubServer server;
+
+    @After
+    public void after() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void opensAtFailureRate() {
+        CircuitBreaker breaker = new CircuitBreaker(10).setMinimumCalls(4).setFailureRateThreshold(50);
+        record(breaker, false);
+        record(breaker, true);
+        record(breaker, false);
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        record(breaker, true);
+
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Assert.assertFalse(breaker.tryAcquirePermission());
+        Assert.assertEquals(1, breaker.getNotPermittedCalls());
+    }
+
+    @Test
+    public void forgetsCallsLeavingTheWindow() {
+        CircuitBreaker breaker = new CircuitBreaker(4).setMinimumCalls(4).setFailureRateThreshold(75);
+        record(breaker, true);
+        record(breaker, true);
+        record(breaker, false);
+        record(breaker, false);
+        record(breaker, false);
+        record(breaker, true);
+
+        Assert.assertEquals(25f, breaker.getFailureRate(), 0.01);
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void opensAtSlowCallRate() {
+        CircuitBreaker breaker = new CircuitBreaker(4).setMinimumCalls(2).setSlowCallThreshold(100, 1, TimeUnit.SECONDS);
+        breaker.tryAcquirePermission();
+        breaker.onResult(TimeUnit.SECONDS.toNanos(2), false);
+        breaker.tryAcquirePermission();
+        breaker.onResult(TimeUnit.SECONDS.toNanos(3), false);
+
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void probesAfterOpenDuration() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(2).setMinimumCalls(1).setHalfOpenCalls(2)
+                .setOpenDuration(50, TimeUnit.MILLISECONDS);
+        record(breaker, true);
+        Thread.sleep(60);
+
+        Assert.assertTrue(breaker.tryAcquirePermission());
+        Assert.assertTrue(breaker.tryAcquirePermission());
+        Assert.assertFalse(breaker.tryAcquirePermission());
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onResult(0, false);
+        breaker.onResult(0, true);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        Thread.sleep(60);
+        record(breaker, false);
+        record(breaker, false);
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assert.assertEquals(0f, breaker.getFailureRate(), 0.01);
+    }
+
+    @Test
+    public void reportsFailuresDoNotStopApiCalls() throws Exception {
+        server = new StubServer()
+                .respond("/reports/details", exchange -> 500, exchange -> "")
+                .respond("/api/v8/me", exchange -> "{\"data\":{\"id\":1}}");
+        JToggl jToggl = new JToggl("breaker-test-token");
+        jToggl.setRateLimiter(new TokenBucketRateLimiter(0, 1));
+        jToggl.setRetryPolicy(RetryPolicy.none());
+        jToggl.setApiRoot(server.getUrl() + "/api");
+        jToggl.setReportsEndpoint(server.getUrl() + "/reports");
+        jToggl.setCircuitBreaker(JToggl.Endpoint.REPORTS, new CircuitBreaker(4).setMinimumCalls(2));
+
+        for (int i = 0; i < 4; i++) {
+            try {
+                jToggl.getDetailedReport(new PagedReportsParameter(1, "test"));
+                Assert.fail();
+            } catch (ServerErrorException | CallNotPermittedException e) {
+                // expected
+            }
+        }
+
+        Assert.assertEquals(2, server.getRequestCount());
+        Assert.assertEquals(CircuitBreaker.State.OPEN, jToggl.getCircuitBreaker(JToggl.Endpoint.REPORTS).getState());
+        Assert.assertEquals(Long.valueOf(1), jToggl.getCurrentUser().getId());
+    }
+
+    @Test
+    public void bulkheadLimitsConcurrentCalls() throws Exception {
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        server = new StubServer().respond("/api/v8/me", exchange -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrent.decrementAndGet();
+            }
+            return "{\"data\":{\"id\":1}}";
+        });
+        JToggl jToggl = new JToggl("bulkhead-test-token");
+        jToggl.setRateLimiter(new TokenBucketRateLimiter(0, 1));
+        jToggl.setApiRoot(server.getUrl() + "/api");
+        jToggl.setBulkhead(JToggl.Endpoint.API, new Bulkhead(2, 200, TimeUnit.MILLISECONDS));
+
+        List<Future<User>> calls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            calls.add(jToggl.getExecutor().submit(jToggl::getCurrentUser));
+        }
+        Thread.sleep(500);
+        release.countDown();
+
+        int rejected = 0;
+        for (Future<User> call : calls) {
+            try {
+                call.get();
+            } catch (java.util.concurrent.ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof CallNotPermittedException);
+                rejected++;
+            }
+        }
+        Assert.assertEquals(2, rejected);
+        Assert.assertEquals(2, maxConcurrent.get());
+        Assert.assertEquals(2, jToggl.getBulkhead(JToggl.Endpoint.API).getRejectedCalls());
+        Assert.assertEquals(2, jToggl.getBulkhead(JToggl.Endpoint.API).getAvailableCalls());
+    }
+
+    @Test
+    public void interruptedRateLimiterWaitKeepsProbe() throws Exception {
+        server = new StubServer().respond("/api/v8/me", exchange -> "{\"data\":{\"id\":1}}");
+        JToggl jToggl = new JToggl("breaker-test-token");
+        jToggl.setApiRoot(server.getUrl() + "/api");
+        CircuitBreaker breaker = new CircuitBreaker(2).setMinimumCalls(1).setHalfOpenCalls(1)
+                .setOpenDuration(50, TimeUnit.MILLISECONDS);
+        jToggl.setCircuitBreaker(JToggl.Endpoint.API, breaker);
+        jToggl.setBulkhead(JToggl.Endpoint.API, new Bulkhead(1, 0, TimeUnit.MILLISECONDS));
+        record(breaker, true);
+        Thread.sleep(60);
+
+        jToggl.setRateLimiter(new RateLimiter() {
+            @Override
+            public long acquire() {
+                throw new RuntimeException("interrupted while waiting for rate limiter");
+            }
+
+            @Override
+            public boolean tryAcquire() {
+                return false;
+            }
+        });
+        try {
+            jToggl.getCurrentUser();
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertEquals("interrupted while waiting for rate limiter", e.getMessage());
+        }
+
+        jToggl.setRateLimiter(new TokenBucketRateLimiter(0, 1));
+        Assert.assertEquals(Long.valueOf(1), jToggl.getCurrentUser().getId());
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assert.assertEquals(1, jToggl.getBulkhead(JToggl.Endpoint.API).getAvailableCalls());
+    }
+
+    private static void record(CircuitBreaker breaker, boolean failed) {
+        Assert.assertTrue(breaker.tryAcquirePermission());
+        breaker.onResult(0, failed);
+    }
+}
@@ -0,0 +1,117 @@
+package ch.simas.jtoggl;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+
+public class ConditionalCacheTest {
+
+    private static final String WORKSPACES = "[{\"id\":1,\"name\":\"First\"},{\"id\":2,\"name\":\"Second\"}]";
+    private static final String LAST_MODIFIED = "Mon, 04 Jan 2021 08:00:00 GMT";
+
+    private final AtomicReference<String> etag = new AtomicReference<>("\"v1\"");
+    private final AtomicReference<String> acceptEncoding = new AtomicReference<>();
+    private StubServer server;
+    private JToggl jToggl;
+
+    @Before
+    public void before() throws Exception {
+        server = new StubServer()
+                .respond("/api/v8/workspaces", exchange -> notModified(exchange) ? 304 : 200, exchange -> {
+                    acceptEncoding.set(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+                    exchange.getResponseHeaders().add("ETag", etag.get());
+                    return notModified(exchange) ? "" : WORKSPACES;
+                })
+                .respond("/api/v8/workspaces/1/projects",
+                        exchange -> LAST_MODIFIED.equals(exchange.getRequestHeaders().getFirst("If-Modified-Since")) ? 304 : 200,
+                        exchange -> {
+                            exchange.getResponseHeaders().add("Last-Modified", LAST_MODIFIED);
+                            return exchange.getRequestHeaders().containsKey("If-Modified-Since") ? "" : "[{\"id\":7,\"name\":\"Project\"}]";
+                        })
+                .respond("/api/v8/workspaces/1/tags", exchange -> "[{\"id\":3,\"name\":\"tag\"}]")
+                .respond("/api/v8/workspaces/2/tags", exchange -> 304, exchange -> "")
+                .gzip();
+        jToggl = new JToggl("cache-test-token");
+        jToggl.setRateLimiter(new TokenBucketRateLimiter(0, 1));
+        jToggl.setApiRoot(server.getUrl() + "/api");
+        jToggl.setConditionalCache(new ConditionalCache());
+    }
+
+    @After
+    public void after() {
+        server.close();
+    }
+
+    private boolean notModified(HttpExchange exchange) {
+        return etag.get().equals(exchange.getRequestHeaders().getFirst("If-None-Match"));
+    }
+
+    @Test
+    public void decodesCompressedResponses() {
+        Assert.assertEquals("Second", jToggl.getWorkspaces().get(2L).getName());
+        Assert.assertTrue(acceptEncoding.get(), acceptEncoding.get().contains("gzip"));
+        Assert.assertTrue(acceptEncoding.get(), acceptEncoding.get().contains("deflate"));
+    }
+
+    @Test
+    public void unchangedDataIsNotDecodedAgain() {
+        Workspace first = jToggl.getWorkspaces().get(1L);
+        Workspace second = jToggl.getWorkspaces().get(1L);
+
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(first.getName(), second.getName());
+        Assert.assertEquals(2, server.getRequestCount());
+        Assert.assertEquals(1, jToggl.getConditionalCache().getStats().getHits());
+        Assert.assertEquals(1, jToggl.getConditionalCache().getStats().getMisses());
+    }
+
+    @Test
+    public void changedDataIsDecoded() {
+        Workspace first = jToggl.getWorkspaces().get(1L);
+        etag.set("\"v2\"");
+        Workspace second = jToggl.getWorkspaces().get(1L);
+        Workspace third = jToggl.getWorkspaces().get(1L);
+
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(second.getName(), third.getName());
+        Assert.assertEquals(1, jToggl.getConditionalCache().getStats().getHits());
+    }
+
+    @Test
+    public void revalidatesByLastModified() {
+        List<Project> first = jToggl.getWorkspaceProjects(1);
+        List<Project> second = jToggl.getWorkspaceProjects(1);
+
+        Assert.assertEquals(1, second.size());
+        Assert.assertEquals(first, second);
+        Assert.assertEquals("Project", second.get(0).getName());
+        Assert.assertEquals(1, jToggl.getConditionalCache().getStats().getHits());
+    }
+
+    @Test
+    public void notModifiedWithoutCachedResponseFails() {
+        try {
+            jToggl.getWorkspaceTags(2);
+            Assert.fail();
+        } catch (TogglException e) {
+            Assert.assertEquals(304, e.getStatusCode());
+        }
+        Assert.assertEquals(0, jToggl.getConditionalCache().getStats().getHits());
+    }
+
+    @Test
+    public void responsesWithoutValidatorsAreNotCached() {
+        jToggl.getWorkspaceTags(1);
+        jToggl.getWorkspaceTags(1);
+
+        Assert.assertEquals(0, jToggl.getConditionalCache().size());
+        Assert.assertEquals(2, jToggl.getConditionalCache().getStats().getMisses());
+    }
+}
@@ -0,0 +1,140 @@
+package ch.simas.jtoggl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DetailedReportExportTest {
+
+    private static final int PER_PAGE = 100;
+    private static final long TOTAL = 250;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicReference<String> authorization = new AtomicReference<>();
+    private StubServer server;
+    private JToggl jToggl;
+
+    @Before
+    public void before() throws Exception {
+        server = new StubServer()
+                .respond("/reports/details", exchange -> {
+                    authorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+                    return ReportFixtures.detailedReportPage(ReportFixtures.page(exchange.getRequestURI()), PER_PAGE, TOTAL);
+                })
+                .gzip();
+        jToggl = new JToggl("export-test-token");
+        jToggl.setRateLimiter(new TokenBucketRateLimiter(0, 1));
+        jToggl.setReportsEndpoint(server.getUrl() + "/reports");
+    }
+
+    @After
+    public void after() {
+        server.close();
+    }
+
+    @Test
+    public void writesOnePagePerLine() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("report.ndjson");
+
+        long written = jToggl.exportDetailedReport(new PagedReportsParameter(1, "test"), file);
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Assert.assertEquals(3, lines.size());
+        for (int page = 1; page <= 3; page++) {
+            Assert.assertEquals(ReportFixtures.detailedReportPage(page, PER_PAGE, TOTAL), lines.get(page - 1));
+        }
+        Assert.assertEquals(Files.size(file), written);
+        Assert.assertEquals(3, server.getRequestCount());
+        Assert.assertEquals("Basic " + Base64.getEncoder().encodeToString("export-test-token:api_token".getBytes(StandardCharsets.UTF_8)),
+                authorization.get());
+    }
+
+    @Test
+    public void startsAtParameterPage() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        jToggl.exportDetailedReport(new PagedReportsParameter(1, "test").setPage(3), out);
+
+        Assert.assertEquals(ReportFixtures.detailedReportPage(3, PER_PAGE, TOTAL) + "\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+        Assert.assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void failingReaderDropsConnectionInsteadOfDraining() throws Exception {
+        char[] large = new char[4 * 1024 * 1024];
+        Arrays.fill(large, ' ');
+        String body = new String(large);
+        try (StubServer big = new StubServer().respond("/reports/details", exchange -> body);
+                HttpTransport transport = new HttpTransport()) {
+            jToggl.setTransport(transport);
+            String url = big.getUrl() + "/reports/details";
+            try {
+                jToggl.fetchRaw(url, in -> {
+                    throw new IllegalStateException("reader failed");
+                });
+                Assert.fail();
+            } catch (IllegalStateException expected) {
+                // the connection was aborted, not returned to the pool
+            }
+            Assert.assertEquals(0, transport.getOpenConnections());
+
+            Assert.assertEquals(body.length(), jToggl.fetchRaw(url, in -> {
+                try {
+                    long count = 0;
+                    while (in.read() >= 0) {
+                        count++;
+                    }
+                    return count;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            Assert.assertEquals(2, big.getConnectionCount());
+        }
+    }
+
+    @Test(expected = ForbiddenException.class)
+    public void failsOnErrorStatus() throws Exception {
+        try (StubServer forbidden = new StubServer().respond("/reports/details", exchange -> 403, exchange -> "forbidden")) {
+            jToggl.setReportsEndpoint(forbidden.getUrl() + "/reports");
+            jToggl.exportDetailedReport(new PagedReportsParameter(1, "test"), new ByteArrayOutputStream());
+        }
+    }
+
+    @Test
+    public void findsNumbersAcrossBufferBoundaries() {
+        String json = "{\"description\":\"\\\"total_count\\\": 1\",\"per_page\" : null,"
+                + "\"note\":\"total_count\",\"total_count\" :\n 1234,\"data\":[]}";
+        DetailedReportExport.NumberField totalCount = new DetailedReportExport.NumberField("total_count");
+        DetailedReportExport.NumberField perPage = new DetailedReportExport.NumberField("per_page");
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i += 3) {
+            ByteBuffer chunk = ByteBuffer.wrap(bytes, i, Math.min(3, bytes.length - i));
+            totalCount.scan(chunk);
+            perPage.scan(chunk);
+        }
+
+        Assert.assertEquals(Long.valueOf(1234), totalCount.getValue());
+        Assert.assertNull(perPage.getValue());
+        Assert.assertTrue(DetailedReportExport.isLastPage(null, 50L, 1));
+        Assert.assertFalse(DetailedReportExport.isLastPage(101L, 50L, 2));
+        Assert.assertTrue(DetailedReportExport.isLastPage(100L, 50L, 2));
+    }
+}
@@ -0,0 +1,108 @@
+package ch.simas.jtoggl;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DetailedReportIteratorTest {
+
+    private static final int PER_PAGE = 100;
+    private static final long TOTAL = 5000;
+
+    private StubServer server;
+    private JToggl jToggl;
+
+    @Before
+    public void before() throws Exception {
+        server = new StubServer()
+                .respond("/reports/details", exchange -> ReportFixtures.detailedReportPage(ReportFixtures.page(exchange.getRequestURI()), PER_PAGE, TOTAL));
+        jToggl = new JToggl("report-test-token");
+        jToggl.setRateLimiter(new TokenBucketRateLimiter(0, 1));
+        jToggl.setReportsEndpoint(server.getUrl() + "/reports");
+    }
+
+    @After
+    public void after() {
+        server.close();
+    }
+
+    @Test
+    public void streamsAllPages() {
+        AtomicLong expectedId = new AtomicLong(1);
+        long count = jToggl.streamDetailedReport(new PagedReportsParameter(1, "test"))
+                .peek(entry -> Assert.assertEquals(expectedId.getAndIncrement(), entry.getId().longValue()))
+                .count();
+
+        Assert.assertEquals(TOTAL, count);
+        Assert.assertEquals(TOTAL / PER_PAGE, server.getRequestCount());
+    }
+
+    @Test
+    public void stopsFetchingWhenShortCircuited() {
+        List<TimeEntry> first = jToggl.streamDetailedReport(new PagedReportsParameter(1, "test"))
+                .limit(PER_PAGE + 1)
+                .collect(Collectors.toList());
+
+        Assert.assertEquals(PER_PAGE + 1, first.size());
+        Assert.assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void startsAtParameterPage() {
+        PagedReportsParameter parameters = new PagedReportsParameter(1, "test").setPage(50);
+        Iterator<TimeEntry> iterator = jToggl.iterateDetailedReport(parameters);
+
+        Assert.assertEquals(Long.valueOf(49 * PER_PAGE + 1), iterator.next().getId());
+        int count = 1;
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        Assert.assertEquals(PER_PAGE, count);
+        Assert.assertFalse(iterator.hasNext());
+        Assert.assertEquals(50, parameters.getPage());
+    }
+
+    @Test
+    public void prefetchKeepsPageOrder() throws Exception {
+        // pages 2 and 3 only answer once both have been requested, which needs concurrent fetches
+        CountDownLatch bothRequested = new CountDownLatch(2);
+        AtomicBoolean overlapped = new AtomicBoolean(true);
+        try (StubServer slow = new StubServer().respond("/reports/details", exchange -> {
+            int page = ReportFixtures.page(exchange.getRequestURI());
+            try {
+                if (page == 2 || page == 3) {
+                    bothRequested.countDown();
+                    if (!bothRequested.await(5, TimeUnit.SECONDS)) {
+                        overlapped.set(false);
+                    }
+                }
+                // odd pages answer slower, so out-of-order completion would show
+                Thread.sleep(page % 2 == 1 ? 60 : 10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ReportFixtures.detailedReportPage(page, 50, 1000);
+        })) {
+            jToggl.setReportsEndpoint(slow.getUrl() + "/reports");
+
+            AtomicLong expectedId = new AtomicLong(1);
+            long count = jToggl.streamDetailedReport(new PagedReportsParameter(1, "test"), 4)
+                    .peek(entry -> Assert.assertEquals(expectedId.getAndIncrement(), entry.getId().longValue()))
+                    .count();
+
+            Assert.assertEquals(1000, count);
+            Assert.assertEquals(20, slow.getRequestCount());
+            Assert.assertTrue("pages 2 and 3 were not fetched concurrently", overlapped.get());
+        }
+    }
+}
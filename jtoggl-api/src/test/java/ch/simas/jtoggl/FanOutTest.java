@@ -0,0 +1,102 @@
+package ch.simas.jtoggl;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FanOutTest {
+
+    private static final int WORKSPACES = 12;
+
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    private StubServer server;
+    private JToggl jToggl;
+
+    @Before
+    public void before() throws Exception {
+        server = new StubServer().respond("/api/v8/workspaces",
+                exchange -> exchange.getRequestURI().getPath().contains("/7/") ? 404 : 200,
+                exchange -> {
+                    String[] path = exchange.getRequestURI().getPath().split("/");
+                    if (path.length == 4) {
+                        StringBuilder workspaces = new StringBuilder("[");
+                        for (int id = 1; id <= WORKSPACES; id++) {
+                            workspaces.append(id > 1 ? "," : "").append("{\"id\":").append(id).append("}");
+                        }
+                        return workspaces.append("]").toString();
+                    }
+                    maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        concurrent.decrementAndGet();
+                    }
+                    long wid = Long.parseLong(path[4]);
+                    return "[{\"id\":" + (wid * 100) + ",\"wid\":" + wid + ",\"name\":\"p" + wid + "\",\"fullname\":\"u" + wid + "\"}]";
+                });
+        jToggl = new JToggl("fan-out-test-token");
+        jToggl.setRateLimiter(new TokenBucketRateLimiter(0, 1));
+        jToggl.setApiRoot(server.getUrl() + "/api");
+        jToggl.setParallelism(4);
+    }
+
+    @After
+    public void after() {
+        server.close();
+    }
+
+    @Test
+    public void reportsFailedWorkspaces() {
+        FanOutResult<HashMap<Long, Project>> result = jToggl.getProjectsFanOut();
+
+        Assert.assertFalse(result.isComplete());
+        Assert.assertEquals(WORKSPACES - 1, result.getResult().size());
+        Assert.assertEquals(Long.valueOf(3), result.getResult().get(300L).getWorkspace().getId());
+        Assert.assertTrue(result.getFailures().containsKey(7L));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void strictVariantFails() {
+        jToggl.getProjects();
+    }
+
+    @Test
+    public void boundsParallelism() {
+        long start = System.nanoTime();
+        FanOutResult<List<User>> result = jToggl.getUsersFanOut();
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        Assert.assertEquals(WORKSPACES - 1, result.getResult().size());
+        Assert.assertTrue("max concurrent " + maxConcurrent.get(), maxConcurrent.get() <= 4);
+        Assert.assertTrue("max concurrent " + maxConcurrent.get(), maxConcurrent.get() > 1);
+        // 12 workspaces of 100ms each take 1.2s one after another
+        Assert.assertTrue("took " + elapsedMillis + "ms", elapsedMillis < 1000);
+    }
+
+    @Test
+    public void throwsSameFailureOnEveryCall() {
+        Map<Long, RuntimeException> failures = new LinkedHashMap<>();
+        failures.put(1L, new NotFoundException("first"));
+        failures.put(2L, new ForbiddenException("second"));
+        FanOutResult<String> result = new FanOutResult<>("partial", failures);
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                result.getResultOrThrow();
+                Assert.fail();
+            } catch (NotFoundException e) {
+                Assert.assertEquals(1, e.getSuppressed().length);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ch.simas.jtoggl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HttpTransportTest {
+
+    private StubServer server;
+    private HttpTransport transport;
+    private JToggl jToggl;
+
+    @Before
+    public void before() throws Exception {
+        server = new StubServer()
+                .respond("/api/v8/workspaces", exchange -> "[{\"id\":1,\"name\":\"ws\",\"premium\":false}]");
+        transport = new HttpTransport(4, 2, 60 * 1000L, 5 * 1000);
+        jToggl = new JToggl("transport-test-token");
+        jToggl.setRateLimiter(new TokenBucketRateLimiter(0, 1));
+        jToggl.setTransport(transport);
+        jToggl.setApiRoot(server.getUrl() + "/api");
+    }
+
+    @After
+    public void after() {
+        transport.close();
+        server.close();
+    }
+
+    @Test
+    public void sequentialRequestsReuseConnection() {
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals(1, jToggl.getWorkspaces().size());
+        }
+        Assert.assertEquals(20, server.getRequestCount());
+        Assert.assertEquals(1, server.getConnectionCount());
+    }
+
+    @Test
+    public void concurrentRequestsAreBoundedPerRoute() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                futures.add(executor.submit(() -> jToggl.getWorkspaces()));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(100, server.getRequestCount());
+        Assert.assertTrue("connections: " + server.getConnectionCount(), server.getConnectionCount() <= 2);
+    }
+}
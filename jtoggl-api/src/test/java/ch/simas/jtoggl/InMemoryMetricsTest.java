@@ -0,0 +1,100 @@
+package ch.simas.jtoggl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.simas.jtoggl.util.LatencyHistogram;
+
+public class InMemoryMetricsTest {
+
+    private StubServer server;
+    private JToggl jToggl;
+    private InMemoryMetrics metrics;
+
+    @Before
+    public void before() throws Exception {
+        server = new StubServer()
+                .respond("/api/v8/workspaces", exchange -> "[{\"id\":1,\"name\":\"Zürich\"},{\"id\":2}]")
+                .respond("/api/v8/projects", exchange -> 404, exchange -> "")
+                .respond("/reports/details", exchange -> ReportFixtures.detailedReportPage(1, 50, 120));
+        metrics = new InMemoryMetrics();
+        jToggl = new JToggl("metrics-test-token");
+        jToggl.setRateLimiter(new TokenBucketRateLimiter(0, 1));
+        jToggl.setApiRoot(server.getUrl() + "/api");
+        jToggl.setReportsEndpoint(server.getUrl() + "/reports");
+        jToggl.setCache(new MetadataCache());
+        jToggl.setMetrics(metrics);
+    }
+
+    @After
+    public void after() {
+        server.close();
+    }
+
+    @Test
+    public void recordsRequestsPerEndpoint() {
+        jToggl.getWorkspaces();
+        try {
+            jToggl.getProject(42L);
+            Assert.fail();
+        } catch (NotFoundException e) {
+            // expected
+        }
+        try {
+            jToggl.getProject(43L);
+            Assert.fail();
+        } catch (NotFoundException e) {
+            // expected
+        }
+
+        InMemoryMetrics.EndpointMetrics workspaces = metrics.getEndpoint("GET workspaces");
+        Assert.assertEquals(1, workspaces.getRequests());
+        Assert.assertEquals(Long.valueOf(1), workspaces.getStatusCodes().get(200));
+        Assert.assertEquals(36, workspaces.getBytesDecoded());
+        Assert.assertEquals(1, workspaces.getLatency().getCount());
+
+        InMemoryMetrics.EndpointMetrics project = metrics.getEndpoint("GET projects/{id}");
+        Assert.assertEquals(2, project.getRequests());
+        Assert.assertEquals(Long.valueOf(2), project.getStatusCodes().get(404));
+        Assert.assertEquals(3, metrics.getThrottleWait().getCount());
+    }
+
+    @Test
+    public void recordsDecodingAndCache() {
+        jToggl.getWorkspaces();
+        jToggl.getWorkspaces();
+        jToggl.getDetailedReport(new PagedReportsParameter(1, "test"));
+
+        Assert.assertEquals(2, metrics.getDecodedEntities("Workspace"));
+        Assert.assertEquals(1, metrics.getDecodeTime("Workspace").getCount());
+        Assert.assertEquals(50, metrics.getDecodedEntities("TimeEntry"));
+        Assert.assertEquals(1, metrics.getCacheHits(MetadataCache.Region.WORKSPACES));
+        Assert.assertEquals(0.5, metrics.getCacheHitRatio(MetadataCache.Region.WORKSPACES), 0.001);
+        Assert.assertNotNull(metrics.getEndpoint("GET reports/details"));
+    }
+
+    @Test
+    public void histogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        Assert.assertEquals(1000, histogram.getCount());
+        Assert.assertEquals(1000, histogram.getMax(TimeUnit.MILLISECONDS));
+        Assert.assertEquals(500.5, histogram.getMean(TimeUnit.MILLISECONDS), 0.01);
+        assertWithin(500, histogram.getPercentile(50, TimeUnit.MICROSECONDS) / 1000.0);
+        assertWithin(990, histogram.getPercentile(99, TimeUnit.MICROSECONDS) / 1000.0);
+        Assert.assertEquals(1000, histogram.getPercentile(100, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(0, new LatencyHistogram().getPercentile(99, TimeUnit.MILLISECONDS));
+    }
+
+    private static void assertWithin(double expected, double actual) {
+        Assert.assertTrue("expected about " + expected + " but was " + actual,
+                actual >= expected && actual <= expected * 1.125);
+    }
+}
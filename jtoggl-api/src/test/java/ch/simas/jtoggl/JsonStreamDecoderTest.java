@@ -0,0 +1,54 @@
+package ch.simas.jtoggl;
+
+import java.util.List;
+
+import ch.simas.jtoggl.util.JsonStreamDecoder;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JsonStreamDecoderTest {
+
+    private static final String ENTRY = "{\"id\":11,\"description\":\"Work\",\"start\":\"2019-02-01T08:00:00+01:00\","
+            + "\"stop\":\"2019-02-01T09:00:00+01:00\",\"duration\":3600,\"billable\":true,\"pid\":5,\"wid\":3,"
+            + "\"tags\":[\"a\",\"b\"],\"workspace\":{\"id\":3,\"name\":\"ws\"},\"project\":{\"id\":5,\"name\":\"p\",\"workspace\":{\"id\":3}}}";
+
+    @Test
+    public void decodeList() {
+        List<TimeEntry> entries = JsonStreamDecoder.decodeList("[" + ENTRY + "," + ENTRY.replace("\"id\":11", "\"id\":12") + "]", TimeEntry::new);
+
+        Assert.assertEquals(2, entries.size());
+        TimeEntry entry = entries.get(0);
+        Assert.assertEquals(Long.valueOf(11), entry.getId());
+        Assert.assertEquals(Long.valueOf(12), entries.get(1).getId());
+        Assert.assertEquals("Work", entry.getDescription());
+        Assert.assertEquals(Long.valueOf(3600), entry.getDuration());
+        Assert.assertTrue(entry.isBillable());
+        Assert.assertEquals(2, entry.getTag_names().size());
+        Assert.assertEquals("ws", entry.getWorkspace().getName());
+        Assert.assertEquals("p", entry.getProject().getName());
+        Assert.assertEquals(Long.valueOf(3), entry.getProject().getWorkspace().getId());
+    }
+
+    @Test
+    public void decodeNull() {
+        Assert.assertTrue(JsonStreamDecoder.decodeList("null", TimeEntry::new).isEmpty());
+        Assert.assertTrue(JsonStreamDecoder.decodeList("[]", TimeEntry::new).isEmpty());
+    }
+
+    @Test
+    public void decodePagedResult() {
+        PagedResult result = new PagedResult("{\"total_grand\":7200,\"total_count\":120,\"total_currencies\":[{\"currency\":null}],"
+                + "\"per_page\":50,\"data\":[" + ENTRY + "]}");
+
+        Assert.assertEquals(Long.valueOf(120), result.getTotalCount());
+        Assert.assertEquals(Long.valueOf(50), result.getPageSize());
+        Assert.assertEquals(1, result.getEntries().size());
+        Assert.assertEquals(Long.valueOf(11), result.getEntries().get(0).getId());
+    }
+
+    @Test
+    public void stringConstructorMatchesObjectConstructor() {
+        TimeEntry entry = new TimeEntry(ENTRY);
+        Assert.assertEquals(entry.toJSONString(), JsonStreamDecoder.decodeList("[" + ENTRY + "]", TimeEntry::new).get(0).toJSONString());
+    }
+}
@@ -0,0 +1,137 @@
+package ch.simas.jtoggl;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+public class LazyPublisherTest {
+
+    private StubServer server;
+    private JToggl jToggl;
+
+    @Before
+    public void before() throws Exception {
+        server = new StubServer()
+                .respond("/reports/details", exchange -> ReportFixtures.detailedReportPage(ReportFixtures.page(exchange.getRequestURI()), 10, 100))
+                .respond("/api/v8/time_entries", exchange -> {
+                    // one entry at the start of each requested window
+                    String start = null;
+                    for (String param : exchange.getRequestURI().getQuery().split("&")) {
+                        if (param.startsWith("start_date=")) {
+                            start = param.substring("start_date=".length());
+                        }
+                    }
+                    return "[{\"id\":" + OffsetDateTime.parse(start).getDayOfMonth() + ",\"start\":\"" + start + "\"}]";
+                });
+        jToggl = new JToggl("publisher-test-token");
+        jToggl.setRateLimiter(new TokenBucketRateLimiter(0, 1));
+        jToggl.setApiRoot(server.getUrl() + "/api");
+        jToggl.setReportsEndpoint(server.getUrl() + "/reports");
+    }
+
+    @After
+    public void after() {
+        server.close();
+    }
+
+    @Test
+    public void fetchesPagesOnDemand() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        jToggl.publishDetailedReport(new PagedReportsParameter(1, "test")).subscribe(subscriber);
+
+        subscriber.request(5, 5);
+        Assert.assertEquals(1, server.getRequestCount());
+        subscriber.request(6, 11);
+        Assert.assertEquals(2, server.getRequestCount());
+        subscriber.request(Long.MAX_VALUE, 100);
+        Assert.assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(10, server.getRequestCount());
+        Assert.assertEquals(Long.valueOf(100), subscriber.received.get(99).getId());
+    }
+
+    @Test
+    public void cancelStopsFetching() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        jToggl.publishDetailedReport(new PagedReportsParameter(1, "test")).subscribe(subscriber);
+
+        subscriber.request(3, 3);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(50);
+        Thread.sleep(200);
+        Assert.assertEquals(3, subscriber.received.size());
+        Assert.assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void rejectsNonPositiveRequest() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        jToggl.publishDetailedReport(new PagedReportsParameter(1, "test")).subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+        Assert.assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void publishesRangeInWindows() throws Exception {
+        OffsetDateTime start = OffsetDateTime.of(2019, 2, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        jToggl.publishTimeEntries(start, start.plusDays(7), Duration.ofDays(1)).subscribe(subscriber);
+
+        subscriber.request(2, 2);
+        Assert.assertEquals(2, server.getRequestCount());
+        subscriber.request(Long.MAX_VALUE, 7);
+        Assert.assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(7, server.getRequestCount());
+        Assert.assertEquals(Long.valueOf(7), subscriber.received.get(6).getId());
+    }
+
+    private static class RecordingSubscriber implements Subscriber<TimeEntry> {
+
+        final List<TimeEntry> received = new CopyOnWriteArrayList<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        volatile Subscription subscription;
+        volatile Throwable error;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(TimeEntry timeEntry) {
+            received.add(timeEntry);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+
+        void request(long n, int expectedTotal) throws InterruptedException {
+            subscription.request(n);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (received.size() < expectedTotal && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            Assert.assertEquals(expectedTotal, received.size());
+        }
+    }
+}
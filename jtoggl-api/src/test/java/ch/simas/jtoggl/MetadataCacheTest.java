@@ -0,0 +1,106 @@
+package ch.simas.jtoggl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MetadataCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void cachesUntilExpired() throws Exception {
+        MetadataCache cache = new MetadataCache(10).setTimeToLive(MetadataCache.Region.PROJECTS, 100, TimeUnit.MILLISECONDS);
+
+        Assert.assertEquals("v1", cache.get(MetadataCache.Region.PROJECTS, 1L, this::load));
+        Assert.assertEquals("v1", cache.get(MetadataCache.Region.PROJECTS, 1L, this::load));
+        Thread.sleep(150);
+        Assert.assertEquals("v2", cache.get(MetadataCache.Region.PROJECTS, 1L, this::load));
+
+        Assert.assertEquals(1, cache.getStats().getHits());
+        Assert.assertEquals(2, cache.getStats().getMisses());
+        Assert.assertEquals(1d / 3, cache.getStats().getHitRatio(), 0.0001);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        MetadataCache cache = new MetadataCache(2);
+        cache.get(MetadataCache.Region.PROJECTS, 1L, this::load);
+        cache.get(MetadataCache.Region.PROJECTS, 2L, this::load);
+        cache.get(MetadataCache.Region.PROJECTS, 1L, this::load);
+        cache.get(MetadataCache.Region.PROJECTS, 3L, this::load);
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(1, cache.getStats().getEvictions());
+        Assert.assertEquals("v1", cache.get(MetadataCache.Region.PROJECTS, 1L, this::load));
+        Assert.assertEquals("v4", cache.get(MetadataCache.Region.PROJECTS, 2L, this::load));
+    }
+
+    @Test
+    public void invalidatesRegion() {
+        MetadataCache cache = new MetadataCache();
+        cache.get(MetadataCache.Region.PROJECTS, 1L, this::load);
+        cache.get(MetadataCache.Region.CLIENTS, 1L, this::load);
+        cache.invalidate(MetadataCache.Region.PROJECTS);
+
+        Assert.assertEquals("v3", cache.get(MetadataCache.Region.PROJECTS, 1L, this::load));
+        Assert.assertEquals("v2", cache.get(MetadataCache.Region.CLIENTS, 1L, this::load));
+    }
+
+    @Test
+    public void doesNotCacheValueLoadedDuringInvalidation() {
+        MetadataCache cache = new MetadataCache();
+        cache.get(MetadataCache.Region.PROJECTS, 1L, () -> {
+            cache.invalidate(MetadataCache.Region.PROJECTS);
+            return "stale";
+        });
+
+        Assert.assertEquals("v1", cache.get(MetadataCache.Region.PROJECTS, 1L, this::load));
+    }
+
+    @Test
+    public void jTogglReadsThroughAndInvalidatesOnWrite() throws Exception {
+        try (StubServer server = new StubServer()
+                .respond("/api/v8/workspaces", exchange -> "[{\"id\":1,\"name\":\"p\"}]")
+                .respond("/api/v8/projects", exchange -> "{\"data\":{\"id\":2,\"name\":\"new\"}}")) {
+            JToggl jToggl = new JToggl("cache-test-token");
+            jToggl.setRateLimiter(new TokenBucketRateLimiter(0, 1));
+            jToggl.setApiRoot(server.getUrl() + "/api");
+            jToggl.setCache(new MetadataCache());
+
+            jToggl.getWorkspaceProjects(1);
+            jToggl.getWorkspaceProjects(1).clear();
+            Assert.assertEquals(1, jToggl.getWorkspaceProjects(1).size());
+            Assert.assertEquals(1, server.getRequestCount());
+
+            jToggl.createProject(new Project());
+            jToggl.getWorkspaceProjects(1);
+            Assert.assertEquals(3, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void callersGetEntitiesOfTheirOwn() throws Exception {
+        try (StubServer server = new StubServer()
+                .respond("/api/v8/workspaces", exchange -> exchange.getRequestURI().getPath().endsWith("/projects")
+                        ? "[{\"id\":2,\"name\":\"p\"}]" : "[{\"id\":1,\"name\":\"ws\"}]")) {
+            JToggl jToggl = new JToggl("cache-test-token");
+            jToggl.setRateLimiter(new TokenBucketRateLimiter(0, 1));
+            jToggl.setApiRoot(server.getUrl() + "/api");
+            jToggl.setCache(new MetadataCache());
+
+            jToggl.getWorkspaces().get(1L).setName("changed");
+            jToggl.getWorkspaceProjects(1).get(0).setName("changed");
+
+            Assert.assertEquals("ws", jToggl.getWorkspaces().get(1L).getName());
+            Assert.assertEquals("p", jToggl.getWorkspaceProjects(1).get(0).getName());
+            Assert.assertEquals(2, server.getRequestCount());
+        }
+    }
+
+    private String load() {
+        return "v" + loads.incrementAndGet();
+    }
+}
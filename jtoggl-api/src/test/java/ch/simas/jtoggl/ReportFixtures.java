@@ -0,0 +1,60 @@
+package ch.simas.jtoggl;
+
+import java.net.URI;
+
+/**
+ * Generates detailed report pages the way the reports API returns them.
+ */
+class ReportFixtures {
+
+    private ReportFixtures() {
+    }
+
+    /**
+     * @param page 1-based page number
+     * @param perPage entries per page
+     * @param total total number of entries in the report
+     * @return the JSON of the requested page
+     */
+    static String detailedReportPage(int page, int perPage, long total) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"total_grand\":").append(total * 3600000L)
+                .append(",\"total_billable\":null,\"total_currencies\":[{\"currency\":null,\"amount\":null}]")
+                .append(",\"total_count\":").append(total)
+                .append(",\"per_page\":").append(perPage)
+                .append(",\"data\":[");
+        long first = (long) (page - 1) * perPage;
+        long last = Math.min(first + perPage, total);
+        for (long id = first; id < last; id++) {
+            if (id > first) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(id + 1)
+                    .append(",\"pid\":").append(100 + id % 7)
+                    .append(",\"tid\":null,\"uid\":").append(10 + id % 3)
+                    .append(",\"description\":\"Entry ").append(id + 1).append('"')
+                    .append(",\"start\":\"2019-02-01T08:00:00+01:00\",\"end\":\"2019-02-01T09:00:00+01:00\"")
+                    .append(",\"updated\":\"2019-02-01T09:00:01+01:00\",\"dur\":3600000")
+                    .append(",\"user\":\"Jane\",\"use_stop\":true,\"client\":\"Client\",\"project\":\"Project\"")
+                    .append(",\"project_color\":\"0\",\"project_hex_color\":\"#06aaf5\",\"task\":null,\"billable\":null")
+                    .append(",\"is_billable\":").append(id % 2 == 0)
+                    .append(",\"cur\":null,\"tags\":[\"tag").append(id % 5).append("\"]}");
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * @return the page query parameter of a reports request, 1 if missing
+     */
+    static int page(URI uri) {
+        String query = uri.getRawQuery();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                if (param.startsWith("page=")) {
+                    return Integer.parseInt(param.substring("page=".length()));
+                }
+            }
+        }
+        return 1;
+    }
+}
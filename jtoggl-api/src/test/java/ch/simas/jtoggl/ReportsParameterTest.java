@@ -0,0 +1,60 @@
+package ch.simas.jtoggl;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReportsParameterTest {
+
+    @Test
+    public void omitsUnsetFilters() {
+        Assert.assertEquals("workspace_id=1&user_agent=test", new ReportsParameter(1, "test").toParamList());
+        Assert.assertEquals("workspace_id=1&user_agent=test&page=3", new PagedReportsParameter(1, "test").setPage(3).toParamList());
+    }
+
+    @Test
+    public void encodesAllFilters() {
+        ReportsParameter parameters = new ReportsParameter(1, "my app")
+                .setSince("2021-01-04T00:00:00+01:00")
+                .setProjectIds(new LinkedHashSet<>(Arrays.asList(3L, 4L)))
+                .setUserIds(new LinkedHashSet<>(Arrays.asList(5L)))
+                .setClientIds(new LinkedHashSet<>(Arrays.asList(0L)))
+                .setTagIds(new LinkedHashSet<>(Arrays.asList(6L)))
+                .setTaskIds(new LinkedHashSet<>(Arrays.asList(7L)))
+                .setBillable(false)
+                .setDescription("R&D = 100% grün")
+                .setGrouping("users")
+                .setSubgrouping("time_entries")
+                .setOrderField("duration")
+                .setOrderDesc(true)
+                .setRounding(false);
+
+        Assert.assertEquals("workspace_id=1&user_agent=my%20app&since=2021-01-04T00%3A00%3A00%2B01%3A00"
+                + "&project_ids=3%2C4&user_ids=5&client_ids=0&tag_ids=6&task_ids=7&billable=no"
+                + "&description=R%26D%20%3D%20100%25%20gr%C3%BCn&grouping=users&subgrouping=time_entries"
+                + "&order_field=duration&order_desc=on&rounding=off", parameters.toParamList());
+    }
+
+    @Test
+    public void serverReceivesDecodedValues() throws Exception {
+        AtomicReference<String> query = new AtomicReference<>();
+        try (StubServer server = new StubServer().respond("/reports/summary", exchange -> {
+            query.set(exchange.getRequestURI().getQuery());
+            return "{\"data\":[]}";
+        })) {
+            JToggl jToggl = new JToggl("report-test-token");
+            jToggl.setRateLimiter(new TokenBucketRateLimiter(0, 1));
+            jToggl.setReportsEndpoint(server.getUrl() + "/reports");
+
+            jToggl.getSummaryReport(new ReportsParameter(1, "test")
+                    .setSince("2021-01-04T00:00:00+01:00")
+                    .setDescription("R&D = 100% grün"));
+        }
+
+        Assert.assertEquals("workspace_id=1&user_agent=test&since=2021-01-04T00:00:00+01:00&description=R&D = 100% grün",
+                query.get());
+    }
+}
@@ -0,0 +1,141 @@
+package ch.simas.jtoggl;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RetryPolicyTest {
+
+    private final AtomicInteger failures = new AtomicInteger();
+    private StubServer server;
+    private JToggl jToggl;
+    private RetryPolicy policy;
+
+    @Before
+    public void before() throws Exception {
+        server = new StubServer()
+                .respond("/api/v8/me", exchange -> failures.getAndDecrement() > 0 ? 503 : 200,
+                        exchange -> "{\"data\":{\"id\":1,\"fullname\":\"retried\"}}")
+                .respond("/api/v8/time_entries", exchange -> 502, exchange -> "\"bad gateway\"")
+                .respond("/api/v8/projects", exchange -> 404, exchange -> "")
+                .respond("/api/v8/clients", exchange -> {
+                    exchange.getResponseHeaders().add("Retry-After", "1");
+                    return failures.getAndDecrement() > 0 ? 429 : 200;
+                }, exchange -> "[]");
+        policy = new RetryPolicy().setBackoff(10, 50, TimeUnit.MILLISECONDS);
+        jToggl = new JToggl("retry-test-token");
+        jToggl.setRateLimiter(new TokenBucketRateLimiter(0, 1));
+        jToggl.setApiRoot(server.getUrl() + "/api");
+        jToggl.setRetryPolicy(policy);
+    }
+
+    @After
+    public void after() {
+        server.close();
+    }
+
+    @Test
+    public void retriesServerErrorsOfReads() {
+        failures.set(2);
+
+        Assert.assertEquals("retried", jToggl.getCurrentUser().getFullname());
+        Assert.assertEquals(3, server.getRequestCount());
+        Assert.assertEquals(2, policy.getStats().getRetries());
+        Assert.assertEquals(1, policy.getStats().getRecovered());
+    }
+
+    @Test
+    public void givesUpAfterMaxAttempts() {
+        failures.set(5);
+        try {
+            jToggl.getCurrentUser();
+            Assert.fail();
+        } catch (ServerErrorException e) {
+            Assert.assertEquals(503, e.getStatusCode());
+            Assert.assertEquals(3, e.getAttempts());
+            Assert.assertTrue(e.isRetriesExhausted());
+        }
+        Assert.assertEquals(3, server.getRequestCount());
+        Assert.assertEquals(1, policy.getStats().getExhausted());
+    }
+
+    @Test
+    public void doesNotRepeatCreates() {
+        List<BulkResult<TimeEntry, TimeEntry>> results = jToggl.createTimeEntries(Arrays.asList(new TimeEntry()));
+
+        Assert.assertEquals(BulkResult.Status.SERVER_ERROR, results.get(0).getStatus());
+        Assert.assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void repeatsUpdatesUntilExhausted() {
+        TimeEntry entry = new TimeEntry();
+        entry.setId(1L);
+
+        List<BulkResult<TimeEntry, TimeEntry>> results = jToggl.updateTimeEntries(Arrays.asList(entry));
+
+        Assert.assertEquals(BulkResult.Status.RETRY_EXHAUSTED, results.get(0).getStatus());
+        Assert.assertEquals(3, server.getRequestCount());
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void doesNotRetryClientErrors() {
+        try {
+            jToggl.getProject(1L);
+        } finally {
+            Assert.assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void honorsRetryAfter() {
+        failures.set(1);
+        policy.setBackoff(10, 2000, TimeUnit.MILLISECONDS);
+        long start = System.nanoTime();
+
+        jToggl.getClients();
+
+        Assert.assertEquals(2, server.getRequestCount());
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void retryableErrors() {
+        TogglException tooMany = new TooManyRequestsException("", -1);
+        TogglException server = new ServerErrorException("", 500, -1);
+        TogglException io = new TogglException("", new java.io.IOException());
+
+        Assert.assertTrue(policy.isRetryable(tooMany, false));
+        Assert.assertFalse(policy.isRetryable(server, false));
+        Assert.assertTrue(policy.isRetryable(server, true));
+        Assert.assertTrue(policy.isRetryable(io, true));
+        Assert.assertFalse(policy.isRetryable(new BadRequestException(""), true));
+    }
+
+    @Test
+    public void delayGrowsWithJitterUpToMaximum() {
+        RetryPolicy backoff = new RetryPolicy().setBackoff(100, 1000, TimeUnit.MILLISECONDS);
+        for (int attempt = 1; attempt <= 10; attempt++) {
+            long expected = TimeUnit.MILLISECONDS.toNanos(Math.min(1000, 100L << (attempt - 1)));
+            long delay = backoff.getDelay(attempt, -1);
+            Assert.assertTrue(delay >= expected / 2 && delay <= expected);
+        }
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(800), backoff.getDelay(1, 800));
+        // a Retry-After beyond the maximum must not stall the caller
+        Assert.assertEquals(TimeUnit.SECONDS.toNanos(1), backoff.getDelay(1, TimeUnit.HOURS.toMillis(1)));
+    }
+
+    @Test
+    public void parsesRetryAfter() {
+        Assert.assertEquals(120000, RetryPolicy.parseRetryAfter("120"));
+        Assert.assertEquals(0, RetryPolicy.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+        Assert.assertEquals(-1, RetryPolicy.parseRetryAfter("soon"));
+        Assert.assertEquals(-1, RetryPolicy.parseRetryAfter(null));
+    }
+}
@@ -0,0 +1,101 @@
+package ch.simas.jtoggl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import ch.simas.jtoggl.stub.TogglStub;
+
+/**
+ * Canned JSON per path on top of the {@link TogglStub}, for tests that script the
+ * responses, statuses and headers themselves. Other paths are served by the stub.
+ */
+class StubServer implements Closeable {
+
+    private final TogglStub stub;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private volatile boolean gzip;
+
+    StubServer() throws IOException {
+        stub = new TogglStub(0, 16);
+    }
+
+    /**
+     * Answer requests below the given path with status 200 and the returned JSON.
+     */
+    StubServer respond(String path, Function<HttpExchange, String> body) {
+        return respond(path, exchange -> 200, body);
+    }
+
+    /**
+     * Answer requests below the given path with the returned status and JSON.
+     */
+    StubServer respond(String path, Function<HttpExchange, Integer> status, Function<HttpExchange, String> body) {
+        stub.override(path, exchange -> {
+            requests.incrementAndGet();
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            try {
+                byte[] bytes = body.apply(exchange).getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+                String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                if (gzip && bytes.length > 0 && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                    bytes = gzip(bytes);
+                    exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                }
+                exchange.sendResponseHeaders(status.apply(exchange), bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            } finally {
+                exchange.close();
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Compress responses with gzip if the request accepts it.
+     */
+    StubServer gzip() {
+        gzip = true;
+        return this;
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+
+    String getUrl() {
+        return stub.getUrl();
+    }
+
+    int getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * @return number of distinct client connections seen so far
+     */
+    int getConnectionCount() {
+        return clientPorts.size();
+    }
+
+    @Override
+    public void close() {
+        stub.close();
+    }
+}
@@ -0,0 +1,98 @@
+package ch.simas.jtoggl;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SummaryReportTest {
+
+    private static final String SUMMARY = "{\"total_grand\":36004000,\"total_billable\":14400000,"
+            + "\"total_currencies\":[{\"currency\":\"EUR\",\"amount\":40.5}],\"data\":["
+            + "{\"id\":193009951,\"title\":{\"project\":\"Toggl Development\",\"client\":null,\"hex_color\":\"#a6e5fc\"},"
+            + "\"time\":14400000,\"total_currencies\":[{\"currency\":\"EUR\",\"amount\":40}],"
+            + "\"items\":[{\"title\":{\"time_entry\":\"Hard work\"},\"time\":14400000,\"cur\":\"EUR\",\"sum\":40,\"rate\":10}]},"
+            + "{\"id\":null,\"title\":{\"project\":null,\"client\":null},\"time\":21604000,\"total_currencies\":[],"
+            + "\"items\":[{\"title\":{\"time_entry\":\"Meeting\"},\"time\":21604000,\"cur\":null,\"sum\":null,\"rate\":null}]}]}";
+
+    private static final String WEEKLY = "{\"total_grand\":3600000,\"total_billable\":null,"
+            + "\"week_totals\":[null,3600000,null,null,null,null,null,3600000],\"data\":["
+            + "{\"title\":{\"client\":\"Toggl\",\"project\":\"Development\"},\"pid\":2008,"
+            + "\"totals\":[null,3600000,null,null,null,null,null,3600000],"
+            + "\"details\":[{\"uid\":7,\"title\":{\"user\":\"John\"},\"totals\":[null,3600000,null,null,null,null,null,3600000]}]}]}";
+
+    private StubServer server;
+    private JToggl jToggl;
+    private final AtomicReference<String> query = new AtomicReference<>();
+
+    @Before
+    public void before() throws Exception {
+        server = new StubServer()
+                .respond("/reports/summary", exchange -> {
+                    query.set(exchange.getRequestURI().getRawQuery());
+                    return SUMMARY;
+                })
+                .respond("/reports/weekly", exchange -> {
+                    query.set(exchange.getRequestURI().getRawQuery());
+                    return WEEKLY;
+                });
+        jToggl = new JToggl("report-test-token");
+        jToggl.setRateLimiter(new TokenBucketRateLimiter(0, 1));
+        jToggl.setReportsEndpoint(server.getUrl() + "/reports");
+    }
+
+    @After
+    public void after() {
+        server.close();
+    }
+
+    @Test
+    public void decodesSummaryReport() {
+        SummaryReport report = jToggl.getSummaryReport(new ReportsParameter(1, "test").setSince("2021-01-04"));
+
+        Assert.assertEquals("workspace_id=1&user_agent=test&since=2021-01-04", query.get());
+        Assert.assertEquals(Long.valueOf(36004000), report.getTotalGrand());
+        Assert.assertEquals(Long.valueOf(14400000), report.getTotalBillable());
+        Assert.assertEquals(Double.valueOf(40.5), report.getTotalCurrencies().get("EUR"));
+        Assert.assertEquals(2, report.getGroups().size());
+
+        SummaryReport.Group project = report.getGroups().get(0);
+        Assert.assertEquals(Long.valueOf(193009951), project.getId());
+        Assert.assertEquals("Toggl Development", project.getTitle().get("project"));
+        Assert.assertNull(project.getTitle().get("client"));
+        Assert.assertEquals(Double.valueOf(40), project.getTotalCurrencies().get("EUR"));
+        SummaryReport.Item item = project.getItems().get(0);
+        Assert.assertEquals("Hard work", item.getTitle().get("time_entry"));
+        Assert.assertEquals(Long.valueOf(14400000), item.getTime());
+        Assert.assertEquals("EUR", item.getCurrency());
+        Assert.assertEquals(Double.valueOf(40), item.getSum());
+        Assert.assertEquals(Double.valueOf(10), item.getRate());
+
+        SummaryReport.Group noProject = report.getGroups().get(1);
+        Assert.assertNull(noProject.getId());
+        Assert.assertTrue(noProject.getTotalCurrencies().isEmpty());
+        Assert.assertNull(noProject.getItems().get(0).getSum());
+    }
+
+    @Test
+    public void decodesWeeklyReport() {
+        WeeklyReport report = jToggl.getWeeklyReport(new ReportsParameter(1, "test"));
+
+        Assert.assertEquals(Long.valueOf(3600000), report.getTotalGrand());
+        Assert.assertNull(report.getTotalBillable());
+        Assert.assertEquals(Arrays.asList(null, 3600000L, null, null, null, null, null, 3600000L), report.getWeekTotals());
+        Assert.assertEquals(1, report.getRows().size());
+
+        WeeklyReport.Row project = report.getRows().get(0);
+        Assert.assertEquals(Long.valueOf(2008), project.getPid());
+        Assert.assertEquals("Development", project.getTitle().get("project"));
+        Assert.assertEquals(Long.valueOf(3600000), project.getTotals().get(7));
+        WeeklyReport.Row user = project.getDetails().get(0);
+        Assert.assertEquals(Long.valueOf(7), user.getUid());
+        Assert.assertNull(user.getPid());
+        Assert.assertEquals("John", user.getTitle().get("user"));
+    }
+}
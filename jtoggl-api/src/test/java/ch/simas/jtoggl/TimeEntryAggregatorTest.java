@@ -0,0 +1,136 @@
+package ch.simas.jtoggl;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import ch.simas.jtoggl.TimeEntryAggregator.GroupBy;
+
+public class TimeEntryAggregatorTest {
+
+    private static final OffsetDateTime T0 = OffsetDateTime.of(2021, 1, 4, 8, 0, 0, 0, ZoneOffset.UTC);
+
+    private static TimeEntry entry(long id) {
+        TimeEntry entry = new TimeEntry();
+        entry.setId(id);
+        entry.setStart(T0.plusHours(id * 6));
+        entry.setDuration(id * 60);
+        entry.setPid(id % 3 + 1);
+        entry.setWid(1L);
+        entry.setBillable(id % 2 == 0);
+        entry.setTag_names(id % 4 == 0 ? Collections.<String>emptyList() : id % 4 == 1 ? Arrays.asList("a", "b") : Arrays.asList("a"));
+        return entry.setUid(id % 2 + 10);
+    }
+
+    private static List<TimeEntry> entries(int count) {
+        List<TimeEntry> entries = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            entries.add(entry(id));
+        }
+        return entries;
+    }
+
+    @Test
+    public void groupsByProjectWithBillableSplit() {
+        TimeEntryAggregation aggregation = new TimeEntryAggregator(GroupBy.PROJECT).aggregate(entries(6));
+
+        Assert.assertEquals(3, aggregation.getGroups().size());
+        TimeEntryStats project2 = aggregation.get(2L);
+        Assert.assertEquals(2, project2.getCount());
+        Assert.assertEquals((1 + 4) * 60, project2.getDuration());
+        Assert.assertEquals(60, project2.getMin());
+        Assert.assertEquals(240, project2.getMax());
+        Assert.assertEquals(1, project2.getBillableCount());
+        Assert.assertEquals(240, project2.getBillableDuration());
+        Assert.assertEquals(60, project2.getNonBillableDuration());
+        Assert.assertEquals(21 * 60, aggregation.getTotal().getDuration());
+        Assert.assertNull(aggregation.get(4L));
+    }
+
+    @Test
+    public void countsEntriesInEveryTagGroup() {
+        TimeEntryAggregation aggregation = new TimeEntryAggregator(GroupBy.USER, GroupBy.TAG).aggregate(entries(8));
+
+        Assert.assertEquals(4, aggregation.get(11L, "a").getCount());
+        Assert.assertEquals(2, aggregation.get(11L, "b").getCount());
+        Assert.assertEquals(2, aggregation.get(10L, "a").getCount());
+        Assert.assertEquals(2, aggregation.get(10L, null).getCount());
+        Assert.assertNull(aggregation.get(10L, "b"));
+        Assert.assertEquals(8, aggregation.getTotal().getCount());
+    }
+
+    @Test
+    public void groupsByDayAndWeekInTheZone() {
+        List<TimeEntry> entries = entries(30);
+        TimeEntryAggregation days = new TimeEntryAggregator(GroupBy.DAY).setZone(ZoneOffset.ofHours(-10))
+                .aggregate(entries);
+        TimeEntryAggregation weeks = new TimeEntryAggregator(GroupBy.WEEK).setFirstDayOfWeek(DayOfWeek.SUNDAY)
+                .aggregate(entries);
+
+        Assert.assertNull(days.get(LocalDate.of(2021, 1, 3)));
+        Assert.assertEquals(4, days.get(LocalDate.of(2021, 1, 4)).getCount());
+        Assert.assertEquals(4, days.get(LocalDate.of(2021, 1, 5)).getCount());
+        Assert.assertEquals(2, weeks.getGroups().size());
+        Assert.assertEquals(22, weeks.get(LocalDate.of(2021, 1, 3)).getCount());
+        Assert.assertEquals(8, weeks.get(LocalDate.of(2021, 1, 10)).getCount());
+    }
+
+    @Test
+    public void parallelMatchesIncremental() {
+        List<TimeEntry> entries = entries(20000);
+        TimeEntryAggregator aggregator = new TimeEntryAggregator(GroupBy.PROJECT, GroupBy.TAG, GroupBy.WEEK);
+
+        TimeEntryAggregation parallel = aggregator.aggregate(entries);
+        TimeEntryAggregation incremental = aggregator.newAggregation();
+        for (int page = 0; page < entries.size(); page += 50) {
+            for (TimeEntry entry : entries.subList(page, page + 50)) {
+                incremental.add(entry);
+            }
+        }
+        TimeEntryAggregation columns = aggregator.aggregate(TimeEntryBlock.of(entries));
+
+        Assert.assertEquals(stats(incremental), stats(parallel));
+        Assert.assertEquals(stats(incremental), stats(columns));
+        Assert.assertEquals(20000, parallel.getTotal().getCount());
+    }
+
+    @Test
+    public void skipsRunningEntriesAndResolvesClients() {
+        List<TimeEntry> entries = entries(6);
+        entries.get(0).setDuration(-1600000000L);
+        entries.get(1).setDuration(null);
+        Map<Long, Long> clients = new HashMap<>();
+        clients.put(1L, 100L);
+        clients.put(2L, 100L);
+
+        TimeEntryAggregation aggregation = new TimeEntryAggregator(GroupBy.CLIENT).setProjectClients(clients)
+                .aggregate(TimeEntryBlock.of(entries));
+
+        Assert.assertEquals(2, aggregation.getSkipped());
+        Assert.assertEquals(3, aggregation.get(100L).getCount());
+        Assert.assertEquals(1, aggregation.get((Object) null).getCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateDimensionsAreRejected() {
+        new TimeEntryAggregator(GroupBy.DAY, GroupBy.DAY);
+    }
+
+    private static Map<List<Object>, String> stats(TimeEntryAggregation aggregation) {
+        Map<List<Object>, String> result = new HashMap<>();
+        for (Map.Entry<TimeEntryAggregation.Key, TimeEntryStats> group : aggregation.getGroups().entrySet()) {
+            result.put(group.getKey().getValues(), group.getValue().toString());
+        }
+        return result;
+    }
+}
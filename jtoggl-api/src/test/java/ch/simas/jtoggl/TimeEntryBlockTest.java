@@ -0,0 +1,108 @@
+package ch.simas.jtoggl;
+
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TimeEntryBlockTest {
+
+    private static final OffsetDateTime T0 = OffsetDateTime.of(2021, 1, 4, 8, 0, 0, 0, ZoneOffset.UTC);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static TimeEntry entry(long id) {
+        TimeEntry entry = new TimeEntry();
+        entry.setId(id);
+        entry.setDescription("task " + id % 7);
+        entry.setStart(T0.plusMinutes(id * 15));
+        entry.setStop(T0.plusMinutes(id * 15 + 10));
+        entry.setDuration(600L);
+        entry.setPid(id % 4 == 0 ? null : id % 4);
+        entry.setWid(3L);
+        entry.setBillable(id % 3 == 0);
+        entry.setDuronly(id % 5 == 0);
+        entry.setTag_names(id % 2 == 0 ? Arrays.asList("even", "any") : Arrays.asList("any"));
+        return entry.setUid(9L);
+    }
+
+    private static List<TimeEntry> entries(int count) {
+        List<TimeEntry> entries = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            entries.add(entry(id));
+        }
+        return entries;
+    }
+
+    @Test
+    public void growsAndConvertsBack() {
+        TimeEntryBlock block = new TimeEntryBlock(2);
+        List<TimeEntry> entries = entries(300);
+        block.addAll(entries.iterator());
+
+        Assert.assertEquals(300, block.size());
+        Assert.assertEquals(9, block.getDictionary().size());
+        for (int row = 0; row < block.size(); row++) {
+            TimeEntry expected = entries.get(row);
+            TimeEntry actual = block.toTimeEntry(row);
+            Assert.assertEquals(expected.getId(), actual.getId());
+            Assert.assertEquals(expected.getPid(), actual.getPid());
+            Assert.assertEquals(expected.getDescription(), actual.getDescription());
+            Assert.assertEquals(expected.getTag_names(), actual.getTag_names());
+            Assert.assertEquals(expected.isBillable(), actual.isBillable());
+            Assert.assertEquals(expected.getDuronly(), actual.getDuronly());
+            Assert.assertEquals(expected.getStart(), actual.getStart());
+            Assert.assertEquals(expected.getStop(), actual.getStop());
+            Assert.assertEquals(expected.getUid(), actual.getUid());
+        }
+        Assert.assertEquals(TimeEntryColumns.NULL, block.getProjectId(3));
+        Assert.assertEquals(TimeEntryColumns.NULL, block.getTaskId(0));
+        Assert.assertEquals(300, block.trimToSize().toTimeEntries().size());
+    }
+
+    @Test
+    public void scansByCode() {
+        TimeEntryBlock block = TimeEntryBlock.of(entries(100));
+        int even = block.getDictionary().indexOf("even");
+
+        long duration = 0;
+        for (int row = 0; row < block.size(); row++) {
+            if (block.isBillable(row) && block.hasTag(row, even)) {
+                duration += block.getDuration(row);
+            }
+        }
+
+        Assert.assertEquals(16 * 600, duration);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rowsBeyondTheSizeAreRejected() {
+        TimeEntryBlock block = TimeEntryBlock.of(entries(3));
+        block.getId(3);
+    }
+
+    @Test
+    public void snapshotStoresTheBlock() {
+        Path file = folder.getRoot().toPath().resolve("block.snapshot");
+        TimeEntryBlock block = TimeEntryBlock.of(entries(130));
+
+        TimeEntrySnapshot.write(file, block);
+        TimeEntrySnapshot snapshot = TimeEntrySnapshot.open(file);
+
+        Assert.assertEquals(block.size(), snapshot.size());
+        for (int row = 0; row < block.size(); row++) {
+            Assert.assertEquals(block.getStart(row), snapshot.getStart(row));
+            Assert.assertEquals(block.isDuronly(row), snapshot.isDuronly(row));
+            Assert.assertEquals(block.getDescriptionCode(row), snapshot.getDescriptionCode(row));
+            Assert.assertEquals(block.toTimeEntry(row).toJSONString(), snapshot.toTimeEntry(row).toJSONString());
+        }
+    }
+}
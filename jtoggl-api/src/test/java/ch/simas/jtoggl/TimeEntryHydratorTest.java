@@ -0,0 +1,141 @@
+package ch.simas.jtoggl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TimeEntryHydratorTest {
+
+    private StubServer server;
+    private JToggl jToggl;
+
+    @Before
+    public void before() throws Exception {
+        server = new StubServer().respond("/api/v8", exchange -> {
+            String path = exchange.getRequestURI().getPath().substring("/api/v8/".length());
+            String[] parts = path.split("/");
+            if (path.equals("workspaces")) {
+                return "[{\"id\":1,\"name\":\"one\"},{\"id\":2,\"name\":\"two\"}]";
+            } else if (parts[0].equals("workspaces")) {
+                long wid = Long.parseLong(parts[1]);
+                switch (parts[2]) {
+                    case "projects":
+                        return "[{\"id\":" + (wid * 10) + ",\"name\":\"p" + wid + "\",\"cid\":" + (wid * 100) + "}]";
+                    case "clients":
+                        return "[{\"id\":" + (wid * 100) + ",\"name\":\"c" + wid + "\"}]";
+                    case "tasks":
+                        return "[{\"id\":" + (wid * 1000) + ",\"name\":\"t" + wid + "\",\"pid\":" + (wid * 10) + "}]";
+                    case "users":
+                        return "[{\"id\":" + (wid * 7) + ",\"fullname\":\"u" + wid + "\"}]";
+                    default:
+                        return "[]";
+                }
+            } else if (path.equals("projects/999")) {
+                return "{\"data\":{\"id\":999,\"name\":\"archived\"}}";
+            }
+            return "{\"data\":null}";
+        });
+        jToggl = new JToggl("hydrator-test-token");
+        jToggl.setRateLimiter(new TokenBucketRateLimiter(0, 1));
+        jToggl.setApiRoot(server.getUrl() + "/api");
+    }
+
+    @After
+    public void after() {
+        server.close();
+    }
+
+    @Test
+    public void hydratesInBulk() {
+        List<TimeEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            long wid = 1 + i % 2;
+            TimeEntry entry = new TimeEntry();
+            entry.setWid(wid);
+            entry.setPid(i % 100 == 0 ? 999L : wid * 10);
+            entry.setTid(wid * 1000);
+            entry.setUid(wid * 7);
+            entries.add(entry);
+        }
+
+        TimeEntryHydrator.Result result = jToggl.hydrate(entries);
+
+        Assert.assertTrue(result.toString(), result.isComplete());
+        // workspaces, 4 kinds for 2 workspaces and the archived project
+        Assert.assertEquals(10, server.getRequestCount());
+        TimeEntry entry = entries.get(1);
+        Assert.assertEquals("two", entry.getWorkspace().getName());
+        Assert.assertEquals("p2", entry.getProject().getName());
+        Assert.assertEquals("c2", entry.getProject().getClient().getName());
+        Assert.assertEquals("two", entry.getProject().getWorkspace().getName());
+        Assert.assertEquals("t2", entry.getTask().getName());
+        Assert.assertEquals(Long.valueOf(14), entry.getUser().getId());
+        Assert.assertEquals("archived", entries.get(0).getProject().getName());
+    }
+
+    @Test
+    public void reportsUnresolvedIds() {
+        TimeEntry entry = new TimeEntry();
+        entry.setPid(12345L);
+        entry.setUid(1L);
+        List<TimeEntry> entries = new ArrayList<>();
+        entries.add(entry);
+
+        TimeEntryHydrator.Result result = jToggl.hydrate(entries);
+
+        Assert.assertFalse(result.isComplete());
+        Assert.assertTrue(result.getUnresolvedProjectIds().contains(12345L));
+        Assert.assertTrue(result.getUnresolvedUserIds().contains(1L));
+        Assert.assertNull(entry.getProject());
+    }
+
+    @Test
+    public void leavesCachedProjectsUntouched() {
+        jToggl.setCache(new MetadataCache());
+        TimeEntry entry = new TimeEntry();
+        entry.setWid(1L);
+        entry.setPid(10L);
+        List<TimeEntry> entries = new ArrayList<>();
+        entries.add(entry);
+
+        jToggl.hydrate(entries);
+        Project listed = jToggl.getProjects().get(10L);
+
+        Assert.assertEquals("c1", entry.getProject().getClient().getName());
+        Assert.assertEquals("one", listed.getWorkspace().getName());
+        Project cached = jToggl.getWorkspaceProjects(1L).get(0);
+        Assert.assertNotSame(cached, entry.getProject());
+        Assert.assertNotSame(cached, listed);
+        Assert.assertNull(cached.getWorkspace());
+        Assert.assertNull(cached.getClient());
+    }
+
+    @Test(timeout = 10000)
+    public void hydratesWithSingleThreadExecutor() {
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        try {
+            jToggl.setExecutor(executor);
+            TimeEntry entry = new TimeEntry();
+            entry.setWid(2L);
+            entry.setPid(20L);
+            entry.setTid(2000L);
+            entry.setUid(14L);
+            List<TimeEntry> entries = new ArrayList<>();
+            entries.add(entry);
+
+            TimeEntryHydrator.Result result = jToggl.hydrate(entries);
+
+            Assert.assertTrue(result.toString(), result.isComplete());
+            Assert.assertEquals("c2", entry.getProject().getClient().getName());
+            Assert.assertEquals("t2", entry.getTask().getName());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
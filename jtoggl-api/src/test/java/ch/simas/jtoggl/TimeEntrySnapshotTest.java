@@ -0,0 +1,138 @@
+package ch.simas.jtoggl;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ch.simas.jtoggl.util.StringDictionary;
+
+public class TimeEntrySnapshotTest {
+
+    private static final OffsetDateTime T0 = OffsetDateTime.of(2019, 3, 4, 9, 30, 0, 0, ZoneOffset.ofHours(1));
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static TimeEntry entry(long id, String description, String... tags) {
+        TimeEntry entry = new TimeEntry();
+        entry.setId(id);
+        entry.setDescription(description);
+        entry.setStart(T0.plusHours(id));
+        entry.setStop(T0.plusHours(id).plusMinutes(30));
+        entry.setDuration(1800L);
+        entry.setPid(id % 3);
+        entry.setWid(7L);
+        entry.setTid(id + 100);
+        entry.setBillable(id % 2 == 0);
+        entry.setDuronly(false);
+        entry.setTag_names(Arrays.asList(tags));
+        return entry.setUid(42L);
+    }
+
+    @Test
+    public void readsWhatWasWritten() {
+        Path file = folder.getRoot().toPath().resolve("entries.snapshot");
+        TimeEntry empty = new TimeEntry();
+        List<TimeEntry> entries = Arrays.asList(entry(1, "Grüezi", "a", "b"), entry(2, "Grüezi", "b"), empty,
+                entry(4, "other"));
+
+        TimeEntrySnapshot.write(file, entries);
+        TimeEntrySnapshot snapshot = TimeEntrySnapshot.open(file);
+
+        Assert.assertEquals(4, snapshot.size());
+        Assert.assertEquals(4, snapshot.getDictionary().size());
+        Assert.assertEquals(snapshot.getDescriptionCode(0), snapshot.getDescriptionCode(1));
+        Assert.assertEquals("Grüezi", snapshot.getDescription(1));
+        Assert.assertEquals(T0.plusHours(2).toEpochSecond(), snapshot.getStart(1));
+        Assert.assertTrue(snapshot.isBillable(1));
+        Assert.assertFalse(snapshot.isBillable(0));
+        Assert.assertEquals(2, snapshot.getTagCount(0));
+        Assert.assertEquals("b", snapshot.getTag(0, 1));
+        int b = snapshot.getDictionary().indexOf("b");
+        Assert.assertTrue(snapshot.hasTag(1, b));
+        Assert.assertFalse(snapshot.hasTag(3, b));
+        Assert.assertEquals(StringDictionary.NULL, snapshot.getDictionary().indexOf("missing"));
+
+        Assert.assertEquals(TimeEntrySnapshot.NULL, snapshot.getId(2));
+        Assert.assertEquals(TimeEntrySnapshot.NULL, snapshot.getStart(2));
+        Assert.assertEquals(StringDictionary.NULL, snapshot.getDescriptionCode(2));
+        Assert.assertEquals(0, snapshot.getTagCount(2));
+
+        TimeEntry first = snapshot.toTimeEntry(0);
+        Assert.assertEquals("Grüezi", first.getDescription());
+        Assert.assertEquals(Arrays.asList("a", "b"), first.getTag_names());
+        Assert.assertEquals(Long.valueOf(1), first.getPid());
+        Assert.assertEquals(Long.valueOf(7), first.getWid());
+        Assert.assertEquals(Long.valueOf(101), first.getTid());
+        Assert.assertEquals(Long.valueOf(42), first.getUid());
+        Assert.assertEquals(Long.valueOf(1800), first.getDuration());
+        Assert.assertEquals(Boolean.FALSE, first.isBillable());
+        Assert.assertEquals(T0.plusHours(1).toInstant(), first.getStart().toInstant());
+        Assert.assertEquals(T0.plusHours(1).plusMinutes(30).toInstant(), first.getStop().toInstant());
+        TimeEntry missing = snapshot.toTimeEntry(2);
+        Assert.assertNull(missing.getId());
+        Assert.assertNull(missing.getStart());
+        Assert.assertNull(missing.getDescription());
+        Assert.assertEquals(Collections.emptyList(), missing.getTag_names());
+    }
+
+    @Test
+    public void scansManyRowsAndReplacesTheFile() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("big.snapshot");
+        List<TimeEntry> entries = new ArrayList<>();
+        for (long id = 1; id <= 100_000; id++) {
+            entries.add(entry(id, "task " + (id % 50), id % 10 == 0 ? new String[]{"billed"} : new String[0]));
+        }
+        TimeEntrySnapshot.write(file, entries);
+
+        TimeEntrySnapshot snapshot = TimeEntrySnapshot.open(file);
+        int billed = snapshot.getDictionary().indexOf("billed");
+        long duration = 0;
+        int rows = 0;
+        for (int row = 0; row < snapshot.size(); row++) {
+            if (snapshot.getProjectId(row) == 0 && snapshot.hasTag(row, billed)) {
+                duration += snapshot.getDuration(row);
+                rows++;
+            }
+        }
+        Assert.assertEquals(3333, rows);
+        Assert.assertEquals(3333 * 1800L, duration);
+        Assert.assertEquals(51, snapshot.getDictionary().size());
+        Assert.assertTrue(Files.size(file) < 100_000 * 90);
+
+        TimeEntrySnapshot.write(file, entries.subList(0, 10));
+        Assert.assertEquals(10, TimeEntrySnapshot.open(file).size());
+        Assert.assertEquals(1, Files.list(folder.getRoot().toPath()).count());
+    }
+
+    @Test
+    public void dictionaryRoundTrip() {
+        StringDictionary dictionary = new StringDictionary();
+        Assert.assertEquals(0, dictionary.add("x"));
+        Assert.assertEquals(1, dictionary.add("ÿ"));
+        Assert.assertEquals(0, dictionary.add("x"));
+        Assert.assertEquals(StringDictionary.NULL, dictionary.add(null));
+        ByteBuffer buffer = ByteBuffer.allocate(dictionary.getEncodedSize());
+        dictionary.writeTo(buffer);
+        ((Buffer) buffer).flip();
+
+        StringDictionary read = StringDictionary.readFrom(buffer);
+
+        Assert.assertEquals(2, read.size());
+        Assert.assertEquals("ÿ", read.get(1));
+        Assert.assertEquals(1, read.indexOf("ÿ"));
+        Assert.assertEquals(dictionary.getEncodedSize(), read.getEncodedSize());
+    }
+}
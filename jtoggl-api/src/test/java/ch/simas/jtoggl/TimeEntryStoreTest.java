@@ -0,0 +1,209 @@
+package ch.simas.jtoggl;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TimeEntryStoreTest {
+
+    private static final OffsetDateTime T0 = OffsetDateTime.of(2020, 6, 1, 8, 0, 0, 0, ZoneOffset.UTC);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+    private TimeEntryStore store;
+
+    @Before
+    public void before() {
+        directory = folder.getRoot().toPath().resolve("store");
+        store = new TimeEntryStore(directory, 1024);
+    }
+
+    @After
+    public void after() {
+        store.close();
+    }
+
+    private static TimeEntry entry(long id, long hours, long pid, long uid) {
+        TimeEntry entry = new TimeEntry();
+        entry.setId(id);
+        entry.setDescription("entry " + id);
+        entry.setStart(T0.plusHours(hours));
+        entry.setDuration(1800L);
+        entry.setPid(pid);
+        entry.setWid(1L);
+        entry.setTag_names(Arrays.asList("tag"));
+        return entry.setUid(uid);
+    }
+
+    private static List<Long> ids(List<TimeEntry> entries) {
+        List<Long> result = new ArrayList<>();
+        for (TimeEntry entry : entries) {
+            result.add(entry.getId());
+        }
+        return result;
+    }
+
+    private void reopen() {
+        store.close();
+        store = new TimeEntryStore(directory, 1024);
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            files.forEach(result::add);
+        }
+        result.sort(null);
+        return result;
+    }
+
+    @Test
+    public void findsByRangeProjectAndUser() {
+        store.putAll(Arrays.asList(entry(3, 2, 10, 100), entry(1, 0, 10, 100), entry(2, 1, 20, 100),
+                entry(4, 3, 20, 200)));
+
+        Assert.assertEquals(4, store.size());
+        Assert.assertEquals("entry 2", store.get(2).getDescription());
+        Assert.assertEquals(Long.valueOf(200), store.get(4).getUid());
+        Assert.assertEquals(Arrays.asList("tag"), store.get(4).getTag_names());
+        Assert.assertNull(store.get(5));
+
+        Assert.assertEquals(Arrays.asList(1L, 2L, 3L, 4L), ids(store.find(new TimeEntryQuery())));
+        Assert.assertEquals(Arrays.asList(2L, 3L),
+                ids(store.find(new TimeEntryQuery().setSince(T0.plusHours(1)).setUntil(T0.plusHours(3)))));
+        Assert.assertEquals(Arrays.asList(1L, 3L), ids(store.find(new TimeEntryQuery().setProjectId(10L))));
+        Assert.assertEquals(Arrays.asList(4L),
+                ids(store.find(new TimeEntryQuery().setProjectId(20L).setUserId(200L))));
+        Assert.assertEquals(Arrays.asList(1L, 2L),
+                ids(store.find(new TimeEntryQuery().setUserId(100L).setLimit(2))));
+        Assert.assertTrue(store.find(new TimeEntryQuery().setWorkspaceId(2L)).isEmpty());
+    }
+
+    @Test
+    public void updatesAndDeletesSurviveReopening() {
+        store.putAll(Arrays.asList(entry(1, 0, 10, 100), entry(2, 1, 10, 100)));
+        TimeEntry moved = entry(1, 5, 20, 100);
+        store.put(moved);
+        Assert.assertTrue(store.delete(2));
+        Assert.assertFalse(store.delete(2));
+
+        reopen();
+
+        Assert.assertEquals(1, store.size());
+        Assert.assertNull(store.get(2));
+        Assert.assertEquals(T0.plusHours(5).toInstant(), store.get(1).getStart().toInstant());
+        Assert.assertTrue(store.find(new TimeEntryQuery().setProjectId(10L)).isEmpty());
+        Assert.assertEquals(Arrays.asList(1L), ids(store.find(new TimeEntryQuery().setProjectId(20L))));
+    }
+
+    @Test
+    public void appliesSyncChanges() {
+        store.apply(new TimeEntryChange(TimeEntryChange.Type.CREATED, 1, entry(1, 0, 10, 100)));
+        store.apply(new TimeEntryChange(TimeEntryChange.Type.CREATED, 2, entry(2, 0, 10, 100)));
+        store.apply(new TimeEntryChange(TimeEntryChange.Type.DELETED, 1, null));
+
+        Assert.assertEquals(Arrays.asList(2L), ids(store.find(new TimeEntryQuery())));
+    }
+
+    @Test
+    public void tornTailIsTruncated() throws IOException {
+        store.putAll(Arrays.asList(entry(1, 0, 10, 100), entry(2, 1, 10, 100)));
+        store.close();
+        Path last = segments().get(segments().size() - 1);
+        long size = Files.size(last);
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 7);
+        }
+
+        store = new TimeEntryStore(directory, 1024);
+
+        Assert.assertEquals(1, store.size());
+        Assert.assertNotNull(store.get(1));
+        store.put(entry(3, 2, 10, 100));
+        reopen();
+        Assert.assertEquals(Arrays.asList(1L, 3L), ids(store.find(new TimeEntryQuery())));
+    }
+
+    @Test
+    public void corruptRecordInTheTailIsDropped() throws IOException {
+        store.putAll(Arrays.asList(entry(1, 0, 10, 100), entry(2, 1, 10, 100)));
+        store.close();
+        Path last = segments().get(segments().size() - 1);
+        byte[] bytes = Files.readAllBytes(last);
+        bytes[bytes.length - 3] ^= 0x55;
+        Files.write(last, bytes);
+
+        store = new TimeEntryStore(directory, 1024);
+
+        Assert.assertEquals(Arrays.asList(1L), ids(store.find(new TimeEntryQuery())));
+    }
+
+    @Test
+    public void compactionRemovesGarbage() throws IOException {
+        for (int round = 0; round < 10; round++) {
+            for (long id = 1; id <= 5; id++) {
+                store.put(entry(id, round, 10, 100));
+            }
+        }
+        store.delete(5);
+        Assert.assertTrue(segments().size() > 3);
+        Assert.assertTrue(String.valueOf(store.getGarbageRatio()), store.getGarbageRatio() > 0.8);
+
+        store.compact();
+
+        Assert.assertEquals(1, segments().size());
+        Assert.assertTrue(String.valueOf(store.getGarbageRatio()), store.getGarbageRatio() < 0.1);
+        Assert.assertEquals(Arrays.asList(1L, 2L, 3L, 4L), ids(store.find(new TimeEntryQuery())));
+        store.put(entry(6, 20, 10, 100));
+
+        reopen();
+
+        Assert.assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 6L), ids(store.find(new TimeEntryQuery())));
+        Assert.assertEquals(T0.plusHours(9).toInstant(), store.get(1).getStart().toInstant());
+    }
+
+    @Test
+    public void segmentsLeftByAnInterruptedCompactionAreDropped() throws IOException {
+        for (long id = 1; id <= 20; id++) {
+            store.put(entry(id, id, 10, 100));
+        }
+        store.delete(3);
+        store.close();
+        Path backup = folder.newFolder("backup").toPath();
+        List<Path> old = segments();
+        for (Path segment : old) {
+            Files.copy(segment, backup.resolve(segment.getFileName()));
+        }
+        store = new TimeEntryStore(directory, 1024);
+        store.compact();
+        store.close();
+        // the crash happened before the old segments were deleted
+        for (Path segment : old) {
+            Files.copy(backup.resolve(segment.getFileName()), segment);
+        }
+        Files.write(directory.resolve("segment-00000099.log.tmp"), new byte[]{1, 2, 3});
+
+        store = new TimeEntryStore(directory, 1024);
+
+        Assert.assertEquals(19, store.size());
+        Assert.assertNull(store.get(3));
+        Assert.assertEquals(1, segments().size());
+    }
+}
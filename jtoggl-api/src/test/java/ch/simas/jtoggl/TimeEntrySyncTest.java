@@ -0,0 +1,187 @@
+package ch.simas.jtoggl;
+
+import java.time.Clock;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.json.simple.JSONArray;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpExchange;
+
+public class TimeEntrySyncTest {
+
+    private static final OffsetDateTime T0 = OffsetDateTime.of(2020, 6, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Map<Long, TimeEntry> entries = new ConcurrentSkipListMap<>();
+    private final List<OffsetDateTime> requestedStarts = new CopyOnWriteArrayList<>();
+    private StubServer server;
+    private JToggl jToggl;
+    private FileSyncStateStore store;
+
+    @Before
+    public void before() throws Exception {
+        server = new StubServer().respond("/api/v8/time_entries", this::list);
+        jToggl = new JToggl("sync-test-token");
+        jToggl.setRateLimiter(new TokenBucketRateLimiter(0, 1));
+        jToggl.setApiRoot(server.getUrl() + "/api");
+        store = new FileSyncStateStore(folder.getRoot().toPath().resolve("sync"));
+    }
+
+    @After
+    public void after() {
+        server.close();
+    }
+
+    private String list(HttpExchange exchange) {
+        OffsetDateTime start = null;
+        OffsetDateTime end = null;
+        for (String param : exchange.getRequestURI().getQuery().split("&")) {
+            String[] pair = param.split("=", 2);
+            if ("start_date".equals(pair[0])) {
+                start = OffsetDateTime.parse(pair[1]);
+            } else if ("end_date".equals(pair[0])) {
+                end = OffsetDateTime.parse(pair[1]);
+            }
+        }
+        requestedStarts.add(start);
+        JSONArray result = new JSONArray();
+        for (TimeEntry entry : entries.values()) {
+            if (!entry.getStart().isBefore(start) && !entry.getStart().isAfter(end)) {
+                result.add(entry.toJSONObject());
+            }
+        }
+        return result.toJSONString();
+    }
+
+    private void entry(long id, String description, OffsetDateTime start, long duration) {
+        TimeEntry entry = new TimeEntry();
+        entry.setId(id);
+        entry.setWid(1L);
+        entry.setDescription(description);
+        entry.setStart(start);
+        entry.setDuration(duration);
+        entries.put(id, entry);
+    }
+
+    private TimeEntrySync sync(OffsetDateTime now) {
+        return new TimeEntrySync(jToggl, store, 1, 2)
+                .setClock(Clock.fixed(now.toInstant(), ZoneOffset.UTC));
+    }
+
+    private static List<String> describe(List<TimeEntryChange> changes) {
+        List<String> result = new ArrayList<>();
+        for (TimeEntryChange change : changes) {
+            result.add(change.toString());
+        }
+        return result;
+    }
+
+    @Test
+    public void firstSyncReconcilesThenOnlyTheDeltaIsRequested() {
+        entry(1, "old", T0.minusDays(10), 3600);
+        entry(2, "recent", T0.minusHours(2), 3600);
+        entry(3, "other workspace", T0.minusHours(3), 3600);
+        entries.get(3L).setWid(9L);
+
+        Assert.assertEquals("[CREATED 1, CREATED 2]", describe(sync(T0).sync()).toString());
+        Assert.assertEquals(T0.minusDays(90).toInstant(), requestedStarts.get(0).toInstant());
+
+        requestedStarts.clear();
+        entry(4, "new", T0.plusMinutes(30), 600);
+        entry(2, "recent, renamed", T0.minusHours(2), 3600);
+        List<TimeEntryChange> changes = sync(T0.plusHours(1)).sync();
+
+        Assert.assertEquals("[CREATED 4]", describe(changes).toString());
+        Assert.assertEquals("new", changes.get(0).getEntry().getDescription());
+        Assert.assertEquals(1, requestedStarts.size());
+        Assert.assertEquals(T0.minusHours(1).toInstant(), requestedStarts.get(0).toInstant());
+    }
+
+    @Test
+    public void reportsUpdatesAndDeletionsInTheDeltaWindow() {
+        entry(1, "first", T0.minusMinutes(50), 600);
+        entry(2, "second", T0.minusMinutes(40), 600);
+        sync(T0).sync();
+
+        entry(1, "first, edited", T0.minusMinutes(50), 900);
+        entries.remove(2L);
+        List<TimeEntryChange> changes = sync(T0.plusMinutes(5)).sync();
+
+        Assert.assertEquals("[UPDATED 1, DELETED 2]", describe(changes).toString());
+        Assert.assertEquals(Long.valueOf(900), changes.get(0).getEntry().getDuration());
+        Assert.assertNull(changes.get(1).getEntry());
+        Assert.assertTrue(sync(T0.plusMinutes(10)).sync().isEmpty());
+    }
+
+    @Test
+    public void reconciliationFindsChangesOutsideTheDeltaWindow() {
+        entry(1, "old", T0.minusDays(10), 3600);
+        entry(2, "older", T0.minusDays(20), 3600);
+        sync(T0).sync();
+
+        entries.remove(1L);
+        entry(2, "older, edited", T0.minusDays(20), 3600);
+        Assert.assertTrue(sync(T0.plusHours(1)).sync().isEmpty());
+
+        Assert.assertEquals("[UPDATED 2, DELETED 1]", describe(sync(T0.plusHours(2)).reconcile()).toString());
+        Assert.assertTrue(sync(T0.plusDays(1).plusHours(2)).sync().isEmpty());
+    }
+
+    @Test
+    public void runningEntriesWidenTheDeltaUntilTheyStop() {
+        entry(1, "running", T0.minusHours(5), -T0.minusHours(5).toEpochSecond());
+        sync(T0).sync();
+
+        requestedStarts.clear();
+        Assert.assertTrue(sync(T0.plusHours(1)).sync().isEmpty());
+        Assert.assertEquals(T0.minusHours(5).toInstant(), requestedStarts.get(0).toInstant());
+
+        entry(1, "running", T0.minusHours(5), 5 * 3600 + 1800);
+        Assert.assertEquals("[UPDATED 1]", describe(sync(T0.plusHours(2)).sync()).toString());
+
+        requestedStarts.clear();
+        sync(T0.plusHours(3)).sync();
+        Assert.assertEquals(T0.plusHours(1).toInstant(), requestedStarts.get(0).toInstant());
+    }
+
+    @Test
+    public void listenersSeeChangesAndStateSurvivesInstances() {
+        entry(1, "first", T0.minusHours(1), 600);
+        List<TimeEntryChange> seen = new ArrayList<>();
+        sync(T0).addListener(seen::add).sync();
+        Assert.assertEquals("[CREATED 1]", describe(seen).toString());
+
+        SyncState state = store.load(1, 2);
+        Assert.assertEquals(T0.toInstant(), state.getHighWaterMark().toInstant());
+        Assert.assertEquals(T0.toInstant(), state.getLastReconciliation().toInstant());
+        Assert.assertEquals(T0.minusHours(1).toEpochSecond(), state.getStart(1));
+        Assert.assertEquals(TimeEntrySync.fingerprint(entries.get(1L)), state.getFingerprint(1));
+        Assert.assertFalse(state.isRunning(1));
+        Assert.assertTrue(store.load(1, 3).getIds().isEmpty());
+    }
+
+    @Test
+    public void fingerprintChangesWithSyncedFields() {
+        entry(1, "first", T0, 600);
+        long fingerprint = TimeEntrySync.fingerprint(entries.get(1L));
+        Assert.assertEquals(fingerprint, TimeEntrySync.fingerprint(new TimeEntry(entries.get(1L).toJSONString())));
+
+        entries.get(1L).setTag_names(Arrays.asList("billed"));
+        Assert.assertTrue(fingerprint != TimeEntrySync.fingerprint(entries.get(1L)));
+    }
+}
@@ -0,0 +1,103 @@
+package ch.simas.jtoggl;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.simas.jtoggl.stub.TogglStub;
+
+public class TogglStubTest {
+
+    private TogglStub stub;
+    private JToggl jToggl;
+
+    @Before
+    public void before() throws Exception {
+        stub = new TogglStub().seed(2, 3, 120);
+        jToggl = new JToggl("stub-test-token");
+        jToggl.setRateLimiter(new TokenBucketRateLimiter(0, 1));
+        jToggl.setApiRoot(stub.getApiRoot());
+        jToggl.setReportsEndpoint(stub.getReportsEndpoint());
+    }
+
+    @After
+    public void after() {
+        stub.close();
+    }
+
+    @Test
+    public void servesReferenceData() {
+        List<Workspace> workspaces = new java.util.ArrayList<>(jToggl.getWorkspaces().values());
+        Assert.assertEquals(2, workspaces.size());
+
+        List<Project> projects = jToggl.getWorkspaceProjects(workspaces.get(0).getId());
+        Assert.assertEquals(3, projects.size());
+        Assert.assertEquals(1, jToggl.getWorkspaceClients(workspaces.get(0).getId()).size());
+        Assert.assertEquals(3, jToggl.getActiveWorkspaceTasks(workspaces.get(1).getId()).size());
+        Assert.assertEquals("User 1", jToggl.getCurrentUser().getFullname());
+        Assert.assertEquals(6, jToggl.getProjects().size());
+    }
+
+    @Test
+    public void timeEntryLifecycle() {
+        TimeEntry entry = new TimeEntry();
+        entry.setDescription("Stubbed");
+        entry.setStart(OffsetDateTime.of(2019, 2, 1, 8, 0, 0, 0, ZoneOffset.ofHours(1)));
+        entry.setDuration(3600L);
+
+        TimeEntry created = jToggl.createTimeEntry(entry);
+        Assert.assertNotNull(created.getId());
+        Assert.assertEquals(created.getStart().plusHours(1).toInstant(), created.getStop().toInstant());
+
+        created.setDescription("Renamed");
+        Assert.assertEquals("Renamed", jToggl.updateTimeEntry(created).getDescription());
+        Assert.assertEquals("Renamed", jToggl.getTimeEntry(created.getId()).getDescription());
+
+        List<TimeEntry> window = jToggl.getTimeEntries(entry.getStart().minusMinutes(1), entry.getStart().plusMinutes(1));
+        Assert.assertEquals(1, window.size());
+
+        jToggl.destroyTimeEntry(created.getId());
+        Assert.assertEquals(120, stub.getTimeEntryCount());
+    }
+
+    @Test
+    public void pagesDetailedReport() {
+        long wid = jToggl.getWorkspaces().keySet().iterator().next();
+        Iterator<TimeEntry> entries = jToggl.iterateDetailedReport(new PagedReportsParameter(wid, "stub-test"));
+        int count = 0;
+        while (entries.hasNext()) {
+            Assert.assertNotNull(entries.next().getId());
+            count++;
+        }
+        Assert.assertEquals(60, count);
+    }
+
+    @Test
+    public void injectsErrorsAndRateLimits() {
+        stub.setErrorRate(1);
+        jToggl.setRetryPolicy(new RetryPolicy().setMaxAttempts(2).setBackoff(1, 1, TimeUnit.MILLISECONDS));
+        try {
+            jToggl.getCurrentUser();
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertEquals(2, stub.getInjectedErrors());
+        }
+
+        stub.setErrorRate(0).setRateLimit(1);
+        jToggl.setRetryPolicy(RetryPolicy.none());
+        try {
+            jToggl.getCurrentUser();
+            jToggl.getCurrentUser();
+            Assert.fail();
+        } catch (TooManyRequestsException e) {
+            Assert.assertEquals(1000, e.getRetryAfter());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package ch.simas.jtoggl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class TokenBucketRateLimiterTest {
+
+    @Test
+    public void burstDoesNotBlock() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 5);
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(0, limiter.acquire());
+        }
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+        Assert.assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    public void blocksWhenExhausted() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(20, 1);
+        limiter.acquire();
+        long start = System.nanoTime();
+        limiter.acquire();
+        limiter.acquire();
+        long elapsed = System.nanoTime() - start;
+        Assert.assertTrue("waited " + elapsed, elapsed >= TimeUnit.MILLISECONDS.toNanos(80));
+    }
+
+    @Test
+    public void zeroRateIsUnlimited() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(0, 1);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue(limiter.tryAcquire());
+        }
+    }
+
+    @Test
+    public void sharedByKey() {
+        Assert.assertSame(TokenBucketRateLimiter.shared("token-a", 1, 1), TokenBucketRateLimiter.shared("token-a", 5, 5));
+        Assert.assertNotSame(TokenBucketRateLimiter.shared("token-a", 1, 1), TokenBucketRateLimiter.shared("token-b", 1, 1));
+    }
+
+    @Test
+    public void throttlePeriodOnlyConfiguresOwnLimiter() {
+        JToggl first = new JToggl("throttle-token");
+        JToggl second = new JToggl("throttle-token");
+        Assert.assertSame(first.getRateLimiter(), second.getRateLimiter());
+        first.setThrottlePeriod(250L);
+        Assert.assertNotSame(first.getRateLimiter(), second.getRateLimiter());
+        Assert.assertEquals(4d, ((TokenBucketRateLimiter) first.getRateLimiter()).getPermitsPerSecond(), 0.0001);
+        Assert.assertEquals(1d, ((TokenBucketRateLimiter) second.getRateLimiter()).getPermitsPerSecond(), 0.0001);
+    }
+}
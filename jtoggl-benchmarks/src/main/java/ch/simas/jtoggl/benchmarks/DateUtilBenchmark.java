@@ -0,0 +1,48 @@
+package ch.simas.jtoggl.benchmarks;
+
+import java.time.OffsetDateTime;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.simas.jtoggl.util.DateUtil;
+
+/**
+ * Date parsing and formatting, done for every start, stop and update timestamp.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateUtilBenchmark {
+
+    private final String dateString = "2019-02-01T08:15:30+01:00";
+    private final OffsetDateTime offsetDate = OffsetDateTime.parse(dateString);
+    private final Date date = new Date(1549005330000L);
+
+    @Benchmark
+    public OffsetDateTime convertStringToOffsetDate() {
+        return DateUtil.convertStringToOffsetDate(dateString);
+    }
+
+    @Benchmark
+    public String convertOffsetDateToString() {
+        return DateUtil.convertDateToString(offsetDate);
+    }
+
+    @Benchmark
+    public String convertDateToString() {
+        return DateUtil.convertDateToString(date);
+    }
+}
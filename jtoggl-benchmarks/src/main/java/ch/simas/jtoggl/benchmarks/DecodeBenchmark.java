@@ -0,0 +1,54 @@
+package ch.simas.jtoggl.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.simas.jtoggl.PagedResult;
+import ch.simas.jtoggl.TimeEntry;
+import ch.simas.jtoggl.util.JsonStreamDecoder;
+
+/**
+ * Decoding of the time entry list and of a detailed report page.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DecodeBenchmark {
+
+    @Param({"1", "50", "10000"})
+    private int entries;
+
+    private String timeEntries;
+    private String reportPage;
+
+    @Setup
+    public void setUp() {
+        timeEntries = Fixtures.timeEntries(entries);
+        reportPage = Fixtures.detailedReportPage(entries);
+    }
+
+    @Benchmark
+    public List<TimeEntry> timeEntryList() {
+        return JsonStreamDecoder.decodeList(timeEntries, TimeEntry::new);
+    }
+
+    @Benchmark
+    public PagedResult detailedReportPage() {
+        return new PagedResult(reportPage);
+    }
+}
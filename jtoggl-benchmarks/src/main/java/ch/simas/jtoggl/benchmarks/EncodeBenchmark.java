@@ -0,0 +1,58 @@
+package ch.simas.jtoggl.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.simas.jtoggl.TimeEntry;
+import ch.simas.jtoggl.util.JsonStreamDecoder;
+
+/**
+ * Serialization of time entries as done for create and update requests.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EncodeBenchmark {
+
+    @Param({"1", "50", "10000"})
+    private int entries;
+
+    private List<TimeEntry> timeEntries;
+
+    @Setup
+    public void setUp() {
+        timeEntries = JsonStreamDecoder.decodeList(Fixtures.timeEntries(entries), TimeEntry::new);
+    }
+
+    @Benchmark
+    public void toJSONObject(Blackhole blackhole) {
+        for (TimeEntry timeEntry : timeEntries) {
+            JSONObject object = timeEntry.toJSONObject();
+            blackhole.consume(object);
+        }
+    }
+
+    @Benchmark
+    public void toJSONString(Blackhole blackhole) {
+        for (TimeEntry timeEntry : timeEntries) {
+            blackhole.consume(timeEntry.toJSONString());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package ch.simas.jtoggl.benchmarks;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Generates payloads shaped like the responses of the Toggl API, deterministic for a given size.
+ */
+final class Fixtures {
+
+    private static final OffsetDateTime FIRST_START = OffsetDateTime.of(2019, 2, 1, 8, 0, 0, 0, ZoneOffset.ofHours(1));
+    private static final String[] DESCRIPTIONS = {
+            "Code review", "Sprint planning", "Bugfix in Zahlungsmodul", "Kundengespräch", "Documentation", "Release 1.2"
+    };
+
+    private Fixtures() {
+    }
+
+    /**
+     * @param id id of the entry, also used to vary the other fields
+     * @return a time entry as returned by GET time_entries
+     */
+    static String timeEntry(long id) {
+        StringBuilder json = new StringBuilder(400);
+        appendTimeEntry(json, id);
+        return json.toString();
+    }
+
+    /**
+     * @param count number of entries
+     * @return a JSON array of time entries as returned by GET time_entries
+     */
+    static String timeEntries(int count) {
+        StringBuilder json = new StringBuilder(count * 400 + 2).append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendTimeEntry(json, i + 1);
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * @param count number of entries on the page
+     * @return a detailed report page as returned by the reports API
+     */
+    static String detailedReportPage(int count) {
+        return detailedReportPage(1, Math.max(count, 50), count);
+    }
+
+    /**
+     * @param page 1-based page number
+     * @param perPage entries per page
+     * @param total total number of entries in the report
+     * @return the requested page of a detailed report as returned by the reports API
+     */
+    static String detailedReportPage(int page, int perPage, long total) {
+        long first = (long) (page - 1) * perPage;
+        long last = Math.max(first, Math.min(first + perPage, total));
+        StringBuilder json = new StringBuilder((int) (last - first) * 500 + 200);
+        json.append("{\"total_grand\":").append(total * 3600000L)
+                .append(",\"total_billable\":null,\"total_currencies\":[{\"currency\":null,\"amount\":null}]")
+                .append(",\"total_count\":").append(total)
+                .append(",\"per_page\":").append(perPage)
+                .append(",\"data\":[");
+        for (long i = first; i < last; i++) {
+            if (i > first) {
+                json.append(',');
+            }
+            OffsetDateTime start = start(i);
+            json.append("{\"id\":").append(i + 1)
+                    .append(",\"pid\":").append(100 + i % 7)
+                    .append(",\"tid\":null,\"uid\":").append(10 + i % 3)
+                    .append(",\"description\":\"").append(DESCRIPTIONS[(int) (i % DESCRIPTIONS.length)]).append('"')
+                    .append(",\"start\":\"").append(format(start)).append('"')
+                    .append(",\"end\":\"").append(format(start.plusMinutes(45))).append('"')
+                    .append(",\"updated\":\"").append(format(start.plusMinutes(46))).append('"')
+                    .append(",\"dur\":2700000,\"user\":\"Jane Doe\",\"use_stop\":true,\"client\":\"Client ").append(i % 4)
+                    .append("\",\"project\":\"Project ").append(i % 7)
+                    .append("\",\"project_color\":\"0\",\"project_hex_color\":\"#06aaf5\",\"task\":null,\"billable\":null")
+                    .append(",\"is_billable\":").append(i % 2 == 0)
+                    .append(",\"cur\":null,\"tags\":[\"tag").append(i % 5).append("\"]}");
+        }
+        return json.append("]}").toString();
+    }
+
+    private static void appendTimeEntry(StringBuilder json, long id) {
+        OffsetDateTime start = start(id);
+        json.append("{\"id\":").append(id)
+                .append(",\"guid\":\"3f0c5a4e-8b1d-4c9e-9a0f-").append(String.format("%012d", id)).append('"')
+                .append(",\"wid\":").append(1000 + id % 2)
+                .append(",\"pid\":").append(100 + id % 7)
+                .append(",\"tid\":").append(id % 3 == 0 ? "null" : String.valueOf(500 + id % 11))
+                .append(",\"billable\":").append(id % 2 == 0)
+                .append(",\"start\":\"").append(format(start)).append('"')
+                .append(",\"stop\":\"").append(format(start.plusMinutes(45))).append('"')
+                .append(",\"duration\":2700")
+                .append(",\"description\":\"").append(DESCRIPTIONS[(int) (id % DESCRIPTIONS.length)]).append('"')
+                .append(",\"tags\":[\"tag").append(id % 5).append("\",\"billed\"]")
+                .append(",\"duronly\":false")
+                .append(",\"at\":\"").append(format(start.plusMinutes(46))).append('"')
+                .append(",\"uid\":").append(10 + id % 3)
+                .append('}');
+    }
+
+    private static OffsetDateTime start(long index) {
+        return FIRST_START.plusMinutes(index * 50);
+    }
+
+    private static String format(OffsetDateTime date) {
+        return DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(date);
+    }
+}
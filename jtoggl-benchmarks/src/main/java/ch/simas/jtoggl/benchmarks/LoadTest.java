@@ -0,0 +1,232 @@
+package ch.simas.jtoggl.benchmarks;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import ch.simas.jtoggl.Bulkhead;
+import ch.simas.jtoggl.HttpTransport;
+import ch.simas.jtoggl.InMemoryMetrics;
+import ch.simas.jtoggl.JToggl;
+import ch.simas.jtoggl.PagedReportsParameter;
+import ch.simas.jtoggl.TimeEntry;
+import ch.simas.jtoggl.TokenBucketRateLimiter;
+import ch.simas.jtoggl.stub.TogglStub;
+import ch.simas.jtoggl.util.LatencyHistogram;
+
+/**
+ * Drives {@link JToggl} against an in-process {@link TogglStub} with a mix of reads,
+ * writes and report pages, and prints throughput and latency percentiles per operation.
+ * <p>
+ * Options are given as key=value arguments, e.g.
+ * {@code java -cp target/benchmarks.jar ch.simas.jtoggl.benchmarks.LoadTest concurrency=32 latency=20 errorRate=0.01}
+ * <ul>
+ * <li>concurrency: number of client threads, default 16</li>
+ * <li>duration, warmup: measured and warmup seconds, default 20 and 5</li>
+ * <li>latency, latencyMax: stub latency in milliseconds, default 5 and 20</li>
+ * <li>errorRate: share of requests failing with status 500, default 0</li>
+ * <li>rateLimit: requests per second before the stub answers 429, default 0 (none)</li>
+ * <li>throttle: client side requests per second, default 0 (none)</li>
+ * <li>entries: number of seeded time entries, default 2000</li>
+ * </ul>
+ */
+public class LoadTest {
+
+    private enum Operation {
+        LIST_TIME_ENTRIES(30), GET_TIME_ENTRY(25), CREATE_TIME_ENTRY(10), UPDATE_TIME_ENTRY(10),
+        WORKSPACE_PROJECTS(15), REPORT_PAGE(10);
+
+        private final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private final Map<String, String> options;
+    private final Map<Operation, LatencyHistogram> latencies = new LinkedHashMap<>();
+    private final Map<Operation, LongAdder> errors = new LinkedHashMap<>();
+    private volatile boolean recording;
+    private List<Long> workspaceIds;
+    private long maxTimeEntryId;
+
+    LoadTest(Map<String, String> options) {
+        this.options = options;
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("expected key=value but got " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        new LoadTest(options).run();
+    }
+
+    void run() throws Exception {
+        int concurrency = intOption("concurrency", 16);
+        int entries = intOption("entries", 2000);
+        long duration = TimeUnit.SECONDS.toNanos(intOption("duration", 20));
+        long warmup = TimeUnit.SECONDS.toNanos(intOption("warmup", 5));
+
+        try (TogglStub stub = new TogglStub(0, Math.max(32, concurrency * 2));
+             HttpTransport transport = new HttpTransport(concurrency * 2, concurrency * 2, 30000, 15000)) {
+            stub.seed(4, 10, entries)
+                    .setLatency(intOption("latency", 5), intOption("latencyMax", 20), TimeUnit.MILLISECONDS)
+                    .setErrorRate(Double.parseDouble(option("errorRate", "0")))
+                    .setRateLimit(intOption("rateLimit", 0));
+
+            InMemoryMetrics metrics = new InMemoryMetrics();
+            JToggl jToggl = new JToggl("load-test-token");
+            jToggl.setApiRoot(stub.getApiRoot());
+            jToggl.setReportsEndpoint(stub.getReportsEndpoint());
+            jToggl.setRateLimiter(new TokenBucketRateLimiter(intOption("throttle", 0), Math.max(1, concurrency)));
+            jToggl.setTransport(transport);
+            jToggl.setMetrics(metrics);
+            jToggl.setBulkhead(JToggl.Endpoint.API, new Bulkhead(concurrency, 30, TimeUnit.SECONDS));
+            jToggl.setBulkhead(JToggl.Endpoint.REPORTS, new Bulkhead(concurrency, 30, TimeUnit.SECONDS));
+
+            workspaceIds = new ArrayList<>(jToggl.getWorkspaces().keySet());
+            maxTimeEntryId = 0;
+            for (TimeEntry entry : jToggl.getTimeEntries()) {
+                maxTimeEntryId = Math.max(maxTimeEntryId, entry.getId());
+            }
+
+            System.out.printf("%d threads, %s%n", concurrency, options);
+            ExecutorService threads = Executors.newFixedThreadPool(concurrency);
+            long start = System.nanoTime();
+            long measureFrom = start + warmup;
+            long end = measureFrom + duration;
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(threads.submit(() -> work(jToggl, end)));
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(0, measureFrom - System.nanoTime()));
+            recording = true;
+            long requestsBefore = stub.getRequestCount();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            long elapsed = System.nanoTime() - measureFrom;
+            threads.shutdown();
+
+            report(elapsed, stub.getRequestCount() - requestsBefore, stub, metrics);
+        }
+    }
+
+    private void work(JToggl jToggl, long end) {
+        while (System.nanoTime() < end) {
+            Operation operation = pick();
+            long start = System.nanoTime();
+            try {
+                execute(jToggl, operation);
+            } catch (RuntimeException e) {
+                if (recording) {
+                    errors.get(operation).increment();
+                }
+            }
+            if (recording) {
+                latencies.get(operation).record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private void execute(JToggl jToggl, Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long wid = workspaceIds.get(random.nextInt(workspaceIds.size()));
+        switch (operation) {
+            case LIST_TIME_ENTRIES:
+                OffsetDateTime to = OffsetDateTime.now(ZoneOffset.UTC).minusHours(random.nextInt(24 * 30));
+                jToggl.getTimeEntries(to.minusDays(1), to);
+                break;
+            case GET_TIME_ENTRY:
+                try {
+                    jToggl.getTimeEntry(1000 + random.nextLong(1, maxTimeEntryId - 999));
+                } catch (ch.simas.jtoggl.NotFoundException e) {
+                    // ids of workspaces, projects, etc. are not time entries
+                }
+                break;
+            case CREATE_TIME_ENTRY:
+            case UPDATE_TIME_ENTRY:
+                TimeEntry entry = new TimeEntry();
+                entry.setDescription("load test");
+                entry.setStart(OffsetDateTime.now(ZoneOffset.UTC).minusDays(random.nextInt(365)));
+                entry.setDuration(1800L);
+                entry.setWid(wid);
+                TimeEntry created = jToggl.createTimeEntry(entry);
+                if (operation == Operation.UPDATE_TIME_ENTRY) {
+                    created.setDescription("load test, updated");
+                    jToggl.updateTimeEntry(created);
+                }
+                break;
+            case WORKSPACE_PROJECTS:
+                jToggl.getWorkspaceProjects(wid);
+                break;
+            case REPORT_PAGE:
+                jToggl.getDetailedReport(new PagedReportsParameter(wid, "load-test").setPage(1 + random.nextInt(3)));
+                break;
+            default:
+                throw new IllegalStateException(operation.name());
+        }
+    }
+
+    private static Operation pick() {
+        int total = 0;
+        for (Operation operation : Operation.values()) {
+            total += operation.weight;
+        }
+        int value = ThreadLocalRandom.current().nextInt(total);
+        for (Operation operation : Operation.values()) {
+            value -= operation.weight;
+            if (value < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private void report(long elapsed, long requests, TogglStub stub, InMemoryMetrics metrics) {
+        double seconds = elapsed / 1e9;
+        TimeUnit us = TimeUnit.MICROSECONDS;
+        System.out.printf("%-20s %10s %8s %10s %9s %9s %9s %9s %9s%n",
+                "operation", "ops", "errors", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        long total = 0;
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latencies.get(operation);
+            total += histogram.getCount();
+            System.out.printf("%-20s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", operation, histogram.getCount(),
+                    errors.get(operation).sum(), histogram.getCount() / seconds,
+                    histogram.getPercentile(50, us) / 1000.0, histogram.getPercentile(90, us) / 1000.0,
+                    histogram.getPercentile(99, us) / 1000.0, histogram.getPercentile(99.9, us) / 1000.0,
+                    histogram.getMax(us) / 1000.0);
+        }
+        System.out.printf("total %d operations, %.1f ops/s, %.1f HTTP requests/s, %d injected errors, %d rate limited, %d retries%n",
+                total, total / seconds, requests / seconds, stub.getInjectedErrors(), stub.getRateLimitedRequests(),
+                metrics.getRetries());
+        System.out.printf("throttle wait: %s%n", metrics.getThrottleWait());
+    }
+
+    private String option(String key, String defaultValue) {
+        return options.getOrDefault(key, defaultValue);
+    }
+
+    private int intOption(String key, int defaultValue) {
+        return Integer.parseInt(option(key, String.valueOf(defaultValue)));
+    }
+}
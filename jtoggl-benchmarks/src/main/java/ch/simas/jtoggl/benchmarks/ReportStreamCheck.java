@@ -0,0 +1,107 @@
+package ch.simas.jtoggl.benchmarks;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import com.sun.net.httpserver.HttpServer;
+
+import ch.simas.jtoggl.JToggl;
+import ch.simas.jtoggl.PagedReportsParameter;
+import ch.simas.jtoggl.TimeEntry;
+import ch.simas.jtoggl.TokenBucketRateLimiter;
+
+/**
+ * Streams a large detailed report from a local server that generates the pages on the fly,
+ * and prints the heap used while streaming. The heap has to stay bounded by the pages in
+ * flight instead of growing with the report, so a run with a small heap must succeed, e.g.
+ * {@code java -Xmx64m -cp target/benchmarks.jar ch.simas.jtoggl.benchmarks.ReportStreamCheck entries=500000}
+ * <ul>
+ * <li>entries: number of entries in the report, default 500000</li>
+ * <li>perPage: entries per page, default 1000</li>
+ * <li>prefetch: pages fetched in advance, default 0</li>
+ * </ul>
+ */
+public class ReportStreamCheck {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("expected key=value but got " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        long entries = Long.parseLong(options.getOrDefault("entries", "500000"));
+        int perPage = Integer.parseInt(options.getOrDefault("perPage", "1000"));
+        int prefetch = Integer.parseInt(options.getOrDefault("prefetch", "0"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/reports/details", exchange -> {
+            try {
+                byte[] body = Fixtures.detailedReportPage(page(exchange.getRequestURI()), perPage, entries)
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        try {
+            JToggl jToggl = new JToggl("report-stream-check");
+            jToggl.setRateLimiter(new TokenBucketRateLimiter(0, 1));
+            jToggl.setReportsEndpoint("http://127.0.0.1:" + server.getAddress().getPort() + "/reports");
+
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            long sampleEvery = perPage * 50L;
+            long[] count = new long[1];
+            long[] peak = new long[1];
+            long start = System.nanoTime();
+            try (Stream<TimeEntry> stream = jToggl.streamDetailedReport(new PagedReportsParameter(1, "report-stream-check"), prefetch)) {
+                stream.forEach(entry -> {
+                    if (++count[0] % sampleEvery == 0) {
+                        System.gc();
+                        peak[0] = Math.max(peak[0], memory.getHeapMemoryUsage().getUsed());
+                    }
+                });
+            }
+            long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+            System.out.printf("%d entries in %d ms, peak heap after GC %d MB of %d MB max%n", count[0], elapsedMillis,
+                    peak[0] >> 20, memory.getHeapMemoryUsage().getMax() >> 20);
+            if (count[0] != entries) {
+                throw new IllegalStateException("streamed " + count[0] + " of " + entries + " entries");
+            }
+        } finally {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private static int page(URI uri) {
+        String query = uri.getRawQuery();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                if (param.startsWith("page=")) {
+                    return Integer.parseInt(param.substring("page=".length()));
+                }
+            }
+        }
+        return 1;
+    }
+}
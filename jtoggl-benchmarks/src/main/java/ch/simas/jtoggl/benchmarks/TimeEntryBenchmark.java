@@ -0,0 +1,47 @@
+package ch.simas.jtoggl.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.simas.jtoggl.TimeEntry;
+
+/**
+ * Decoding and encoding of a single time entry, as for get, create and update requests.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimeEntryBenchmark {
+
+    private String json;
+    private TimeEntry timeEntry;
+
+    @Setup
+    public void setUp() {
+        json = Fixtures.timeEntry(42);
+        timeEntry = new TimeEntry(json);
+    }
+
+    @Benchmark
+    public TimeEntry parse() {
+        return new TimeEntry(json);
+    }
+
+    @Benchmark
+    public String toJSONString() {
+        return timeEntry.toJSONString();
+    }
+}
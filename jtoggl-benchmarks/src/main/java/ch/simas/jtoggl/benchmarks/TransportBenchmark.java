@@ -0,0 +1,82 @@
+package ch.simas.jtoggl.benchmarks;
+
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.params.CoreConnectionPNames;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.simas.jtoggl.HttpTransport;
+import ch.simas.jtoggl.JToggl;
+import ch.simas.jtoggl.TokenBucketRateLimiter;
+import ch.simas.jtoggl.Workspace;
+import ch.simas.jtoggl.stub.TogglStub;
+import io.restassured.RestAssured;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.http.ContentType;
+
+/**
+ * Requests per second of a fresh RestAssured config per request (the former behaviour
+ * of {@code JToggl.getClient()}) compared with the pooled {@link HttpTransport}, against
+ * the in-process stub. Runs with 8 threads, use {@code -t 1} for sequential requests.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class TransportBenchmark {
+
+    private TogglStub stub;
+    private HttpTransport transport;
+    private JToggl jToggl;
+    private String url;
+
+    @Setup
+    public void setUp() throws Exception {
+        stub = new TogglStub();
+        stub.addWorkspace("ws");
+        url = stub.getApiRoot() + "/v8/workspaces";
+
+        transport = new HttpTransport(16, 8, 30 * 1000L, 15 * 1000);
+        jToggl = new JToggl("benchmark-token");
+        jToggl.setRateLimiter(new TokenBucketRateLimiter(0, 1));
+        jToggl.setTransport(transport);
+        jToggl.setApiRoot(stub.getApiRoot());
+    }
+
+    @TearDown
+    public void tearDown() {
+        transport.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public String perRequestConfig() {
+        RestAssuredConfig config = RestAssured.config()
+                .httpClient(HttpClientConfig.httpClientConfig()
+                        .setParam(CoreConnectionPNames.CONNECTION_TIMEOUT, 15 * 1000)
+                        .setParam(CoreConnectionPNames.SO_TIMEOUT, 15 * 1000));
+        return RestAssured.given().config(config).auth().preemptive().basic("benchmark-token", "api_token")
+                .contentType(ContentType.JSON).get(url).body().asString();
+    }
+
+    @Benchmark
+    public LinkedHashMap<Long, Workspace> pooledTransport() {
+        return jToggl.getWorkspaces();
+    }
+}
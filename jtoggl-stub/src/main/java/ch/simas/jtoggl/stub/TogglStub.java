@@ -0,0 +1,731 @@
+package ch.simas.jtoggl.stub;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process stub of the Toggl v8 API and the detailed report of the reports API,
+ * keeping its data in memory.
+ * <p>
+ * Latency, server errors and a rate limit can be injected to see how a client behaves
+ * under load or when Toggl degrades. Point a client to {@link #getApiRoot()} and
+ * {@link #getReportsEndpoint()}. Tests needing responses the stub does not model can
+ * script them for single paths with {@link #override(String, HttpHandler)}.
+ * <p>
+ * Loading this class sets the JVM-wide system property {@code sun.net.httpserver.nodelay}
+ * to true unless it is set already, since without TCP_NODELAY keep-alive responses stall
+ * on delayed ACKs. The JDK server reads it once, before the first server is created.
+ */
+public class TogglStub implements Closeable {
+
+    static {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private static final String API = "/api/v8/";
+    private static final String REPORTS = "/reports/api/v2";
+    private static final int REPORT_PAGE_SIZE = 50;
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong ids = new AtomicLong(1000);
+
+    private final Map<Long, JSONObject> workspaces = new ConcurrentSkipListMap<>();
+    private final Map<Long, JSONObject> users = new ConcurrentSkipListMap<>();
+    private final Map<String, Map<Long, JSONObject>> entities = new HashMap<>();
+    private final Map<Long, JSONObject> timeEntries = new ConcurrentSkipListMap<>();
+    private volatile Long currentUserId;
+
+    private volatile long minLatency;
+    private volatile long maxLatency;
+    private volatile double errorRate;
+    private volatile int rateLimit;
+    private long rateWindow;
+    private int rateWindowRequests;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+
+    /**
+     * Start the stub on a free port of the loopback interface.
+     *
+     * @throws IOException if the server cannot be started
+     */
+    public TogglStub() throws IOException {
+        this(0, 32);
+    }
+
+    /**
+     * @param port port to listen on, 0 for a free port
+     * @param threads number of threads serving requests
+     * @throws IOException if the server cannot be started
+     */
+    public TogglStub(int port, int threads) throws IOException {
+        for (String kind : new String[]{"clients", "projects", "tasks", "tags", "project_users"}) {
+            entities.put(kind, new ConcurrentSkipListMap<>());
+        }
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "toggl-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * @return root of the stubbed Toggl API, e.g. for {@code JToggl.setApiRoot}
+     */
+    public String getApiRoot() {
+        return getUrl() + "/api";
+    }
+
+    /**
+     * @return the stubbed reports endpoint, e.g. for {@code JToggl.setReportsEndpoint}
+     */
+    public String getReportsEndpoint() {
+        return getUrl() + REPORTS;
+    }
+
+    /**
+     * @return root URL of the server, without path
+     */
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Answer requests below the given path with the handler instead of the stubbed API.
+     * Such requests bypass the injected latency, errors and rate limit and are not counted.
+     *
+     * @param path path prefix, e.g. {@code /api/v8/workspaces}
+     * @param handler handler answering the requests
+     * @return this stub
+     */
+    public TogglStub override(String path, HttpHandler handler) {
+        server.createContext(path, handler);
+        return this;
+    }
+
+    /**
+     * Delay every response by a random duration between min and max.
+     *
+     * @return this stub
+     */
+    public TogglStub setLatency(long min, long max, TimeUnit unit) {
+        this.minLatency = unit.toNanos(min);
+        this.maxLatency = unit.toNanos(Math.max(min, max));
+        return this;
+    }
+
+    /**
+     * @param errorRate share of requests answered with status 500, between 0 and 1
+     * @return this stub
+     */
+    public TogglStub setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * @param requestsPerSecond requests per second answered normally, further requests get status 429; 0 for no limit
+     * @return this stub
+     */
+    public synchronized TogglStub setRateLimit(int requestsPerSecond) {
+        this.rateLimit = requestsPerSecond;
+        return this;
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getInjectedErrors() {
+        return injectedErrors.get();
+    }
+
+    public long getRateLimitedRequests() {
+        return rateLimited.get();
+    }
+
+    public int getTimeEntryCount() {
+        return timeEntries.size();
+    }
+
+    /**
+     * Create workspaces with a user, a client and projects each, and time entries
+     * spread over these projects, one every 30 minutes going back from now.
+     *
+     * @param workspaceCount number of workspaces
+     * @param projectsPerWorkspace number of projects per workspace
+     * @param timeEntryCount total number of time entries
+     * @return this stub
+     */
+    public TogglStub seed(int workspaceCount, int projectsPerWorkspace, int timeEntryCount) {
+        List<long[]> projects = new ArrayList<>();
+        for (int w = 0; w < workspaceCount; w++) {
+            long wid = addWorkspace("Workspace " + (w + 1));
+            long uid = addUser(wid, "User " + (w + 1));
+            long cid = addClient(wid, "Client " + (w + 1));
+            for (int p = 0; p < projectsPerWorkspace; p++) {
+                long pid = addProject(wid, cid, "Project " + (w + 1) + "." + (p + 1));
+                addTask(pid, "Task " + (w + 1) + "." + (p + 1));
+                projects.add(new long[]{wid, pid, uid});
+            }
+        }
+        OffsetDateTime start = OffsetDateTime.now(ZoneOffset.UTC).withNano(0);
+        for (int i = 0; i < timeEntryCount && !projects.isEmpty(); i++) {
+            long[] project = projects.get(i % projects.size());
+            addTimeEntry(project[0], project[1], project[2], start.minusMinutes(30L * (i + 1)), 1500, "Entry " + (i + 1));
+        }
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public long addWorkspace(String name) {
+        JSONObject workspace = new JSONObject();
+        long id = ids.incrementAndGet();
+        workspace.put("id", id);
+        workspace.put("name", name);
+        workspace.put("premium", false);
+        workspace.put("admin", true);
+        workspace.put("at", now());
+        workspaces.put(id, workspace);
+        return id;
+    }
+
+    /**
+     * Add a user, the first one is returned by {@code me}.
+     */
+    @SuppressWarnings("unchecked")
+    public long addUser(long workspaceId, String fullname) {
+        JSONObject user = new JSONObject();
+        long id = ids.incrementAndGet();
+        user.put("id", id);
+        user.put("default_wid", workspaceId);
+        user.put("fullname", fullname);
+        user.put("email", fullname.toLowerCase().replace(' ', '.') + "@example.com");
+        user.put("timezone", "UTC");
+        user.put("beginning_of_week", 1L);
+        users.put(id, user);
+        if (currentUserId == null) {
+            currentUserId = id;
+        }
+        return id;
+    }
+
+    @SuppressWarnings("unchecked")
+    public long addClient(long workspaceId, String name) {
+        JSONObject client = new JSONObject();
+        client.put("wid", workspaceId);
+        client.put("name", name);
+        return create("clients", client);
+    }
+
+    @SuppressWarnings("unchecked")
+    public long addProject(long workspaceId, Long clientId, String name) {
+        JSONObject project = new JSONObject();
+        project.put("wid", workspaceId);
+        project.put("cid", clientId);
+        project.put("name", name);
+        project.put("billable", false);
+        project.put("active", true);
+        project.put("is_private", false);
+        return create("projects", project);
+    }
+
+    @SuppressWarnings("unchecked")
+    public long addTask(long projectId, String name) {
+        JSONObject project = entities.get("projects").get(projectId);
+        JSONObject task = new JSONObject();
+        task.put("pid", projectId);
+        task.put("wid", project == null ? null : project.get("wid"));
+        task.put("name", name);
+        task.put("active", true);
+        return create("tasks", task);
+    }
+
+    @SuppressWarnings("unchecked")
+    public long addTimeEntry(long workspaceId, Long projectId, long userId, OffsetDateTime start, long durationSeconds,
+                             String description) {
+        JSONObject entry = new JSONObject();
+        entry.put("wid", workspaceId);
+        entry.put("pid", projectId);
+        entry.put("uid", userId);
+        entry.put("start", FORMAT.format(start));
+        entry.put("duration", durationSeconds);
+        entry.put("description", description);
+        entry.put("billable", false);
+        return createTimeEntry(entry).longValue();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            Reply reply;
+            if (overRateLimit()) {
+                rateLimited.incrementAndGet();
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                reply = new Reply(429, "\"Too many requests\"");
+            } else {
+                delay();
+                if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                    injectedErrors.incrementAndGet();
+                    reply = new Reply(500, "\"Internal server error\"");
+                } else {
+                    try {
+                        reply = route(exchange);
+                    } catch (RuntimeException e) {
+                        reply = new Reply(500, JSONValue.toJSONString(String.valueOf(e)));
+                    }
+                }
+            }
+            byte[] bytes = reply.body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(reply.status, bytes.length == 0 ? -1 : bytes.length);
+            if (bytes.length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private synchronized boolean overRateLimit() {
+        if (rateLimit <= 0) {
+            return false;
+        }
+        long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        if (second != rateWindow) {
+            rateWindow = second;
+            rateWindowRequests = 0;
+        }
+        return ++rateWindowRequests > rateLimit;
+    }
+
+    private void delay() {
+        long min = minLatency;
+        long max = maxLatency;
+        if (max <= 0) {
+            return;
+        }
+        long nanos = max > min ? ThreadLocalRandom.current().nextLong(min, max + 1) : min;
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Reply route(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+        if (path.equals(REPORTS + "/details") && method.equals("GET")) {
+            return details(query);
+        }
+        if (!path.startsWith(API)) {
+            return Reply.NOT_FOUND;
+        }
+        String[] segments = path.substring(API.length()).split("/");
+        JSONObject body = method.equals("POST") || method.equals("PUT") ? read(exchange) : null;
+        String kind = segments[0];
+        Long id = segments.length > 1 ? parseId(segments[1]) : null;
+
+        switch (kind) {
+            case "me":
+                return data(users.get(currentUserId));
+            case "time_entries":
+                return timeEntries(method, segments, id, query, body);
+            case "workspaces":
+                if (segments.length == 1) {
+                    return list(workspaces.values());
+                }
+                if (segments.length == 3 && id != null) {
+                    return workspace(method, id, segments[2], body);
+                }
+                return Reply.NOT_FOUND;
+            case "clients":
+            case "projects":
+            case "tasks":
+            case "tags":
+                Map<Long, JSONObject> store = entities.get(kind);
+                if (segments.length == 1) {
+                    if (method.equals("POST")) {
+                        JSONObject entity = unwrap(body, singular(kind));
+                        return data(store.get(create(kind, entity)));
+                    }
+                    return list(store.values());
+                }
+                return crud(store, method, id, unwrap(body, singular(kind)));
+            default:
+                return Reply.NOT_FOUND;
+        }
+    }
+
+    private Reply timeEntries(String method, String[] segments, Long id, Map<String, String> query, JSONObject body) {
+        if (segments.length == 1) {
+            if (method.equals("POST")) {
+                return data(timeEntries.get(createTimeEntry(unwrap(body, "time_entry"))));
+            }
+            return list(timeEntriesBetween(parseDate(query.get("start_date")), parseDate(query.get("end_date"))));
+        }
+        if (segments[1].equals("current")) {
+            for (JSONObject entry : timeEntries.values()) {
+                if (((Long) entry.get("duration")) < 0) {
+                    return data(entry);
+                }
+            }
+            return new Reply(200, "{\"data\":null}");
+        }
+        if (segments[1].equals("start") && method.equals("POST")) {
+            JSONObject entry = unwrap(body, "time_entry");
+            OffsetDateTime start = OffsetDateTime.now(ZoneOffset.UTC).withNano(0);
+            put(entry, "start", FORMAT.format(start));
+            put(entry, "duration", -start.toEpochSecond());
+            entry.remove("stop");
+            return data(timeEntries.get(createTimeEntry(entry)));
+        }
+        if (segments.length == 3 && segments[2].equals("stop") && id != null) {
+            JSONObject entry = timeEntries.get(id);
+            if (entry == null) {
+                return Reply.NOT_FOUND;
+            }
+            synchronized (entry) {
+                OffsetDateTime start = OffsetDateTime.parse((String) entry.get("start"));
+                OffsetDateTime stop = OffsetDateTime.now(start.getOffset()).withNano(0);
+                put(entry, "stop", FORMAT.format(stop));
+                put(entry, "duration", stop.toEpochSecond() - start.toEpochSecond());
+            }
+            return data(entry);
+        }
+        return crud(timeEntries, method, id, unwrap(body, "time_entry"));
+    }
+
+    private Reply workspace(String method, long wid, String kind, JSONObject body) {
+        if (!workspaces.containsKey(wid)) {
+            return Reply.NOT_FOUND;
+        }
+        if (kind.equals("project_users") && method.equals("POST")) {
+            JSONObject projectUser = unwrap(body, "project_user");
+            return data(entities.get(kind).get(create(kind, projectUser)));
+        }
+        Iterable<JSONObject> candidates;
+        if (kind.equals("users")) {
+            candidates = users.values();
+        } else if (entities.containsKey(kind)) {
+            candidates = entities.get(kind).values();
+        } else {
+            return Reply.NOT_FOUND;
+        }
+        List<JSONObject> result = new ArrayList<>();
+        for (JSONObject entity : candidates) {
+            Object owner = kind.equals("users") ? entity.get("default_wid") : entity.get("wid");
+            if (Long.valueOf(wid).equals(owner)) {
+                result.add(entity);
+            }
+        }
+        return list(result);
+    }
+
+    private Reply crud(Map<Long, JSONObject> store, String method, Long id, JSONObject body) {
+        if (id == null) {
+            return Reply.NOT_FOUND;
+        }
+        JSONObject entity = store.get(id);
+        if (entity == null) {
+            return Reply.NOT_FOUND;
+        }
+        switch (method) {
+            case "GET":
+                return data(entity);
+            case "PUT":
+                synchronized (entity) {
+                    for (Object key : body.keySet()) {
+                        if (!"id".equals(key)) {
+                            put(entity, (String) key, body.get(key));
+                        }
+                    }
+                    put(entity, "at", now());
+                }
+                return data(entity);
+            case "DELETE":
+                store.remove(id);
+                return new Reply(200, "");
+            default:
+                return new Reply(405, "\"method not allowed\"");
+        }
+    }
+
+    /**
+     * Detailed report of one workspace, newest entries first, in pages of 50 entries.
+     */
+    @SuppressWarnings("unchecked")
+    private Reply details(Map<String, String> query) {
+        Long wid = parseId(query.get("workspace_id"));
+        if (wid == null) {
+            return new Reply(400, "\"workspace_id missing\"");
+        }
+        LocalDate since = query.containsKey("since") ? LocalDate.parse(query.get("since")) : null;
+        LocalDate until = query.containsKey("until") ? LocalDate.parse(query.get("until")) : null;
+        int page = query.containsKey("page") ? Integer.parseInt(query.get("page")) : 1;
+
+        List<JSONObject> matching = new ArrayList<>();
+        for (JSONObject entry : timeEntries.values()) {
+            LocalDate day = OffsetDateTime.parse((String) entry.get("start")).toLocalDate();
+            if (wid.equals(entry.get("wid")) && (since == null || !day.isBefore(since)) && (until == null || !day.isAfter(until))) {
+                matching.add(entry);
+            }
+        }
+        matching.sort(Comparator.comparing((JSONObject entry) -> (String) entry.get("start")).reversed());
+
+        JSONArray data = new JSONArray();
+        long total = 0;
+        for (int i = 0; i < matching.size(); i++) {
+            JSONObject entry = matching.get(i);
+            long duration = (Long) entry.get("duration");
+            total += Math.max(0, duration) * 1000;
+            if (i >= (page - 1) * REPORT_PAGE_SIZE && i < page * REPORT_PAGE_SIZE) {
+                data.add(reportEntry(entry));
+            }
+        }
+        JSONObject result = new JSONObject();
+        result.put("total_grand", total);
+        result.put("total_billable", null);
+        result.put("total_count", (long) matching.size());
+        result.put("per_page", (long) REPORT_PAGE_SIZE);
+        result.put("data", data);
+        return new Reply(200, result.toJSONString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private JSONObject reportEntry(JSONObject entry) {
+        JSONObject project = entry.get("pid") == null ? null : entities.get("projects").get(entry.get("pid"));
+        JSONObject client = project == null || project.get("cid") == null ? null : entities.get("clients").get(project.get("cid"));
+        JSONObject user = users.get(entry.get("uid"));
+        long duration = (Long) entry.get("duration");
+        JSONObject result = new JSONObject();
+        result.put("id", entry.get("id"));
+        result.put("pid", entry.get("pid"));
+        result.put("tid", entry.get("tid"));
+        result.put("uid", entry.get("uid"));
+        result.put("description", entry.get("description"));
+        result.put("start", entry.get("start"));
+        result.put("end", entry.get("stop"));
+        result.put("updated", entry.get("at"));
+        result.put("dur", Math.max(0, duration) * 1000);
+        result.put("user", user == null ? null : user.get("fullname"));
+        result.put("use_stop", true);
+        result.put("client", client == null ? null : client.get("name"));
+        result.put("project", project == null ? null : project.get("name"));
+        result.put("task", null);
+        result.put("billable", null);
+        result.put("is_billable", entry.get("billable"));
+        result.put("cur", null);
+        result.put("tags", entry.get("tags") == null ? new JSONArray() : entry.get("tags"));
+        return result;
+    }
+
+    private List<JSONObject> timeEntriesBetween(OffsetDateTime start, OffsetDateTime end) {
+        List<Map.Entry<OffsetDateTime, JSONObject>> matching = new ArrayList<>();
+        for (JSONObject entry : timeEntries.values()) {
+            OffsetDateTime entryStart = OffsetDateTime.parse((String) entry.get("start"));
+            if ((start == null || !entryStart.isBefore(start)) && (end == null || !entryStart.isAfter(end))) {
+                matching.add(new AbstractMap.SimpleImmutableEntry<>(entryStart, entry));
+            }
+        }
+        matching.sort(Comparator.comparing(Map.Entry::getKey));
+        List<JSONObject> result = new ArrayList<>(matching.size());
+        for (Map.Entry<OffsetDateTime, JSONObject> entry : matching) {
+            result.add(entry.getValue());
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Long createTimeEntry(JSONObject entry) {
+        // clients send nested objects, the API only keeps the ids
+        Object project = entry.remove("project");
+        if (entry.get("pid") == null && project instanceof JSONObject) {
+            entry.put("pid", ((JSONObject) project).get("id"));
+        }
+        Object workspace = entry.remove("workspace");
+        if (entry.get("wid") == null && workspace instanceof JSONObject) {
+            entry.put("wid", ((JSONObject) workspace).get("id"));
+        }
+        if (entry.get("uid") == null) {
+            entry.put("uid", currentUserId);
+        }
+        if (entry.get("start") == null) {
+            entry.put("start", FORMAT.format(OffsetDateTime.now(ZoneOffset.UTC).withNano(0)));
+        }
+        if (entry.get("duration") == null) {
+            entry.put("duration", 0L);
+        }
+        long duration = ((Number) entry.get("duration")).longValue();
+        entry.put("duration", duration);
+        if (entry.get("stop") == null && duration >= 0) {
+            entry.put("stop", FORMAT.format(OffsetDateTime.parse((String) entry.get("start")).plusSeconds(duration)));
+        }
+        long id = ids.incrementAndGet();
+        entry.put("id", id);
+        entry.put("guid", String.format("00000000-0000-0000-0000-%012d", id));
+        entry.put("at", now());
+        timeEntries.put(id, entry);
+        return id;
+    }
+
+    @SuppressWarnings("unchecked")
+    private long create(String kind, JSONObject entity) {
+        long id = ids.incrementAndGet();
+        entity.put("id", id);
+        entity.put("at", now());
+        entities.get(kind).put(id, entity);
+        return id;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void put(JSONObject object, String key, Object value) {
+        object.put(key, value);
+    }
+
+    private static JSONObject unwrap(JSONObject body, String key) {
+        if (body == null) {
+            return new JSONObject();
+        }
+        Object entity = body.get(key);
+        return entity instanceof JSONObject ? (JSONObject) entity : new JSONObject();
+    }
+
+    private static String singular(String kind) {
+        return kind.substring(0, kind.length() - 1);
+    }
+
+    private static Reply data(JSONObject entity) {
+        if (entity == null) {
+            return Reply.NOT_FOUND;
+        }
+        synchronized (entity) {
+            return new Reply(200, "{\"data\":" + entity.toJSONString() + "}");
+        }
+    }
+
+    private static Reply list(Iterable<JSONObject> entities) {
+        StringBuilder json = new StringBuilder("[");
+        for (JSONObject entity : entities) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            synchronized (entity) {
+                json.append(entity.toJSONString());
+            }
+        }
+        return new Reply(200, json.append(']').toString());
+    }
+
+    private static JSONObject read(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            for (int read; (read = in.read(buffer)) > 0; ) {
+                out.write(buffer, 0, read);
+            }
+        }
+        Object body = JSONValue.parse(new String(out.toByteArray(), StandardCharsets.UTF_8));
+        return body instanceof JSONObject ? (JSONObject) body : null;
+    }
+
+    private static Map<String, String> query(String rawQuery) throws UnsupportedEncodingException {
+        Map<String, String> result = new HashMap<>();
+        if (rawQuery == null) {
+            return result;
+        }
+        for (String param : rawQuery.split("&")) {
+            int separator = param.indexOf('=');
+            if (separator > 0) {
+                // a literal '+' in an offset like +01:00 is often left unencoded
+                String value = param.substring(separator + 1).replace("+", "%2B");
+                result.put(URLDecoder.decode(param.substring(0, separator), "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+            }
+        }
+        return result;
+    }
+
+    private static OffsetDateTime parseDate(String value) {
+        return value == null ? null : OffsetDateTime.parse(value);
+    }
+
+    private static Long parseId(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String now() {
+        return FORMAT.format(Instant.now().atOffset(ZoneOffset.UTC).withNano(0));
+    }
+
+    private static class Reply {
+
+        static final Reply NOT_FOUND = new Reply(404, "\"not found\"");
+
+        final int status;
+        final String body;
+
+        Reply(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}